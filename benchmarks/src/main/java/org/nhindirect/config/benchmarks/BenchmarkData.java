@@ -0,0 +1,84 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+
+import org.apache.commons.io.FileUtils;
+import org.nhindirect.common.crypto.CryptoExtensions;
+
+/**
+ * Loads the certificates used by the benchmarks.  Certificates are read from the config-store test resources, which are 
+ * resolved relative to the benchmarks directory unless the benchmark.certs.dir system property is set.
+ * @since 6.0.1
+ */
+public class BenchmarkData
+{
+	public static final String CERTS_DIR_PROPERTY = "benchmark.certs.dir";
+	
+	public static final String DEFAULT_CERTS_DIR = "../src/test/resources/certs";
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}
+	
+	private BenchmarkData()
+	{
+	}
+	
+	public static byte[] loadCertificateData(String certFileName) throws IOException
+	{
+		return FileUtils.readFileToByteArray(new File(System.getProperty(CERTS_DIR_PROPERTY, DEFAULT_CERTS_DIR), certFileName));
+	}
+	
+	/**
+	 * Creates an unprotected PKCS12 key store from a DER encoded certificate and PKCS8 private key.
+	 */
+	public static byte[] loadPkcs12FromCertAndKey(String certFileName, String keyFileName) throws Exception
+	{
+		final KeyStore localKeyStore = KeyStore.getInstance("PKCS12", CryptoExtensions.getJCEProviderName());
+		localKeyStore.load(null, null);
+		
+		final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		final java.security.cert.Certificate cert = cf.generateCertificate(new ByteArrayInputStream(loadCertificateData(certFileName)));
+		
+		final KeyFactory kf = KeyFactory.getInstance("RSA");
+		final Key privKey = kf.generatePrivate(new PKCS8EncodedKeySpec(loadCertificateData(keyFileName)));
+		
+		final char[] array = "".toCharArray();
+		localKeyStore.setKeyEntry("privCert", privKey, array,  new java.security.cert.Certificate[] {cert});
+		
+		final ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+		localKeyStore.store(outStr, array);
+		
+		return outStr.toByteArray();
+	}
+}
@@ -0,0 +1,164 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.benchmarks;
+
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.nhindirect.common.crypto.KeyStoreProtectionManager;
+import org.nhindirect.common.crypto.impl.BootstrappedKeyStoreProtectionManager;
+import org.nhindirect.config.model.utils.CertUtils;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.BundleThumbprint;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.Certificate.CertContainer;
+import org.nhindirect.config.store.util.CertificateUtils;
+import org.nhindirect.config.store.util.X509CertificateCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the certificate decoding done by the certificate, anchor, and trust bundle entities.
+ * <p>
+ * Decoding goes through {@link X509CertificateCache}, so the entity benchmarks measure the cached path.  
+ * {@link #decodeX509_uncached()} measures a plain X509 decode for comparison.
+ * @since 6.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateDecodeBenchmark
+{
+	private byte[] x509Data;
+	
+	private byte[] pkcs12Data;
+	
+	private Certificate x509Cert;
+	
+	private Certificate pkcs12Cert;
+	
+	private Anchor anchor;
+	
+	private KeyStoreProtectionManager kspMgr;
+	
+	private byte[] protectedPkcs12Data;
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		x509Data = BenchmarkData.loadCertificateData("gm2552.der");
+		pkcs12Data = BenchmarkData.loadPkcs12FromCertAndKey("gm2552.der", "gm2552Key.der");
+		
+		x509Cert = new Certificate();
+		x509Cert.setData(x509Data);
+		
+		pkcs12Cert = new Certificate();
+		pkcs12Cert.setData(pkcs12Data);
+		
+		anchor = new Anchor();
+		anchor.setData(BenchmarkData.loadCertificateData("cacert.der"));
+		
+		kspMgr = new BootstrappedKeyStoreProtectionManager("12345", "67890");
+		
+		final Certificate protectedCert = new Certificate();
+		protectedCert.setData(pkcs12Data);
+		protectedPkcs12Data = CertificateUtils.applyCertRepositoryAttributes(protectedCert, kspMgr).getData();
+	}
+	
+	@Benchmark
+	public Certificate setData_x509() throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(x509Data);
+		
+		return cert;
+	}
+	
+	@Benchmark
+	public Certificate setData_pkcs12() throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(pkcs12Data);
+		
+		return cert;
+	}
+	
+	@Benchmark
+	public CertContainer toCredential_x509() throws Exception
+	{
+		return x509Cert.toCredential();
+	}
+	
+	@Benchmark
+	public CertContainer toCredential_pkcs12() throws Exception
+	{
+		return pkcs12Cert.toCredential();
+	}
+	
+	@Benchmark
+	public X509Certificate anchorToCertificate() throws Exception
+	{
+		return anchor.toCertificate();
+	}
+	
+	@Benchmark
+	public X509Certificate decodeX509_uncached() throws Exception
+	{
+		return CertUtils.toX509Certificate(x509Data);
+	}
+	
+	@Benchmark
+	public BundleThumbprint bundleThumbprint() throws Exception
+	{
+		return BundleThumbprint.toThumbprint(x509Data);
+	}
+	
+	@Benchmark
+	public Certificate applyCertRepositoryAttributes() throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(pkcs12Data);
+		
+		return CertificateUtils.applyCertRepositoryAttributes(cert, kspMgr);
+	}
+	
+	@Benchmark
+	public Certificate stripP12Protection() throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(protectedPkcs12Data);
+		cert.setPrivateKey(true);
+		
+		return CertificateUtils.stripP12Protection(cert, kspMgr);
+	}
+}
@@ -0,0 +1,110 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.nhindirect.config.model.utils.CertUtils;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks converting DNS records to and from the wire transfer format.
+ * @since 6.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DNSRecordBenchmark
+{
+	private DNSRecord aRecord;
+	
+	private DNSRecord certRecord;
+	
+	private byte[] aWire;
+	
+	private byte[] certWire;
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		aRecord = DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1");
+		
+		final X509Certificate cert = CertUtils.toX509Certificate(
+				BenchmarkData.loadCertificateData("gm2552.der"));
+		certRecord = DNSRecordUtils.createX509CERTRecord("gm2552@securehealthemail.com", 86400L, cert);
+		
+		aWire = DNSRecordUtils.encodeWire(aRecord);
+		certWire = DNSRecordUtils.encodeWire(certRecord);
+	}
+	
+	@Benchmark
+	public byte[] toWire_a() throws Exception
+	{
+		return DNSRecordUtils.toWire(aRecord);
+	}
+	
+	@Benchmark
+	public byte[] toWire_cert() throws Exception
+	{
+		return DNSRecordUtils.toWire(certRecord);
+	}
+	
+	@Benchmark
+	public ByteBuffer toWireBuffer_cert() throws Exception
+	{
+		return certRecord.toWireBuffer();
+	}
+	
+	@Benchmark
+	public byte[] encodeWire_cert() throws Exception
+	{
+		return DNSRecordUtils.encodeWire(certRecord);
+	}
+	
+	@Benchmark
+	public DNSRecord fromWire_a() throws Exception
+	{
+		return DNSRecordUtils.fromWire(aWire);
+	}
+	
+	@Benchmark
+	public DNSRecord fromWire_cert() throws Exception
+	{
+		return DNSRecordUtils.fromWire(certWire);
+	}
+}
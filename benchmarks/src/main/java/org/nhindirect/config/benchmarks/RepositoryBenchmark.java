@@ -0,0 +1,213 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.nhindirect.config.repository.AddressRepository;
+import org.nhindirect.config.repository.AnchorRepository;
+import org.nhindirect.config.repository.CertificateRepository;
+import org.nhindirect.config.repository.DNSRepository;
+import org.nhindirect.config.repository.DomainRepository;
+import org.nhindirect.config.repository.projection.CertificateSummary;
+import org.nhindirect.config.store.Address;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.Domain;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.xbill.DNS.Type;
+
+/**
+ * Benchmarks the main repository finders against an in-memory H2 database.  The database is populated with the number
+ * of domains given by the domainCount parameter, each with a set of addresses, certificates, anchors, and DNS records.
+ * @since 6.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark
+{
+	private static final int ENTRIES_PER_DOMAIN = 10;
+	
+	@Param({"100", "1000"})
+	public int domainCount;
+	
+	private ConfigurableApplicationContext context;
+	
+	private CertificateRepository certRepo;
+	
+	private AnchorRepository anchorRepo;
+	
+	private DomainRepository domainRepo;
+	
+	private AddressRepository addressRepo;
+	
+	private DNSRepository dnsRepo;
+	
+	private String thumbprint;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception
+	{
+		context = new SpringApplicationBuilder(BenchmarkApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.jpa.properties.hibernate.enable_lazy_load_no_trans=true",
+						"logging.level.root=WARN")
+				.run();
+		
+		certRepo = context.getBean(CertificateRepository.class);
+		anchorRepo = context.getBean(AnchorRepository.class);
+		domainRepo = context.getBean(DomainRepository.class);
+		addressRepo = context.getBean(AddressRepository.class);
+		dnsRepo = context.getBean(DNSRepository.class);
+		
+		final byte[] certData = BenchmarkData.loadCertificateData("gm2552.der");
+		final byte[] anchorData = BenchmarkData.loadCertificateData("cacert.der");
+		
+		for (int i = 0; i < domainCount; ++i)
+		{
+			final String domainName = domainName(i);
+			
+			final Domain domain = new Domain(domainName);
+			domain.setStatus(EntityStatus.ENABLED);
+			domainRepo.save(domain);
+			
+			final Anchor anchor = new Anchor();
+			anchor.setOwner(domainName);
+			anchor.setData(anchorData);
+			anchor.setStatus(EntityStatus.ENABLED);
+			anchorRepo.save(anchor);
+			
+			for (int j = 0; j < ENTRIES_PER_DOMAIN; ++j)
+			{
+				final String emailAddress = emailAddress(i, j);
+				
+				final Address address = new Address(domain, emailAddress);
+				address.setStatus(EntityStatus.ENABLED);
+				addressRepo.save(address);
+				
+				final Certificate cert = new Certificate();
+				cert.setOwner(emailAddress);
+				cert.setData(certData);
+				cert.setStatus(EntityStatus.ENABLED);
+				certRepo.save(cert);
+				thumbprint = cert.getThumbprint();
+				
+				dnsRepo.save(DNSRecordUtils.createARecord("host" + j + "." + domainName, 86400L, "127.0.0." + (j + 1)));
+			}
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		if (context != null)
+			context.close();
+	}
+	
+	private static String domainName(int domain)
+	{
+		return "domain" + domain + ".example.com";
+	}
+	
+	private static String emailAddress(int domain, int user)
+	{
+		return "User" + user + "@" + domainName(domain);
+	}
+	
+	private int randomDomain()
+	{
+		return ThreadLocalRandom.current().nextInt(domainCount);
+	}
+	
+	private int randomEntry()
+	{
+		return ThreadLocalRandom.current().nextInt(ENTRIES_PER_DOMAIN);
+	}
+	
+	@Benchmark
+	public List<Certificate> certificateFindByOwnerIgnoreCase()
+	{
+		return certRepo.findByOwnerIgnoreCase(emailAddress(randomDomain(), randomEntry()).toUpperCase());
+	}
+	
+	@Benchmark
+	public List<CertificateSummary> certificateFindSummariesByOwnerIgnoreCase()
+	{
+		return certRepo.findSummariesByOwnerIgnoreCase(emailAddress(randomDomain(), randomEntry()));
+	}
+	
+	@Benchmark
+	public Certificate certificateFindByOwnerIgnoreCaseAndThumbprint()
+	{
+		return certRepo.findByOwnerIgnoreCaseAndThumbprint(emailAddress(randomDomain(), randomEntry()), thumbprint);
+	}
+	
+	@Benchmark
+	public List<Anchor> anchorFindByOwnerIgnoreCase()
+	{
+		return anchorRepo.findByOwnerIgnoreCase(domainName(randomDomain()));
+	}
+	
+	@Benchmark
+	public Domain domainFindByDomainNameIgnoreCase()
+	{
+		return domainRepo.findByDomainNameIgnoreCase(domainName(randomDomain()).toUpperCase());
+	}
+	
+	@Benchmark
+	public Address addressFindByEmailAddressIgnoreCase()
+	{
+		return addressRepo.findByEmailAddressIgnoreCase(emailAddress(randomDomain(), randomEntry()));
+	}
+	
+	@Benchmark
+	public List<DNSRecord> dnsFindByNameIgnoreCaseAndType()
+	{
+		return dnsRepo.findByNameIgnoreCaseAndType("host" + randomEntry() + "." + domainName(randomDomain()) + ".", Type.A);
+	}
+}
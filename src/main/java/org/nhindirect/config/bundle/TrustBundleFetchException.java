@@ -0,0 +1,67 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.bundle;
+
+import org.nhindirect.config.store.BundleRefreshError;
+
+/**
+ * Thrown when a trust bundle cannot be fetched or processed.
+ * @since 6.0.1
+ */
+public class TrustBundleFetchException extends Exception
+{
+	private static final long serialVersionUID = -2815216340962235411L;
+
+	private final BundleRefreshError error;
+	
+	/**
+	 * Constructor.
+	 * @param error The refresh error recorded against the bundle.
+	 * @param msg The exception message.
+	 */
+	public TrustBundleFetchException(BundleRefreshError error, String msg)
+	{
+		super(msg);
+		this.error = error;
+	}
+	
+	/**
+	 * Constructor.
+	 * @param error The refresh error recorded against the bundle.
+	 * @param msg The exception message.
+	 * @param t The cause of the exception.
+	 */
+	public TrustBundleFetchException(BundleRefreshError error, String msg, Throwable t)
+	{
+		super(msg, t);
+		this.error = error;
+	}
+	
+	/**
+	 * Gets the refresh error recorded against the bundle.
+	 * @return The refresh error.
+	 */
+	public BundleRefreshError getError()
+	{
+		return error;
+	}
+}
@@ -0,0 +1,41 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.bundle;
+
+import org.nhindirect.config.store.TrustBundle;
+
+/**
+ * Retrieves the raw content of a trust bundle from its source.  Implementations must be thread safe as bundles are fetched
+ * concurrently by the {@link TrustBundleRefreshScheduler}.
+ * @since 6.0.1
+ */
+public interface TrustBundleFetcher
+{
+	/**
+	 * Fetches the content of a trust bundle.
+	 * @param bundle The bundle to fetch.  The source location is taken from {@link TrustBundle#getBundleURL()}.
+	 * @return The raw bundle content.
+	 * @throws TrustBundleFetchException Thrown if the bundle cannot be retrieved.  The exception carries the 
+	 * {@link org.nhindirect.config.store.BundleRefreshError} recorded against the bundle.
+	 */
+	public byte[] fetch(TrustBundle bundle) throws TrustBundleFetchException;
+}
@@ -0,0 +1,498 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.bundle;
+
+import java.io.ByteArrayInputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.repository.TrustBundleAnchorUpdate;
+import org.nhindirect.config.repository.TrustBundleRepository;
+import org.nhindirect.config.store.BundleRefreshError;
+import org.nhindirect.config.store.BundleThumbprint;
+import org.nhindirect.config.store.CertificateException;
+import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.TrustBundleAnchor;
+
+/**
+ * Refreshes the anchors of trust bundles that are due according to their refresh interval and last refresh attempt.
+ * <p>
+ * The bundle table is polled at a fixed rate and due bundles are handed to a bounded pool of workers, so at most 
+ * <code>poolSize</code> bundles are downloaded at any time regardless of how many bundles share the same refresh interval.
+ * Each bundle is offset from its nominal refresh time by a stable jitter derived from its id, which spreads bundles that were 
+ * created or refreshed together across the jitter window.
+ * <p>
+ * Failed refreshes are retried with a backoff chosen by the {@link BundleRefreshError} of the last attempt.  Download timeouts 
+ * are treated as transient and retried sooner than the refresh interval, while other errors back off exponentially from the 
+ * refresh interval up to a maximum delay.  Failure counts are held in memory and reset when the scheduler is restarted.
+ * <p>
+ * A bundle with a refresh interval of 0 or less is never refreshed by the scheduler.
+ * @since 6.0.1
+ */
+public class TrustBundleRefreshScheduler
+{
+	private static final Log log = LogFactory.getLog(TrustBundleRefreshScheduler.class);
+	
+	/**
+	 * Default time in milliseconds between polls for due bundles.
+	 */
+	public static final long DEFAULT_POLL_INTERVAL = 30000L;
+	
+	/**
+	 * Default number of bundles refreshed concurrently.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 4;
+	
+	/**
+	 * Default upper bound in milliseconds of the per bundle jitter.
+	 */
+	public static final long DEFAULT_MAX_JITTER = 300000L;
+	
+	/**
+	 * Default base delay in milliseconds before retrying a bundle that timed out.
+	 */
+	public static final long DEFAULT_TIMEOUT_RETRY_DELAY = 60000L;
+	
+	/**
+	 * Default maximum delay in milliseconds before retrying a failed bundle.
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = 86400000L;
+	
+	protected final TrustBundleRepository bundleRepo;
+	
+	protected final TrustBundleFetcher fetcher;
+	
+	protected final int poolSize;
+	
+	protected long pollInterval = DEFAULT_POLL_INTERVAL;
+	
+	protected long maxJitter = DEFAULT_MAX_JITTER;
+	
+	protected long timeoutRetryDelay = DEFAULT_TIMEOUT_RETRY_DELAY;
+	
+	protected long maxBackoff = DEFAULT_MAX_BACKOFF;
+	
+	private final Map<Long, Integer> failureCounts = new ConcurrentHashMap<>();
+	
+	private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+	
+	private ScheduledExecutorService pollExecutor;
+	
+	private ExecutorService refreshExecutor;
+	
+	/**
+	 * Creates a scheduler with the default pool size.
+	 * @param bundleRepo The trust bundle repository.
+	 * @param fetcher The fetcher used to download bundle content.
+	 */
+	public TrustBundleRefreshScheduler(TrustBundleRepository bundleRepo, TrustBundleFetcher fetcher)
+	{
+		this(bundleRepo, fetcher, DEFAULT_POOL_SIZE);
+	}
+	
+	/**
+	 * Creates a scheduler.
+	 * @param bundleRepo The trust bundle repository.
+	 * @param fetcher The fetcher used to download bundle content.
+	 * @param poolSize The maximum number of bundles refreshed concurrently.
+	 */
+	public TrustBundleRefreshScheduler(TrustBundleRepository bundleRepo, TrustBundleFetcher fetcher, int poolSize)
+	{
+		if (poolSize <= 0)
+			throw new IllegalArgumentException("Pool size must be greater than 0");
+		
+		this.bundleRepo = bundleRepo;
+		this.fetcher = fetcher;
+		this.poolSize = poolSize;
+	}
+	
+	/**
+	 * Sets the time in milliseconds between polls for due bundles.  Takes effect the next time the scheduler is started.
+	 * @param pollInterval The poll interval in milliseconds.
+	 */
+	public void setPollInterval(long pollInterval)
+	{
+		if (pollInterval <= 0)
+			throw new IllegalArgumentException("Poll interval must be greater than 0");
+		
+		this.pollInterval = pollInterval;
+	}
+	
+	/**
+	 * Sets the upper bound in milliseconds of the per bundle jitter.  The jitter of a bundle never exceeds its refresh interval.
+	 * @param maxJitter The maximum jitter in milliseconds.  0 disables jitter.
+	 */
+	public void setMaxJitter(long maxJitter)
+	{
+		this.maxJitter = Math.max(0, maxJitter);
+	}
+	
+	/**
+	 * Sets the base delay in milliseconds before retrying a bundle that timed out.
+	 * @param timeoutRetryDelay The retry delay in milliseconds.
+	 */
+	public void setTimeoutRetryDelay(long timeoutRetryDelay)
+	{
+		this.timeoutRetryDelay = Math.max(0, timeoutRetryDelay);
+	}
+	
+	/**
+	 * Sets the maximum delay in milliseconds before retrying a failed bundle.
+	 * @param maxBackoff The maximum backoff in milliseconds.
+	 */
+	public void setMaxBackoff(long maxBackoff)
+	{
+		this.maxBackoff = Math.max(0, maxBackoff);
+	}
+	
+	/**
+	 * Starts polling for due bundles in the background.
+	 */
+	public synchronized void start()
+	{
+		if (pollExecutor != null)
+			return;
+		
+		final AtomicInteger workerCount = new AtomicInteger();
+		refreshExecutor = Executors.newFixedThreadPool(poolSize, runnable ->
+		{
+			final Thread thread = new Thread(runnable, "TrustBundleRefresh-" + workerCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "TrustBundleRefresh-poll");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pollExecutor.scheduleWithFixedDelay(() -> 
+		{
+			try
+			{
+				refreshDueBundles();
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to poll for due trust bundles: " + e.getMessage(), e);
+			}
+		}, 0, pollInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops polling for due bundles and interrupts refreshes that are in progress.
+	 */
+	public synchronized void shutdown()
+	{
+		if (pollExecutor != null)
+		{
+			pollExecutor.shutdownNow();
+			pollExecutor = null;
+		}
+		if (refreshExecutor != null)
+		{
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+	}
+	
+	/**
+	 * Submits all due bundles to the refresh pool.  Bundles that are still being refreshed from a previous poll are skipped.
+	 * @return The number of bundles submitted.
+	 */
+	public int refreshDueBundles()
+	{
+		final ExecutorService executor;
+		synchronized (this)
+		{
+			executor = refreshExecutor;
+		}
+		if (executor == null)
+			throw new IllegalStateException("Trust bundle refresh scheduler has not been started");
+		
+		int submitted = 0;
+		for (TrustBundle bundle : getDueBundles(System.currentTimeMillis()))
+		{
+			final long id = bundle.getId();
+			if (!inFlight.add(id))
+				continue;
+			
+			try
+			{
+				executor.execute(() ->
+				{
+					try
+					{
+						refreshBundle(bundle);
+					}
+					catch (Exception e)
+					{
+						log.warn("Failed to refresh trust bundle " + bundle.getBundleName() + ": " + e.getMessage(), e);
+					}
+					finally
+					{
+						inFlight.remove(id);
+					}
+				});
+				++submitted;
+			}
+			catch (RejectedExecutionException e)
+			{
+				inFlight.remove(id);
+				break;
+			}
+		}
+		
+		if (submitted > 0)
+			log.debug("Submitted " + submitted + " trust bundles for refresh.");
+		
+		return submitted;
+	}
+	
+	/**
+	 * Gets the bundles that are due for a refresh.
+	 * @param now The current time in milliseconds.
+	 * @return The bundles whose next refresh time is at or before <code>now</code>.
+	 */
+	public List<TrustBundle> getDueBundles(long now)
+	{
+		final List<TrustBundle> retVal = new ArrayList<>();
+		for (TrustBundle bundle : bundleRepo.findByRefreshIntervalGreaterThan(0))
+		{
+			if (getNextRefreshTime(bundle) <= now)
+				retVal.add(bundle);
+		}
+		
+		return retVal;
+	}
+	
+	/**
+	 * Refreshes a single bundle in the calling thread regardless of whether it is due.
+	 * @param trustBundleId The id of the bundle.
+	 * @return The result of the refresh.  {@link BundleRefreshError#NOT_FOUND} is returned if the bundle does not exist.
+	 */
+	public BundleRefreshError refreshBundle(long trustBundleId)
+	{
+		final TrustBundle bundle = bundleRepo.findById(trustBundleId).orElse(null);
+		if (bundle == null)
+			return BundleRefreshError.NOT_FOUND;
+		
+		return refreshBundle(bundle);
+	}
+	
+	/**
+	 * Gets the time in milliseconds at which a bundle is next due for a refresh.
+	 * @param bundle The bundle.
+	 * @return The next refresh time, or {@link Long#MAX_VALUE} if the bundle is not refreshed automatically.
+	 */
+	public long getNextRefreshTime(TrustBundle bundle)
+	{
+		if (bundle.getRefreshInterval() <= 0)
+			return Long.MAX_VALUE;
+		
+		final long interval = bundle.getRefreshInterval() * 1000L;
+		final long jitter = getJitter(bundle.getId(), interval);
+		
+		// bundles that have never been refreshed are spread out from their creation time
+		if (bundle.getLastRefreshAttempt() == null)
+			return (bundle.getCreateTime() == null ? 0 : bundle.getCreateTime().getTimeInMillis()) + jitter;
+		
+		final long lastAttempt = bundle.getLastRefreshAttempt().getTimeInMillis();
+		final BundleRefreshError error = bundle.getLastRefreshError();
+		if (error == null || error == BundleRefreshError.SUCCESS)
+			return lastAttempt + interval + jitter;
+		
+		return lastAttempt + getRetryDelay(error, failureCounts.getOrDefault(bundle.getId(), 1), interval) + jitter;
+	}
+	
+	/**
+	 * Gets the delay before retrying a bundle after a failed refresh.
+	 * @param error The error of the last refresh attempt.
+	 * @param failures The number of consecutive failed attempts.
+	 * @param interval The refresh interval of the bundle in milliseconds.
+	 * @return The retry delay in milliseconds.
+	 */
+	protected long getRetryDelay(BundleRefreshError error, int failures, long interval)
+	{
+		final int shift = Math.min(Math.max(failures, 1) - 1, 30);
+		
+		switch (error)
+		{
+			// timeouts are usually transient, so retry sooner than the refresh interval but never later
+			case DOWNLOAD_TIMEOUT:
+				return Math.min(Math.min(timeoutRetryDelay, interval) << shift, interval);
+			// the bundle or its signature is bad and is unlikely to be fixed quickly
+			default:
+				return Math.min(interval << shift, Math.max(maxBackoff, interval));
+		}
+	}
+	
+	/**
+	 * Gets a stable jitter for a bundle that is less than both the maximum jitter and the refresh interval.
+	 * @param trustBundleId The id of the bundle.
+	 * @param interval The refresh interval of the bundle in milliseconds.
+	 * @return The jitter in milliseconds.
+	 */
+	protected long getJitter(long trustBundleId, long interval)
+	{
+		final long bound = Math.min(maxJitter, interval);
+		if (bound <= 0)
+			return 0;
+		
+		long hash = trustBundleId * 0x9E3779B97F4A7C15L;
+		hash ^= (hash >>> 32);
+		
+		return Math.floorMod(hash, bound);
+	}
+	
+	/**
+	 * Fetches a bundle, updates its anchors if the content has changed, and records the result of the attempt.
+	 * @param bundle The bundle to refresh.
+	 * @return The result of the refresh.
+	 */
+	protected BundleRefreshError refreshBundle(TrustBundle bundle)
+	{
+		final Calendar attempt = Calendar.getInstance();
+		
+		try
+		{
+			final byte[] data = fetcher.fetch(bundle);
+			final String checkSum = toCheckSum(data);
+			
+			// unchanged content does not need to be parsed
+			if (!checkSum.equals(bundle.getCheckSum()))
+			{
+				final TrustBundleAnchorUpdate update = bundleRepo.updateTrustBundleAnchors(bundle.getId(), parseAnchors(bundle, data), checkSum);
+				log.info("Refreshed trust bundle " + bundle.getBundleName() + ": " + update);
+			}
+			else
+				log.debug("Trust bundle " + bundle.getBundleName() + " is unchanged.");
+			
+			bundleRepo.updateLastSuccessfulRefresh(bundle.getId(), attempt);
+			failureCounts.remove(bundle.getId());
+			
+			return BundleRefreshError.SUCCESS;
+		}
+		catch (TrustBundleFetchException e)
+		{
+			final int failures = failureCounts.merge(bundle.getId(), 1, Integer::sum);
+			log.warn("Failed to refresh trust bundle " + bundle.getBundleName() + " (" + e.getError() + ", attempt " + failures + "): " 
+					+ e.getMessage());
+			
+			bundleRepo.updateLastRefreshAttempt(bundle.getId(), attempt, e.getError());
+			
+			return e.getError();
+		}
+		catch (RuntimeException e)
+		{
+			// an unexpected failure still counts as a failed attempt so the bundle backs off instead of being retried every poll
+			final int failures = failureCounts.merge(bundle.getId(), 1, Integer::sum);
+			log.error("Failed to refresh trust bundle " + bundle.getBundleName() + " (attempt " + failures + ")", e);
+			
+			try
+			{
+				bundleRepo.updateLastRefreshAttempt(bundle.getId(), attempt, BundleRefreshError.INVALID_BUNDLE_FORMAT);
+			}
+			catch (RuntimeException updateException)
+			{
+				log.warn("Failed to record the refresh attempt of trust bundle " + bundle.getBundleName(), updateException);
+			}
+			
+			return BundleRefreshError.INVALID_BUNDLE_FORMAT;
+		}
+	}
+	
+	/**
+	 * Parses the anchors of a bundle.  The default implementation accepts PKCS7 certificate bundles and PEM or DER encoded 
+	 * certificates.  Signed bundles are rejected because the signature cannot be verified here; subclasses that can verify the 
+	 * bundle signature against {@link TrustBundle#getSigningCertificateData()} should override this method.
+	 * @param bundle The bundle being refreshed.
+	 * @param data The raw bundle content.
+	 * @return The anchors of the bundle.
+	 * @throws TrustBundleFetchException Thrown if the content is not a valid bundle.
+	 */
+	protected Collection<TrustBundleAnchor> parseAnchors(TrustBundle bundle, byte[] data) throws TrustBundleFetchException
+	{
+		if (bundle.getSigningCertificateData() != null && bundle.getSigningCertificateData().length > 0)
+			throw new TrustBundleFetchException(BundleRefreshError.INVALID_BUNDLE_FORMAT, "Signed trust bundles are not supported by this parser");
+		
+		final Collection<? extends java.security.cert.Certificate> certs;
+		try
+		{
+			certs = CertificateFactory.getInstance("X.509").generateCertificates(new ByteArrayInputStream(data));
+		}
+		catch (java.security.cert.CertificateException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.INVALID_BUNDLE_FORMAT, "Bundle content is not a valid certificate bundle", e);
+		}
+		
+		// an empty bundle is more likely a bad download than an intentional removal of every anchor
+		if (certs.isEmpty())
+			throw new TrustBundleFetchException(BundleRefreshError.INVALID_BUNDLE_FORMAT, "Bundle does not contain any certificates");
+		
+		final List<TrustBundleAnchor> retVal = new ArrayList<>(certs.size());
+		for (java.security.cert.Certificate cert : certs)
+		{
+			try
+			{
+				final TrustBundleAnchor anchor = new TrustBundleAnchor();
+				anchor.setData(((X509Certificate)cert).getEncoded());
+				retVal.add(anchor);
+			}
+			catch (CertificateException | java.security.cert.CertificateException | ClassCastException e)
+			{
+				throw new TrustBundleFetchException(BundleRefreshError.INVALID_BUNDLE_FORMAT, "Bundle contains an invalid certificate", e);
+			}
+		}
+		
+		return retVal;
+	}
+	
+	private static String toCheckSum(byte[] data)
+	{
+		try
+		{
+			return BundleThumbprint.toThumbprint(data).toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("Bundle thumbprint algorithm is not available", e);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.bundle;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLConnection;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.nhindirect.config.store.BundleRefreshError;
+import org.nhindirect.config.store.TrustBundle;
+
+/**
+ * Fetches trust bundles from any URL supported by {@link URLConnection}, which includes file and HTTP locations.
+ * <p>
+ * Failures that are usually transient (timeouts, refused or reset connections, and HTTP 5xx responses) are reported as
+ * {@link BundleRefreshError#DOWNLOAD_TIMEOUT} so the bundle is retried sooner.  Other failures are reported as 
+ * {@link BundleRefreshError#NOT_FOUND}.
+ * <p>
+ * Bundles larger than the maximum bundle size are rejected with {@link BundleRefreshError#INVALID_BUNDLE_FORMAT}.  The 
+ * Content-Length of the response is checked before anything is read, and the download stops as soon as the limit is passed
+ * when the length is not known up front.
+ * @since 6.0.1
+ */
+public class URLTrustBundleFetcher implements TrustBundleFetcher
+{
+	/**
+	 * Default connect and read timeout in milliseconds.
+	 */
+	public static final int DEFAULT_TIMEOUT = 10000;
+	
+	/**
+	 * Default maximum size of a bundle in bytes.
+	 */
+	public static final long DEFAULT_MAX_BUNDLE_SIZE = 10L * 1024L * 1024L;
+	
+	protected final int connectTimeout;
+	
+	protected final int readTimeout;
+	
+	protected final long maxBundleSize;
+	
+	/**
+	 * Creates a fetcher with the default timeouts.
+	 */
+	public URLTrustBundleFetcher()
+	{
+		this(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT);
+	}
+	
+	/**
+	 * Creates a fetcher.
+	 * @param connectTimeout The connect timeout in milliseconds.
+	 * @param readTimeout The read timeout in milliseconds.
+	 */
+	public URLTrustBundleFetcher(int connectTimeout, int readTimeout)
+	{
+		this(connectTimeout, readTimeout, DEFAULT_MAX_BUNDLE_SIZE);
+	}
+	
+	/**
+	 * Creates a fetcher.
+	 * @param connectTimeout The connect timeout in milliseconds.
+	 * @param readTimeout The read timeout in milliseconds.
+	 * @param maxBundleSize The maximum size of a bundle in bytes.
+	 */
+	public URLTrustBundleFetcher(int connectTimeout, int readTimeout, long maxBundleSize)
+	{
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.maxBundleSize = maxBundleSize;
+	}
+	
+	@Override
+	public byte[] fetch(TrustBundle bundle) throws TrustBundleFetchException
+	{
+		final URL url;
+		try
+		{
+			url = new URL(bundle.getBundleURL());
+		}
+		catch (MalformedURLException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.NOT_FOUND, "Invalid bundle URL " + bundle.getBundleURL(), e);
+		}
+		
+		try
+		{
+			final URLConnection conn = url.openConnection();
+			conn.setConnectTimeout(connectTimeout);
+			conn.setReadTimeout(readTimeout);
+			
+			if (conn instanceof HttpURLConnection)
+			{
+				final int responseCode = ((HttpURLConnection)conn).getResponseCode();
+				if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+					throw new TrustBundleFetchException(BundleRefreshError.DOWNLOAD_TIMEOUT, 
+							"Server error " + responseCode + " downloading bundle from " + url);
+			}
+			
+			if (conn.getContentLengthLong() > maxBundleSize)
+				throw bundleTooLarge(url);
+			
+			// read at most one byte past the limit, which is enough to tell that the bundle is too large
+			try (InputStream in = new BoundedInputStream(conn.getInputStream(), maxBundleSize + 1))
+			{
+				final byte[] retVal = IOUtils.toByteArray(in);
+				if (retVal.length > maxBundleSize)
+					throw bundleTooLarge(url);
+				
+				return retVal;
+			}
+		}
+		catch (SocketTimeoutException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.DOWNLOAD_TIMEOUT, "Timed out downloading bundle from " + url, e);
+		}
+		catch (SocketException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.DOWNLOAD_TIMEOUT, "Failed to connect to " + url + ": " + e.getMessage(), e);
+		}
+		catch (FileNotFoundException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.NOT_FOUND, "Bundle not found at " + url, e);
+		}
+		catch (IOException e)
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.NOT_FOUND, "Failed to download bundle from " + url + ": " + e.getMessage(), e);
+		}
+	}
+	
+	protected TrustBundleFetchException bundleTooLarge(URL url)
+	{
+		return new TrustBundleFetchException(BundleRefreshError.INVALID_BUNDLE_FORMAT, 
+				"Bundle at " + url + " is larger than the maximum bundle size of " + maxBundleSize + " bytes");
+	}
+}
@@ -0,0 +1,70 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.cache;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Auto configuration that enables the Hibernate second level cache for the read mostly config-store entities.  The cache is
+ * opt-in: set config.store.cache.enabled to true and add hibernate-jcache and the Caffeine JCache provider to the class path.
+ * <p>
+ * Entity, collection, and query regions are backed by in-process Caffeine caches.  Region sizes and time to live values are 
+ * defined in the caffeine.jcache section of the reference.conf shipped with config-store and can be overridden in the 
+ * application's application.conf.  The query cache can be turned off separately with config.store.cache.query-cache-enabled.
+ * <p>
+ * Explicitly configured spring.jpa.properties.hibernate.* values take precedence over the values set here.
+ * @since 6.0.1
+ */
+@Configuration
+@ConditionalOnClass(name = {SecondLevelCacheAutoConfiguration.REGION_FACTORY, SecondLevelCacheAutoConfiguration.CACHING_PROVIDER})
+@ConditionalOnProperty(prefix = "config.store.cache", name = "enabled", havingValue = "true")
+@AutoConfigureBefore(HibernateJpaAutoConfiguration.class)
+public class SecondLevelCacheAutoConfiguration
+{
+	public static final String REGION_FACTORY = "org.hibernate.cache.jcache.internal.JCacheRegionFactory";
+	
+	public static final String CACHING_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+	
+	@Bean
+	public HibernatePropertiesCustomizer configStoreSecondLevelCacheCustomizer(Environment env)
+	{
+		final String useQueryCache = env.getProperty("config.store.cache.query-cache-enabled", "true");
+		
+		return (Map<String, Object> hibernateProperties) ->
+		{
+			hibernateProperties.putIfAbsent("hibernate.cache.use_second_level_cache", "true");
+			hibernateProperties.putIfAbsent("hibernate.cache.use_query_cache", useQueryCache);
+			hibernateProperties.putIfAbsent("hibernate.cache.region.factory_class", REGION_FACTORY);
+			hibernateProperties.putIfAbsent("hibernate.javax.cache.provider", CACHING_PROVIDER);
+			hibernateProperties.putIfAbsent("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+		};
+	}
+}
@@ -0,0 +1,97 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.metrics;
+
+import org.nhindirect.config.resolver.AddressResolver;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the lookup and filter statistics of an {@link AddressResolver} to a Micrometer registry.  Lookups are counted in 
+ * {@value #REQUESTS_NAME} tagged with a result of filtered (answered by the filter), found, or not_found (a false positive of the
+ * filter).  The estimated false positive rate of the filter is reported in the {@value #FPP_NAME} gauge and the number of 
+ * addresses in the filter in {@value #SIZE_NAME}.
+ * @since 6.0.1
+ */
+public class AddressResolverMetrics implements MeterBinder
+{
+	public static final String REQUESTS_NAME = "config.store.address.lookups";
+	
+	public static final String FPP_NAME = "config.store.address.filter.fpp";
+	
+	public static final String SIZE_NAME = "config.store.address.filter.size";
+	
+	protected final AddressResolver resolver;
+	
+	protected final Tags tags;
+	
+	/**
+	 * Creates a binder for a resolver.
+	 * @param resolver The resolver to report on.
+	 * @param tags Additional tags applied to all meters.
+	 */
+	public AddressResolverMetrics(AddressResolver resolver, Iterable<Tag> tags)
+	{
+		this.resolver = resolver;
+		this.tags = Tags.of(tags);
+	}
+	
+	/**
+	 * Creates a binder for a resolver.
+	 * @param resolver The resolver to report on.
+	 */
+	public AddressResolverMetrics(AddressResolver resolver)
+	{
+		this(resolver, Tags.empty());
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry)
+	{
+		FunctionCounter.builder(REQUESTS_NAME, resolver, AddressResolver::getFilteredCount)
+			.tags(tags).tag("result", "filtered")
+			.register(registry);
+		
+		FunctionCounter.builder(REQUESTS_NAME, resolver, AddressResolver::getFoundCount)
+			.tags(tags).tag("result", "found")
+			.register(registry);
+		
+		FunctionCounter.builder(REQUESTS_NAME, resolver, AddressResolver::getNotFoundCount)
+			.tags(tags).tag("result", "not_found")
+			.register(registry);
+		
+		Gauge.builder(FPP_NAME, resolver, AddressResolver::getExpectedFpp)
+			.tags(tags)
+			.description("Estimated false positive rate of the address filter")
+			.register(registry);
+		
+		Gauge.builder(SIZE_NAME, resolver, AddressResolver::getFilterSize)
+			.tags(tags)
+			.description("Addresses in the address filter")
+			.register(registry);
+	}
+}
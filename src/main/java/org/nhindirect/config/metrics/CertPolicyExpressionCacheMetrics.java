@@ -0,0 +1,104 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nhindirect.config.resolver.CertPolicyExpressionCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the compile and cache statistics of a {@link CertPolicyExpressionCache} to a Micrometer registry.  Compilations are 
+ * reported in the {@value #COMPILE_NAME} function timer and failed compilations in {@value #COMPILE_ERRORS_NAME}.  Cache 
+ * requests are counted in {@value #REQUESTS_NAME} tagged with a result of hit or miss, and the number of cached expressions 
+ * is reported in the {@value #SIZE_NAME} gauge.
+ * @since 6.0.1
+ */
+public class CertPolicyExpressionCacheMetrics implements MeterBinder
+{
+	public static final String COMPILE_NAME = "config.store.policy.compile";
+	
+	public static final String COMPILE_ERRORS_NAME = "config.store.policy.compile.errors";
+	
+	public static final String REQUESTS_NAME = "config.store.policy.cache.requests";
+	
+	public static final String SIZE_NAME = "config.store.policy.cache.size";
+	
+	protected final CertPolicyExpressionCache cache;
+	
+	protected final Tags tags;
+	
+	/**
+	 * Creates a binder for a cache.
+	 * @param cache The cache to report on.
+	 * @param tags Additional tags applied to all meters.
+	 */
+	public CertPolicyExpressionCacheMetrics(CertPolicyExpressionCache cache, Iterable<Tag> tags)
+	{
+		this.cache = cache;
+		this.tags = Tags.of(tags);
+	}
+	
+	/**
+	 * Creates a binder for a cache.
+	 * @param cache The cache to report on.
+	 */
+	public CertPolicyExpressionCacheMetrics(CertPolicyExpressionCache cache)
+	{
+		this(cache, Tags.empty());
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry)
+	{
+		FunctionTimer.builder(COMPILE_NAME, cache, CertPolicyExpressionCache::getCompileCount, 
+				c -> c.getTotalCompileTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+			.tags(tags)
+			.description("Compilations of certificate policy expressions")
+			.register(registry);
+		
+		FunctionCounter.builder(COMPILE_ERRORS_NAME, cache, CertPolicyExpressionCache::getCompileErrorCount)
+			.tags(tags)
+			.description("Certificate policy expressions that failed to compile")
+			.register(registry);
+		
+		FunctionCounter.builder(REQUESTS_NAME, cache, CertPolicyExpressionCache::getHitCount)
+			.tags(tags).tag("result", "hit")
+			.register(registry);
+		
+		FunctionCounter.builder(REQUESTS_NAME, cache, CertPolicyExpressionCache::getMissCount)
+			.tags(tags).tag("result", "miss")
+			.register(registry);
+		
+		Gauge.builder(SIZE_NAME, cache, CertPolicyExpressionCache::size)
+			.tags(tags)
+			.description("Cached certificate policy expressions")
+			.register(registry);
+	}
+}
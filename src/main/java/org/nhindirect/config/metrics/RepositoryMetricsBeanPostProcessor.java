@@ -0,0 +1,82 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.metrics;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the config-store repositories in a proxy that records Micrometer metrics through a 
+ * {@link RepositoryMetricsInterceptor}.  Only repositories declared in the {@value #REPOSITORY_PACKAGE} package 
+ * are instrumented.
+ * @since 6.0.1
+ */
+public class RepositoryMetricsBeanPostProcessor implements BeanPostProcessor
+{
+	public static final String REPOSITORY_PACKAGE = "org.nhindirect.config.repository";
+	
+	protected final ObjectProvider<MeterRegistry> registryProvider;
+	
+	/**
+	 * Creates the post processor.  The registry is looked up lazily so the post processor does not force the registry
+	 * to be created early.
+	 * @param registryProvider Provides the registry that the meters are registered in.
+	 */
+	public RepositoryMetricsBeanPostProcessor(ObjectProvider<MeterRegistry> registryProvider)
+	{
+		this.registryProvider = registryProvider;
+	}
+	
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException
+	{
+		if (!(bean instanceof Repository))
+			return bean;
+		
+		final Class<?> repositoryInterface = getRepositoryInterface(bean);
+		if (repositoryInterface == null)
+			return bean;
+		
+		final ProxyFactory factory = new ProxyFactory(bean);
+		factory.setInterfaces(ClassUtils.getAllInterfaces(bean));
+		factory.addAdvice(new RepositoryMetricsInterceptor(registryProvider.getObject(), repositoryInterface));
+		
+		return factory.getProxy(bean.getClass().getClassLoader());
+	}
+	
+	protected static Class<?> getRepositoryInterface(Object bean)
+	{
+		for (Class<?> iface : ClassUtils.getAllInterfacesAsSet(bean))
+		{
+			if (REPOSITORY_PACKAGE.equals(ClassUtils.getPackageName(iface)) && Repository.class.isAssignableFrom(iface))
+				return iface;
+		}
+		
+		return null;
+	}
+}
@@ -0,0 +1,187 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.domain.Slice;
+import org.nhindirect.config.repository.KeysetPage;
+import org.springframework.data.repository.Repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Method interceptor that records Micrometer metrics for each call to a repository method.  Each call is timed in the 
+ * {@value #TIMER_NAME} timer, which also provides the call count.  The number of entities returned by successful calls
+ * is recorded in the {@value #RESULTS_NAME} distribution summary, and failed calls are counted in {@value #ERRORS_NAME}.
+ * Streams are lazily evaluated, so the entities of a returned stream are counted as they are consumed and the result
+ * size is recorded when the stream is closed.
+ * <p>
+ * All meters are tagged with the repository interface, the method name, and the entity type of the repository.  Failed
+ * calls are also tagged with the simple name of the exception.  The result summary publishes a percentile histogram so
+ * result sizes can be aggregated across instances.
+ * <p>
+ * Meters are looked up in the registry on each call rather than held by the interceptor, so a meter that is removed from
+ * the registry is registered again on the next call instead of silently recording to the removed instance.
+ * @since 6.0.1
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor
+{
+	public static final String TIMER_NAME = "config.store.repository";
+	
+	public static final String RESULTS_NAME = "config.store.repository.results";
+	
+	public static final String ERRORS_NAME = "config.store.repository.errors";
+	
+	protected static final String NO_EXCEPTION = "none";
+	
+	protected static final long MAX_EXPECTED_RESULTS = 10000L;
+	
+	protected final MeterRegistry registry;
+	
+	protected final Class<?> repositoryInterface;
+	
+	protected final Tags repositoryTags;
+	
+	private final Map<Method, Tags> methodTags = new ConcurrentHashMap<>();
+	
+	/**
+	 * Creates an interceptor for a repository.
+	 * @param registry The registry that the meters are registered in.
+	 * @param repositoryInterface The repository interface that is being instrumented.
+	 */
+	public RepositoryMetricsInterceptor(MeterRegistry registry, Class<?> repositoryInterface)
+	{
+		this.registry = registry;
+		this.repositoryInterface = repositoryInterface;
+		this.repositoryTags = Tags.of("repository", repositoryInterface.getSimpleName(), "entity", getEntityName(repositoryInterface));
+	}
+	
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable
+	{
+		final Method method = invocation.getMethod();
+		if (method.getDeclaringClass() == Object.class)
+			return invocation.proceed();
+		
+		final Tags tags = methodTags.computeIfAbsent(method, m -> repositoryTags.and("method", m.getName()));
+		
+		final Timer.Sample sample = Timer.start(registry);
+		final Object retVal;
+		try
+		{
+			retVal = invocation.proceed();
+		}
+		catch (Throwable t)
+		{
+			final Tags errorTags = tags.and("exception", t.getClass().getSimpleName());
+			sample.stop(registry.timer(TIMER_NAME, errorTags));
+			registry.counter(ERRORS_NAME, errorTags).increment();
+			
+			throw t;
+		}
+		
+		sample.stop(registry.timer(TIMER_NAME, tags.and("exception", NO_EXCEPTION)));
+		
+		if (retVal instanceof Stream)
+			return countResults((Stream<?>)retVal, tags);
+		
+		final long resultSize = getResultSize(retVal);
+		if (resultSize >= 0)
+			getResultsSummary(tags).record(resultSize);
+		
+		return retVal;
+	}
+	
+	/**
+	 * Gets the result size summary of a repository method, registering it if it does not exist.
+	 * @param tags The tags of the repository method.
+	 * @return The result size summary.
+	 */
+	protected DistributionSummary getResultsSummary(Tags tags)
+	{
+		return DistributionSummary.builder(RESULTS_NAME).tags(tags).baseUnit("entities")
+				.publishPercentileHistogram().minimumExpectedValue(1L).maximumExpectedValue(MAX_EXPECTED_RESULTS)
+				.register(registry);
+	}
+	
+	/**
+	 * Wraps a stream returned by a repository method so the number of consumed entities is recorded when it is closed.
+	 * @param stream The stream returned by the repository method.
+	 * @param tags The tags of the repository method.
+	 * @return The wrapped stream.
+	 */
+	protected Stream<?> countResults(Stream<?> stream, Tags tags)
+	{
+		final LongAdder count = new LongAdder();
+		
+		// a filter rather than peek, since count() skips peek on sized streams without visiting the entities
+		return stream.filter(entity ->
+		{
+			count.increment();
+			return true;
+		}).onClose(() -> getResultsSummary(tags).record(count.sum()));
+	}
+	
+	/**
+	 * Gets the number of entities in a repository method result.
+	 * @param result The result of the repository method.
+	 * @return The number of entities in the result or -1 if the method does not return entities or the number of entities
+	 * is not known until the result is consumed.
+	 */
+	protected static long getResultSize(Object result)
+	{
+		if (result == null)
+			return 0;
+		else if (result instanceof Collection)
+			return ((Collection<?>)result).size();
+		else if (result instanceof Slice)
+			return ((Slice<?>)result).getNumberOfElements();
+		else if (result instanceof KeysetPage)
+			return ((KeysetPage<?>)result).getContent().size();
+		else if (result instanceof Optional)
+			return ((Optional<?>)result).isPresent() ? 1 : 0;
+		else if (result instanceof Number || result instanceof Boolean || result instanceof Stream)
+			return -1;
+		
+		return 1;
+	}
+	
+	protected static String getEntityName(Class<?> repositoryInterface)
+	{
+		final Class<?>[] typeArgs = GenericTypeResolver.resolveTypeArguments(repositoryInterface, Repository.class);
+		
+		return (typeArgs == null || typeArgs[0] == null) ? "unknown" : typeArgs[0].getSimpleName();
+	}
+}
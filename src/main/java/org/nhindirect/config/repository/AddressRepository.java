@@ -23,23 +23,73 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import org.nhindirect.config.repository.projection.EntityVersion;
 import org.nhindirect.config.store.Address;
 import org.nhindirect.config.store.Domain;
 import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface AddressRepository extends JpaRepository<Address, Long>
+public interface AddressRepository extends JpaRepository<Address, Long>, KeysetPagingRepository<Address>, VersionedRepository<Address>
 {
-	public Address findByEmailAddressIgnoreCase(String emailAddress);
+	public Address findByNormalizedEmailAddress(String normalizedEmailAddress);
+	
+	public default Address findByEmailAddressIgnoreCase(String emailAddress)
+	{
+		return findByNormalizedEmailAddress(NormalizationUtils.normalize(emailAddress));
+	}
 	
 	public List<Address> findByEndpointIgnoreCase(String endpoint);
 	
-	@Query("select a from Address a where upper(a.emailAddress) in :emailAddresses and a.status = :status")
-	public List<Address> findByEmailAddressInIgnoreCaseAndStatus(@Param("emailAddresses") List<String> emailAddresses, @Param("status") EntityStatus status);
+	public List<Address> findByNormalizedEmailAddressIn(List<String> normalizedEmailAddresses);
+	
+	public default List<Address> findByEmailAddressInIgnoreCase(List<String> emailAddresses)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(emailAddresses), this::findByNormalizedEmailAddressIn);
+	}
+	
+	@Query("select a.normalizedEmailAddress from Address a where a.normalizedEmailAddress is not null")
+	public List<String> findAllNormalizedEmailAddresses();
+	
+	public List<Address> findByNormalizedEmailAddressInAndStatus(List<String> normalizedEmailAddresses, EntityStatus status);
+	
+	public default List<Address> findByEmailAddressInIgnoreCaseAndStatus(List<String> emailAddresses, EntityStatus status)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(emailAddresses), 
+				chunk -> findByNormalizedEmailAddressInAndStatus(chunk, status));
+	}
 	
 	public List<Address> findByDomain(Domain domain);
 	
-	public void deleteByEmailAddressIgnoreCase(String emailAddress);
+	public List<Address> findByDomainAndIdGreaterThan(Domain domain, long afterId, Pageable pageable);
+	
+	public default KeysetPage<Address> findPageByDomain(Domain domain, String token, int size)
+	{
+		return KeysetPage.fetch(token, size, (afterId, pageable) -> findByDomainAndIdGreaterThan(domain, afterId, pageable), Address::getId);
+	}
+	
+	public void deleteByNormalizedEmailAddress(String normalizedEmailAddress);
+	
+	public default void deleteByEmailAddressIgnoreCase(String emailAddress)
+	{
+		deleteByNormalizedEmailAddress(NormalizationUtils.normalize(emailAddress));
+	}
+	
+	@Transactional
+	@Query("select a.id as id, a.version as version from Address a where a.normalizedEmailAddress = :normalizedEmailAddress")
+	public EntityVersion findVersionByNormalizedEmailAddress(@Param("normalizedEmailAddress") String normalizedEmailAddress);
+	
+	public default EntityVersion findVersionByEmailAddressIgnoreCase(String emailAddress)
+	{
+		return findVersionByNormalizedEmailAddress(NormalizationUtils.normalize(emailAddress));
+	}
+	
+	public default KeysetPage<Address> findPage(String token, int size)
+	{
+		return findPage(token, size, Address::getId);
+	}
 }
@@ -23,25 +23,74 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import org.nhindirect.config.repository.projection.AnchorSummary;
 import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface AnchorRepository extends JpaRepository<Anchor, Long>
+public interface AnchorRepository extends JpaRepository<Anchor, Long>, KeysetPagingRepository<Anchor>, VersionedRepository<Anchor>
 {
 	@Transactional
-	public List<Anchor> findByOwnerIgnoreCase(String owner);
+	public List<Anchor> findByNormalizedOwner(String normalizedOwner);
 	
 	@Transactional
-	@Query("select a from Anchor a where upper(a.owner) in :owners")
-	public List<Anchor> findByOwnerInIgnoreCase(@Param("owners") List<String> owners);
+	public List<Anchor> findByNormalizedOwnerAndStatus(String normalizedOwner, EntityStatus status);
 	
 	@Transactional
-	public void deleteByOwnerIgnoreCase(String owner);
+	public List<Anchor> findByNormalizedOwnerIn(List<String> normalizedOwners);
+	
+	public default List<Anchor> findByOwnerIgnoreCase(String owner)
+	{
+		return findByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
+	
+	public default List<Anchor> findByOwnerInIgnoreCase(List<String> owners)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(owners), this::findByNormalizedOwnerIn);
+	}
+	
+	@Transactional
+	public List<Anchor> findByNormalizedOwnerAndIdGreaterThan(String normalizedOwner, long afterId, Pageable pageable);
+	
+	public default KeysetPage<Anchor> findPageByOwnerIgnoreCase(String owner, String token, int size)
+	{
+		final String normalizedOwner = NormalizationUtils.normalize(owner);
+		return KeysetPage.fetch(token, size, (afterId, pageable) -> findByNormalizedOwnerAndIdGreaterThan(normalizedOwner, afterId, pageable), Anchor::getId);
+	}
+	
+	@Transactional
+	@Query("select new org.nhindirect.config.repository.projection.AnchorSummary(a.id, a.owner, a.thumbprint, a.validStartDate, a.validEndDate, "
+			+ "a.status, a.incoming, a.outgoing) from Anchor a")
+	public List<AnchorSummary> findAllSummaries();
+	
+	@Transactional
+	@Query("select new org.nhindirect.config.repository.projection.AnchorSummary(a.id, a.owner, a.thumbprint, a.validStartDate, a.validEndDate, "
+			+ "a.status, a.incoming, a.outgoing) from Anchor a where a.normalizedOwner = :normalizedOwner")
+	public List<AnchorSummary> findSummariesByNormalizedOwner(@Param("normalizedOwner") String normalizedOwner);
+	
+	public default List<AnchorSummary> findSummariesByOwnerIgnoreCase(String owner)
+	{
+		return findSummariesByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
+	
+	@Transactional
+	public void deleteByNormalizedOwner(String normalizedOwner);
+	
+	public default void deleteByOwnerIgnoreCase(String owner)
+	{
+		deleteByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
 	
 	@Transactional
 	public void deleteByIdIn(List<Long> ids);
 	
+	public default KeysetPage<Anchor> findPage(String token, int size)
+	{
+		return findPage(token, size, Anchor::getId);
+	}
 }
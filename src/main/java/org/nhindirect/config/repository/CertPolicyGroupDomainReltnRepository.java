@@ -22,17 +22,48 @@ THE POSSIBILITY OF SUCH DAMAGE.
 package org.nhindirect.config.repository;
 
 import java.util.Collection;
+import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.nhindirect.config.repository.projection.CertPolicyUseSummary;
 import org.nhindirect.config.store.CertPolicyGroup;
 import org.nhindirect.config.store.CertPolicyGroupDomainReltn;
 import org.nhindirect.config.store.Domain;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface CertPolicyGroupDomainReltnRepository extends JpaRepository<CertPolicyGroupDomainReltn, Long>
+public interface CertPolicyGroupDomainReltnRepository extends JpaRepository<CertPolicyGroupDomainReltn, Long>, KeysetPagingRepository<CertPolicyGroupDomainReltn>, VersionedRepository<CertPolicyGroupDomainReltn>
 {
 	public Collection<CertPolicyGroupDomainReltn> findByDomain(Domain domain);
 	
+	@Transactional
+	@Query("select distinct r from CertPolicyGroupDomainReltn r join fetch r.domain d join fetch r.certPolicyGroup g "
+			+ "left join fetch g.certPolicyGroupReltn gr left join fetch gr.certPolicy where d.normalizedDomainName = :normalizedDomainName")
+	@QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+	public List<CertPolicyGroupDomainReltn> findWithPoliciesByNormalizedDomainName(@Param("normalizedDomainName") String normalizedDomainName);
+	
+	public default List<CertPolicyGroupDomainReltn> findWithPoliciesByDomainNameIgnoreCase(String domainName)
+	{
+		return findWithPoliciesByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
+	@Transactional
+	@Query("select new org.nhindirect.config.repository.projection.CertPolicyUseSummary(g.id, g.policyGroupName, p.id, p.policyName, "
+			+ "p.lexicon, p.createTime, gr.policyUse, gr.incoming, gr.outgoing) "
+			+ "from CertPolicyGroupDomainReltn r join r.domain d join r.certPolicyGroup g join g.certPolicyGroupReltn gr join gr.certPolicy p "
+			+ "where d.normalizedDomainName = :normalizedDomainName")
+	public List<CertPolicyUseSummary> findPolicySummariesByNormalizedDomainName(@Param("normalizedDomainName") String normalizedDomainName);
+	
+	public default List<CertPolicyUseSummary> findPolicySummariesByDomainNameIgnoreCase(String domainName)
+	{
+		return findPolicySummariesByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
 	@Transactional
 	public void deleteByDomainAndCertPolicyGroup(Domain domain, CertPolicyGroup policyGroup);
 	
@@ -41,4 +72,9 @@ public interface CertPolicyGroupDomainReltnRepository extends JpaRepository<Cert
 	
 	@Transactional
 	public void deleteByCertPolicyGroup(CertPolicyGroup policyGroup);
+	
+	public default KeysetPage<CertPolicyGroupDomainReltn> findPage(String token, int size)
+	{
+		return findPage(token, size, CertPolicyGroupDomainReltn::getId);
+	}
 }
@@ -23,14 +23,29 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.nhindirect.config.store.CertPolicyGroup;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface CertPolicyGroupRepository extends JpaRepository<CertPolicyGroup, Long>
+public interface CertPolicyGroupRepository extends JpaRepository<CertPolicyGroup, Long>, KeysetPagingRepository<CertPolicyGroup>, VersionedRepository<CertPolicyGroup>
 {
-	public CertPolicyGroup findByPolicyGroupNameIgnoreCase(String groupName);
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public CertPolicyGroup findByNormalizedPolicyGroupName(String normalizedPolicyGroupName);
+	
+	public default CertPolicyGroup findByPolicyGroupNameIgnoreCase(String groupName)
+	{
+		return findByNormalizedPolicyGroupName(NormalizationUtils.normalize(groupName));
+	}
 	
 	@Transactional
 	public void deleteByIdIn(List<Long> ids);
+	
+	public default KeysetPage<CertPolicyGroup> findPage(String token, int size)
+	{
+		return findPage(token, size, CertPolicyGroup::getId);
+	}
 }
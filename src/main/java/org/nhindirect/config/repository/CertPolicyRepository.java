@@ -23,13 +23,27 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.nhindirect.config.store.CertPolicy;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface CertPolicyRepository extends JpaRepository<CertPolicy, Long>
+public interface CertPolicyRepository extends JpaRepository<CertPolicy, Long>, KeysetPagingRepository<CertPolicy>, VersionedRepository<CertPolicy>
 {
-	public CertPolicy findByPolicyNameIgnoreCase(String policyName);
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public CertPolicy findByNormalizedPolicyName(String normalizedPolicyName);
+	
+	public default CertPolicy findByPolicyNameIgnoreCase(String policyName)
+	{
+		return findByNormalizedPolicyName(NormalizationUtils.normalize(policyName));
+	}
 	
 	public void deleteByIdIn(List<Long> ids);
 	
+	public default KeysetPage<CertPolicy> findPage(String token, int size)
+	{
+		return findPage(token, size, CertPolicy::getId);
+	}
 }
@@ -23,24 +23,78 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import org.nhindirect.config.repository.projection.CertificateSummary;
 import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface CertificateRepository extends JpaRepository<Certificate, Long>
+public interface CertificateRepository extends JpaRepository<Certificate, Long>, KeysetPagingRepository<Certificate>, VersionedRepository<Certificate>, CertificateRepositoryCustom
 {
 	@Transactional
-	public List<Certificate> findByOwnerIgnoreCase(String owner);
+	public List<Certificate> findByNormalizedOwner(String normalizedOwner);
 	
 	@Transactional
-	public Certificate findByOwnerIgnoreCaseAndThumbprint(String owner, String tp);
+	public Certificate findByNormalizedOwnerAndThumbprint(String normalizedOwner, String tp);
+	
+	public default List<Certificate> findByOwnerIgnoreCase(String owner)
+	{
+		return findByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
+	
+	public default Certificate findByOwnerIgnoreCaseAndThumbprint(String owner, String tp)
+	{
+		return findByNormalizedOwnerAndThumbprint(NormalizationUtils.normalize(owner), tp);
+	}
+	
+	@Transactional
+	public List<Certificate> findByNormalizedOwnerAndIdGreaterThan(String normalizedOwner, long afterId, Pageable pageable);
+	
+	public default KeysetPage<Certificate> findPageByOwnerIgnoreCase(String owner, String token, int size)
+	{
+		final String normalizedOwner = NormalizationUtils.normalize(owner);
+		return KeysetPage.fetch(token, size, (afterId, pageable) -> findByNormalizedOwnerAndIdGreaterThan(normalizedOwner, afterId, pageable), Certificate::getId);
+	}
 	
 	@Transactional
 	public List<Certificate> findByThumbprint(String tb);
 	
 	@Transactional
-	public void deleteByOwnerIgnoreCase(String owner);
+	@Query("select new org.nhindirect.config.repository.projection.CertificateSummary(c.id, c.owner, c.thumbprint, c.validStartDate, c.validEndDate, "
+			+ "c.status, c.privateKey) from Certificate c")
+	public List<CertificateSummary> findAllSummaries();
+	
+	@Transactional
+	@Query("select new org.nhindirect.config.repository.projection.CertificateSummary(c.id, c.owner, c.thumbprint, c.validStartDate, c.validEndDate, "
+			+ "c.status, c.privateKey) from Certificate c where c.normalizedOwner = :normalizedOwner")
+	public List<CertificateSummary> findSummariesByNormalizedOwner(@Param("normalizedOwner") String normalizedOwner);
+	
+	public default List<CertificateSummary> findSummariesByOwnerIgnoreCase(String owner)
+	{
+		return findSummariesByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
+	
+	@Transactional
+	@Query("select new org.nhindirect.config.repository.projection.CertificateSummary(c.id, c.owner, c.thumbprint, c.validStartDate, c.validEndDate, "
+			+ "c.status, c.privateKey) from Certificate c where c.thumbprint = :thumbprint")
+	public List<CertificateSummary> findSummariesByThumbprint(@Param("thumbprint") String thumbprint);
+	
+	@Transactional
+	public void deleteByNormalizedOwner(String normalizedOwner);
+	
+	public default void deleteByOwnerIgnoreCase(String owner)
+	{
+		deleteByNormalizedOwner(NormalizationUtils.normalize(owner));
+	}
 	
 	@Transactional
 	public void deleteByIdIn(List<Long> ids);
+	
+	public default KeysetPage<Certificate> findPage(String token, int size)
+	{
+		return findPage(token, size, Certificate::getId);
+	}
 }
@@ -0,0 +1,82 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.nhindirect.common.crypto.KeyStoreProtectionManager;
+import org.nhindirect.config.store.Certificate;
+
+/**
+ * Custom certificate repository operations that can't be expressed as Spring Data query methods.
+ * @since 6.0.1
+ */
+public interface CertificateRepositoryCustom
+{
+	/**
+	 * Default number of certificates written per JDBC batch by {@link #importCertificates(Collection, KeyStoreProtectionManager)}.
+	 */
+	public static final int DEFAULT_IMPORT_BATCH_SIZE = 50;
+	
+	/**
+	 * Default JDBC fetch size used by {@link #streamAll()}.
+	 */
+	public static final int DEFAULT_STREAM_FETCH_SIZE = 100;
+	
+	/**
+	 * Imports certificates in bulk using the default batch size.
+	 * @see #importCertificates(Collection, KeyStoreProtectionManager, int)
+	 */
+	public List<Certificate> importCertificates(Collection<Certificate> certs, KeyStoreProtectionManager kspMgr);
+	
+	/**
+	 * Imports certificates in bulk.  The repository attributes of the certificates (validity dates, status, private key flag,
+	 * and P12 protection) are applied in parallel on a small dedicated thread pool, and the certificates are then inserted
+	 * in JDBC batches of the given size.
+	 * <p>
+	 * The persistence context is flushed after each batch and the imported certificates of the batch are detached, so the
+	 * returned certificates are detached.  Other entities in the persistence context are left managed.
+	 * @param certs The certificates to import.
+	 * @param kspMgr The key store protection manager used to protect private keys.  May be null.
+	 * @param batchSize The number of certificates written per JDBC batch.
+	 * @return The imported certificates with their ids assigned.
+	 */
+	public List<Certificate> importCertificates(Collection<Certificate> certs, KeyStoreProtectionManager kspMgr, int batchSize);
+	
+	/**
+	 * Streams all certificates using the default fetch size.
+	 * @see #streamAll(int)
+	 */
+	public Stream<Certificate> streamAll();
+	
+	/**
+	 * Streams all certificates in id order over a forward only cursor.  Certificates are loaded read only and are detached 
+	 * once they have been passed down the stream, so memory use does not depend on the size of the table.
+	 * <p>
+	 * The stream must be consumed within a surrounding transaction and closed when done, for example with try-with-resources.
+	 * @param fetchSize The JDBC fetch size.  Some drivers (e.g. MySQL) require {@link Integer#MIN_VALUE} to stream rows.
+	 * @return A stream of detached certificates.
+	 */
+	public Stream<Certificate> streamAll(int fetchSize);
+}
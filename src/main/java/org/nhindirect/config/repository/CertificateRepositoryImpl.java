@@ -0,0 +1,181 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Session;
+import org.nhindirect.common.crypto.KeyStoreProtectionManager;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.util.CertificateUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementation of the custom certificate repository operations.
+ * @since 6.0.1
+ */
+public class CertificateRepositoryImpl implements CertificateRepositoryCustom
+{
+	private static final Log log = LogFactory.getLog(CertificateRepositoryImpl.class);
+	
+	/**
+	 * Number of threads that decode certificates during an import.
+	 */
+	public static final int IMPORT_PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	@Transactional
+	public List<Certificate> importCertificates(Collection<Certificate> certs, KeyStoreProtectionManager kspMgr)
+	{
+		return importCertificates(certs, kspMgr, DEFAULT_IMPORT_BATCH_SIZE);
+	}
+	
+	@Override
+	@Transactional
+	public List<Certificate> importCertificates(Collection<Certificate> certs, KeyStoreProtectionManager kspMgr, int batchSize)
+	{
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be greater than 0");
+		
+		final List<Certificate> imported = applyCertRepositoryAttributes(certs, kspMgr);
+		
+		final Session session = entityManager.unwrap(Session.class);
+		final Integer sessionBatchSize = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(batchSize);
+		try
+		{
+			for (int start = 0; start < imported.size(); start += batchSize)
+			{
+				final List<Certificate> batch = imported.subList(start, Math.min(imported.size(), start + batchSize));
+				for (Certificate cert : batch)
+					entityManager.persist(cert);
+				
+				// only detach what this call added so entities the caller already manages stay managed
+				entityManager.flush();
+				for (Certificate cert : batch)
+					entityManager.detach(cert);
+			}
+		}
+		finally
+		{
+			session.setJdbcBatchSize(sessionBatchSize);
+		}
+		
+		log.debug("Imported " + imported.size() + " certificates.");
+		
+		return imported;
+	}
+	
+	/*
+	 * Decoding and P12 conversion are CPU bound and independent per certificate, so they run on the import pool.  Results
+	 * are returned in the order of the input.
+	 */
+	protected List<Certificate> applyCertRepositoryAttributes(Collection<Certificate> certs, KeyStoreProtectionManager kspMgr)
+	{
+		final List<Future<Certificate>> futures = new ArrayList<>(certs.size());
+		final List<Certificate> retVal = new ArrayList<>(certs.size());
+		try
+		{
+			for (Certificate cert : certs)
+				futures.add(PoolHolder.POOL.submit(() -> CertificateUtils.applyCertRepositoryAttributes(cert, kspMgr)));
+			
+			for (Future<Certificate> future : futures)
+				retVal.add(future.get());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while decoding certificates", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error)e.getCause();
+			
+			throw new IllegalStateException("Certificate decoding failed", e.getCause());
+		}
+		finally
+		{
+			for (Future<Certificate> future : futures)
+				future.cancel(true);
+		}
+		
+		return retVal;
+	}
+	
+	@Override
+	public Stream<Certificate> streamAll()
+	{
+		return streamAll(DEFAULT_STREAM_FETCH_SIZE);
+	}
+	
+	@Override
+	public Stream<Certificate> streamAll(int fetchSize)
+	{
+		return DetachingStreams.stream(entityManager, "select c from Certificate c order by c.id", Certificate.class, fetchSize);
+	}
+	
+	/*
+	 * Created on first use so applications that never import certificates do not start the threads.  Callers decode a 
+	 * certificate themselves when the queue is full, which bounds the number of waiting certificates.
+	 */
+	private static class PoolHolder
+	{
+		static final ExecutorService POOL;
+		
+		static
+		{
+			final AtomicInteger threadCount = new AtomicInteger();
+			
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(IMPORT_PARALLELISM, IMPORT_PARALLELISM, 60, TimeUnit.SECONDS, 
+					new ArrayBlockingQueue<>(IMPORT_PARALLELISM * 16), runnable ->
+			{
+				final Thread thread = new Thread(runnable, "CertificateImport-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, new ThreadPoolExecutor.CallerRunsPolicy());
+			pool.allowCoreThreadTimeOut(true);
+			
+			POOL = pool;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.Calendar;
+import java.util.List;
+
+import org.nhindirect.config.store.ConfigChange;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ConfigChangeRepository extends JpaRepository<ConfigChange, Long>, KeysetPagingRepository<ConfigChange>
+{
+	@Transactional
+	public List<ConfigChange> findByEntityTypeAndIdGreaterThan(String entityType, long afterSequence, Pageable pageable);
+	
+	public default List<ConfigChange> findChangesAfter(long sequence, int maxChanges)
+	{
+		return findByIdGreaterThan(sequence, PageRequest.of(0, maxChanges, Sort.by(Sort.Direction.ASC, "id")));
+	}
+	
+	public default List<ConfigChange> findChangesAfter(Class<?> entityType, long sequence, int maxChanges)
+	{
+		return findByEntityTypeAndIdGreaterThan(entityType.getSimpleName(), sequence, PageRequest.of(0, maxChanges, Sort.by(Sort.Direction.ASC, "id")));
+	}
+	
+	@Transactional
+	@Query("select coalesce(max(c.id), 0) from ConfigChange c")
+	public long findLatestSequence();
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("delete from ConfigChange c where c.changeTime < :changeTime")
+	public int deleteByChangeTimeBefore(@Param("changeTime") Calendar changeTime);
+	
+	public default KeysetPage<ConfigChange> findPage(String token, int size)
+	{
+		return findPage(token, size, ConfigChange::getId);
+	}
+}
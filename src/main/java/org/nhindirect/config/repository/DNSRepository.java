@@ -23,18 +23,47 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface DNSRepository extends JpaRepository<DNSRecord, Long>
+public interface DNSRepository extends JpaRepository<DNSRecord, Long>, KeysetPagingRepository<DNSRecord>, VersionedRepository<DNSRecord>, DNSRepositoryCustom
 {
-	public List<DNSRecord> findByNameIgnoreCase(String name);
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<DNSRecord> findByNormalizedName(String normalizedName);
+	
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<DNSRecord> findByNormalizedNameAndType(String normalizedName, int type);
+	
+	public default List<DNSRecord> findByNameIgnoreCase(String name)
+	{
+		return findByNormalizedName(NormalizationUtils.normalize(name));
+	}
 	
-	public List<DNSRecord> findByNameIgnoreCaseAndType(String name, int type);
+	public default List<DNSRecord> findByNameIgnoreCaseAndType(String name, int type)
+	{
+		return findByNormalizedNameAndType(NormalizationUtils.normalize(name), type);
+	}
 	
 	public List<DNSRecord> findByType(int type);
 	
+	public List<DNSRecord> findByTypeAndIdGreaterThan(int type, long afterId, Pageable pageable);
+	
+	public default KeysetPage<DNSRecord> findPageByType(int type, String token, int size)
+	{
+		return KeysetPage.fetch(token, size, (afterId, pageable) -> findByTypeAndIdGreaterThan(type, afterId, pageable), DNSRecord::getId);
+	}
+	
 	@Transactional
 	public void deleteByIdIn(List<Long> ids);
+	
+	public default KeysetPage<DNSRecord> findPage(String token, int size)
+	{
+		return findPage(token, size, DNSRecord::getId);
+	}
 }
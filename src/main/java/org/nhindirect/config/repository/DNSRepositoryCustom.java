@@ -0,0 +1,54 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.stream.Stream;
+
+import org.nhindirect.config.store.DNSRecord;
+
+/**
+ * Custom DNS record repository operations that can't be expressed as Spring Data query methods.
+ * @since 6.0.1
+ */
+public interface DNSRepositoryCustom
+{
+	/**
+	 * Default JDBC fetch size used by {@link #streamAll()}.
+	 */
+	public static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+	
+	/**
+	 * Streams all DNS records using the default fetch size.
+	 * @see #streamAll(int)
+	 */
+	public Stream<DNSRecord> streamAll();
+	
+	/**
+	 * Streams all DNS records in id order over a forward only cursor.  Records are loaded read only and are detached 
+	 * once they have been passed down the stream, so memory use does not depend on the size of the table.
+	 * <p>
+	 * The stream must be consumed within a surrounding transaction and closed when done, for example with try-with-resources.
+	 * @param fetchSize The JDBC fetch size.  Some drivers (e.g. MySQL) require {@link Integer#MIN_VALUE} to stream rows.
+	 * @return A stream of detached DNS records.
+	 */
+	public Stream<DNSRecord> streamAll(int fetchSize);
+}
@@ -0,0 +1,118 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Streams the results of a query over a forward only JDBC cursor.  Entities are loaded read only, bypass the second level
+ * cache, and are detached from the persistence context as soon as they have been handed to the stream, so the memory used
+ * by the stream does not grow with the number of rows.
+ * <p>
+ * The cursor holds a database connection, so streams must be consumed within a transaction and closed when done.
+ * @since 6.0.1
+ */
+class DetachingStreams
+{
+	private DetachingStreams()
+	{
+		
+	}
+	
+	/**
+	 * Streams all results of a JPQL query.
+	 * @param entityManager The entity manager of the current transaction.
+	 * @param jpql The query.
+	 * @param type The entity type returned by the query.
+	 * @param fetchSize The JDBC fetch size of the cursor.
+	 * @return A stream of detached entities.  The stream must be closed to release the cursor.
+	 */
+	static <T> Stream<T> stream(EntityManager entityManager, String jpql, Class<T> type, int fetchSize)
+	{
+		if (fetchSize == 0)
+			throw new IllegalArgumentException("Fetch size must not be 0");
+		
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			throw new InvalidDataAccessApiUsageException("Streaming " + type.getSimpleName() 
+				+ " entities requires a surrounding transaction that keeps the connection open.");
+		
+		final Session session = entityManager.unwrap(Session.class);
+		final ScrollableResults results = session.createQuery(jpql, type)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				.setCacheable(false)
+				.setCacheMode(CacheMode.IGNORE)
+				.scroll(ScrollMode.FORWARD_ONLY);
+		
+		return StreamSupport.stream(new DetachingSpliterator<>(session, results, type), false).onClose(results::close);
+	}
+	
+	private static class DetachingSpliterator<T> extends Spliterators.AbstractSpliterator<T>
+	{
+		private final Session session;
+		
+		private final ScrollableResults results;
+		
+		private final Class<T> type;
+		
+		DetachingSpliterator(Session session, ScrollableResults results, Class<T> type)
+		{
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			
+			this.session = session;
+			this.results = results;
+			this.type = type;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action)
+		{
+			if (!results.next())
+				return false;
+			
+			final T entity = type.cast(results.get(0));
+			try
+			{
+				action.accept(entity);
+			}
+			finally
+			{
+				session.detach(entity);
+			}
+			
+			return true;
+		}
+	}
+}
@@ -23,29 +23,94 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.nhindirect.config.repository.projection.DomainSummary;
+import org.nhindirect.config.repository.projection.EntityVersion;
 import org.nhindirect.config.store.Domain;
 import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface DomainRepository extends JpaRepository<Domain, Long>
+public interface DomainRepository extends JpaRepository<Domain, Long>, KeysetPagingRepository<Domain>, VersionedRepository<Domain>
 {
-	public Domain findByDomainNameIgnoreCase(String domainName);
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public Domain findByNormalizedDomainName(String normalizedDomainName);
+	
+	public default Domain findByDomainNameIgnoreCase(String domainName)
+	{
+		return findByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
 	
 	public List<Domain> findByDomainNameContainingIgnoreCase(String domainName);
 	
 	public List<Domain> findByDomainNameContainingIgnoreCaseAndStatus(String domainName,  EntityStatus status);
 	
-	@Query("select d from Domain d where upper(d.domainName) in :domainNames")
-	public List<Domain> findByDomainNameInIgnoreCase(@Param("domainNames") List<String> domainNames);
+	public List<Domain> findByNormalizedDomainNameIn(List<String> normalizedDomainNames);
+	
+	public List<Domain> findByNormalizedDomainNameInAndStatus(List<String> normalizedDomainNames, EntityStatus status);
+	
+	public default List<Domain> findByDomainNameInIgnoreCase(List<String> domainNames)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(domainNames), this::findByNormalizedDomainNameIn);
+	}
 	
-	@Query("select d from Domain d where upper(d.domainName) in :domainNames and d.status = :status")
-	public List<Domain> findByDomainNameInIgnoreCaseAndStatus(@Param("domainNames") List<String> domainNames, @Param("status") EntityStatus status);
+	public default List<Domain> findByDomainNameInIgnoreCaseAndStatus(List<String> domainNames, EntityStatus status)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(domainNames), 
+				chunk -> findByNormalizedDomainNameInAndStatus(chunk, status));
+	}
 	
 	public List<Domain> findByStatus(EntityStatus status);	
 	
+	@Query("select distinct d from Domain d left join fetch d.addresses where d.normalizedDomainName = :normalizedDomainName")
+	public Domain findWithAddressesByNormalizedDomainName(@Param("normalizedDomainName") String normalizedDomainName);
+	
+	public default Domain findWithAddressesByDomainNameIgnoreCase(String domainName)
+	{
+		return findWithAddressesByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
+	@Query("select distinct d from Domain d left join fetch d.addresses where d.status = :status")
+	public List<Domain> findWithAddressesByStatus(@Param("status") EntityStatus status);
+	
+	@Query("select distinct d from Domain d left join fetch d.addresses")
+	public List<Domain> findAllWithAddresses();
+	
+	@Query("select d.id as id, d.domainName as domainName, d.status as status, d.postmasterAddressId as postmasterAddressId from Domain d")
+	public List<DomainSummary> findAllSummaries();
+	
+	@Query("select d.id as id, d.domainName as domainName, d.status as status, d.postmasterAddressId as postmasterAddressId "
+			+ "from Domain d where d.status = :status")
+	public List<DomainSummary> findSummariesByStatus(@Param("status") EntityStatus status);
+	
+	@Query("select d.id as id, d.domainName as domainName, d.status as status, d.postmasterAddressId as postmasterAddressId "
+			+ "from Domain d where upper(d.domainName) like upper(concat('%', :domainName, '%'))")
+	public List<DomainSummary> findSummariesByDomainNameContainingIgnoreCase(@Param("domainName") String domainName);
+	
+	@Transactional
+	public void deleteByNormalizedDomainName(String normalizedDomainName);
+	
+	public default void deleteByDomainNameIgnoreCase(String domainName)
+	{
+		deleteByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
 	@Transactional
-	public void deleteByDomainNameIgnoreCase(String domainName);
+	@Query("select d.id as id, d.version as version from Domain d where d.normalizedDomainName = :normalizedDomainName")
+	public EntityVersion findVersionByNormalizedDomainName(@Param("normalizedDomainName") String normalizedDomainName);
+	
+	public default EntityVersion findVersionByDomainNameIgnoreCase(String domainName)
+	{
+		return findVersionByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
+	public default KeysetPage<Domain> findPage(String token, int size)
+	{
+		return findPage(token, size, Domain::getId);
+	}
 }
@@ -0,0 +1,215 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs IN list queries in fixed size chunks.  The keys are de-duplicated and split into chunks of at most 
+ * {@value #DEFAULT_MAX_CHUNK_SIZE} keys, and each chunk is padded to the next power of two by repeating its last key.  A query 
+ * therefore never exceeds the bind parameter limit of the database, and the number of distinct statements the database and 
+ * Hibernate have to plan and cache is bounded by the number of powers of two up to the chunk size instead of growing with 
+ * every list size.
+ * <p>
+ * When there is more than one chunk and neither a transaction nor an entity manager is bound to the calling thread, the chunks 
+ * run in parallel on a small shared pool.  Each chunk then runs in its own read only repository transaction.  Otherwise, for 
+ * example inside a transaction or an open entity manager in view request, the chunks run one after the other on the calling 
+ * thread.  They then share its persistence context: they see its uncommitted changes and return managed entities whose lazy 
+ * associations can still be loaded, however many keys there are.
+ * <p>
+ * The query of each chunk must only return rows matching the keys of that chunk, so the merged results contain no duplicates.
+ * @since 6.0.1
+ */
+public class InListQueryExecutor
+{
+	/**
+	 * Default maximum number of keys bound to one query.
+	 */
+	public static final int DEFAULT_MAX_CHUNK_SIZE = 512;
+	
+	/**
+	 * Number of threads that run chunks in parallel.
+	 */
+	public static final int PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+	
+	private InListQueryExecutor()
+	{
+		
+	}
+	
+	/**
+	 * Runs an IN list query in chunks of at most {@value #DEFAULT_MAX_CHUNK_SIZE} keys.
+	 * @param keys The keys of the IN list.  Null and duplicate keys are dropped.
+	 * @param query Runs the query for one chunk of keys.
+	 * @return The merged results of all chunks.  Returns an empty list without running the query if there are no keys.
+	 */
+	public static <K, T> List<T> execute(Collection<K> keys, Function<List<K>, List<T>> query)
+	{
+		return execute(keys, DEFAULT_MAX_CHUNK_SIZE, query);
+	}
+	
+	/**
+	 * Runs an IN list query in chunks.
+	 * @param keys The keys of the IN list.  Null and duplicate keys are dropped.
+	 * @param maxChunkSize The maximum number of keys bound to one query.  Must be a power of two.
+	 * @param query Runs the query for one chunk of keys.
+	 * @return The merged results of all chunks.  Returns an empty list without running the query if there are no keys.
+	 */
+	public static <K, T> List<T> execute(Collection<K> keys, int maxChunkSize, Function<List<K>, List<T>> query)
+	{
+		final List<List<K>> chunks = chunk(keys, maxChunkSize);
+		if (chunks.isEmpty())
+			return Collections.emptyList();
+		
+		if (chunks.size() == 1)
+			return query.apply(chunks.get(0));
+		
+		final List<T> retVal = new ArrayList<>();
+		if (isPersistenceContextBound())
+		{
+			for (List<K> chunk : chunks)
+				retVal.addAll(query.apply(chunk));
+			
+			return retVal;
+		}
+		
+		final List<Future<List<T>>> futures = new ArrayList<>(chunks.size());
+		try
+		{
+			for (List<K> chunk : chunks)
+				futures.add(PoolHolder.POOL.submit(() -> query.apply(chunk)));
+			
+			for (Future<List<T>> future : futures)
+				retVal.addAll(future.get());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for IN list query", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error)e.getCause();
+			
+			throw new IllegalStateException("IN list query failed", e.getCause());
+		}
+		finally
+		{
+			for (Future<List<T>> future : futures)
+				future.cancel(true);
+		}
+		
+		return retVal;
+	}
+	
+	/**
+	 * Checks if the calling thread runs in a transaction or has an entity manager bound to it, which chunks run on other threads
+	 * would not share.
+	 * @return True if chunks must run on the calling thread.
+	 */
+	static boolean isPersistenceContextBound()
+	{
+		if (TransactionSynchronizationManager.isActualTransactionActive())
+			return true;
+		
+		for (Object resource : TransactionSynchronizationManager.getResourceMap().values())
+			if (resource instanceof EntityManagerHolder)
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Splits keys into padded chunks.
+	 * @param keys The keys.  Null and duplicate keys are dropped.
+	 * @param maxChunkSize The maximum number of keys in a chunk.  Must be a power of two.
+	 * @return The chunks.  The size of every chunk is a power of two.
+	 */
+	static <K> List<List<K>> chunk(Collection<K> keys, int maxChunkSize)
+	{
+		if (maxChunkSize <= 0 || Integer.bitCount(maxChunkSize) != 1)
+			throw new IllegalArgumentException("Max chunk size must be a power of two");
+		
+		final List<K> distinct = new ArrayList<>(keys.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new)));
+		
+		final List<List<K>> retVal = new ArrayList<>((distinct.size() + maxChunkSize - 1) / maxChunkSize);
+		for (int start = 0; start < distinct.size(); start += maxChunkSize)
+		{
+			final List<K> chunk = new ArrayList<>(distinct.subList(start, Math.min(distinct.size(), start + maxChunkSize)));
+			
+			// repeated keys do not change the result of an IN list, but keep the number of distinct statements small
+			final int paddedSize = Integer.highestOneBit(chunk.size() - 1) << 1;
+			final K last = chunk.get(chunk.size() - 1);
+			while (chunk.size() < paddedSize)
+				chunk.add(last);
+			
+			retVal.add(chunk);
+		}
+		
+		return retVal;
+	}
+	
+	/*
+	 * Created on first use, so applications that never run a multi chunk query outside of a transaction do not start the threads.
+	 * Callers run a chunk themselves when the queue is full, which bounds the number of waiting chunks.
+	 */
+	private static class PoolHolder
+	{
+		static final ExecutorService POOL;
+		
+		static
+		{
+			final AtomicInteger threadCount = new AtomicInteger();
+			
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 60, TimeUnit.SECONDS, 
+					new ArrayBlockingQueue<>(PARALLELISM * 16), runnable ->
+			{
+				final Thread thread = new Thread(runnable, "InListQueryExecutor-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, new ThreadPoolExecutor.CallerRunsPolicy());
+			pool.allowCoreThreadTimeOut(true);
+			
+			POOL = pool;
+		}
+	}
+}
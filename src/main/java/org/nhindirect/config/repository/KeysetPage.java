@@ -0,0 +1,159 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A page of entities returned by a keyset (seek) query.  Pages are ordered by id and each page is located by the id of the last 
+ * entity of the previous page instead of an offset, so every page costs the same regardless of how deep into the table it is.
+ * <p>
+ * The position of the next page is returned as an opaque continuation token.  Pass null to start at the beginning of the table.  
+ * Entities added behind the current position are not returned, and entities removed ahead of it are skipped.
+ * <p>
+ * Invalid tokens and page sizes are rejected with an IllegalArgumentException.  When a page is requested through a repository,
+ * the repository proxy translates the exception to Spring's InvalidDataAccessApiUsageException.
+ * @since 6.0.1
+ */
+public class KeysetPage<T>
+{
+	/**
+	 * Maximum number of entities in a page.
+	 */
+	public static final int MAX_PAGE_SIZE = 10000;
+	
+	private static final byte TOKEN_VERSION = 1;
+	
+	private final List<T> content;
+	
+	private final String nextToken;
+	
+	/**
+	 * Constructor.
+	 * @param content The entities of the page.
+	 * @param nextToken The continuation token of the next page, or null if this is the last page.
+	 */
+	public KeysetPage(List<T> content, String nextToken)
+	{
+		this.content = Collections.unmodifiableList(content);
+		this.nextToken = nextToken;
+	}
+	
+	/**
+	 * Gets the entities of the page in id order.
+	 * @return The entities of the page.
+	 */
+	public List<T> getContent()
+	{
+		return content;
+	}
+	
+	/**
+	 * Gets the continuation token of the next page.
+	 * @return The continuation token of the next page, or null if this is the last page.
+	 */
+	public String getNextToken()
+	{
+		return nextToken;
+	}
+	
+	/**
+	 * Indicates if there are more entities after this page.
+	 * @return True if there is a next page.
+	 */
+	public boolean hasNext()
+	{
+		return nextToken != null;
+	}
+	
+	/**
+	 * Runs a keyset query for a page.  One more entity than the page size is requested to find out if there is a next page.
+	 * @param token The continuation token of the page, or null for the first page.
+	 * @param size The maximum number of entities in the page.
+	 * @param query Runs the query for entities with an id greater than the first argument, limited and sorted by the second argument.
+	 * @param idExtractor Gets the id of an entity.  Used to build the continuation token from the last entity of the page.
+	 * @return The page.
+	 * @throws IllegalArgumentException Thrown if the token is not valid or the size is out of range.
+	 */
+	public static <T> KeysetPage<T> fetch(String token, int size, BiFunction<Long, Pageable, List<T>> query, Function<T, Long> idExtractor)
+	{
+		if (size <= 0 || size > MAX_PAGE_SIZE)
+			throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+		
+		final List<T> rows = query.apply(decodeToken(token), PageRequest.of(0, size + 1, Sort.by(Sort.Direction.ASC, "id")));
+		if (rows.size() <= size)
+			return new KeysetPage<>(rows, null);
+		
+		final List<T> content = rows.subList(0, size);
+		
+		return new KeysetPage<>(content, encodeToken(idExtractor.apply(content.get(size - 1))));
+	}
+	
+	/**
+	 * Encodes the position after an id as a continuation token.
+	 * @param afterId The id of the last entity of the current page.
+	 * @return The continuation token.
+	 */
+	public static String encodeToken(long afterId)
+	{
+		final ByteBuffer buf = ByteBuffer.allocate(9);
+		buf.put(TOKEN_VERSION);
+		buf.putLong(afterId);
+		
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+	}
+	
+	/**
+	 * Decodes a continuation token.
+	 * @param token The continuation token, or null for the start of the table.
+	 * @return The id after which the page starts.
+	 * @throws IllegalArgumentException Thrown if the token is not valid.
+	 */
+	public static long decodeToken(String token)
+	{
+		if (token == null || token.isEmpty())
+			return Long.MIN_VALUE;
+		
+		final byte[] data;
+		try
+		{
+			data = Base64.getUrlDecoder().decode(token);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IllegalArgumentException("Invalid continuation token " + token, e);
+		}
+		if (data.length != 9 || data[0] != TOKEN_VERSION)
+			throw new IllegalArgumentException("Invalid continuation token " + token);
+		
+		return ByteBuffer.wrap(data, 1, 8).getLong();
+	}
+}
@@ -0,0 +1,57 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keyset (seek) pagination by id shared by the config-store repositories.
+ * @see KeysetPage
+ * @since 6.0.1
+ */
+@NoRepositoryBean
+public interface KeysetPagingRepository<T> extends Repository<T, Long>
+{
+	@Transactional
+	public List<T> findByIdGreaterThan(long afterId, Pageable pageable);
+	
+	/**
+	 * Gets a page of entities ordered by id.  Each repository provides a findPage(String, int) that passes the id getter of
+	 * its entity.
+	 * @param token The continuation token returned with the previous page, or null for the first page.
+	 * @param size The maximum number of entities in the page.
+	 * @param idExtractor Gets the id of an entity.
+	 * @return The page.
+	 * @throws org.springframework.dao.InvalidDataAccessApiUsageException Thrown if the token is not valid or the size is out 
+	 * of range.
+	 */
+	public default KeysetPage<T> findPage(String token, int size, Function<T, Long> idExtractor)
+	{
+		return KeysetPage.fetch(token, size, this::findByIdGreaterThan, idExtractor);
+	}
+}
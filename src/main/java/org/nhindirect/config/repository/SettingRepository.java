@@ -23,21 +23,53 @@ package org.nhindirect.config.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.nhindirect.config.repository.projection.EntityVersion;
 import org.nhindirect.config.store.Setting;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface SettingRepository extends JpaRepository<Setting, Long>
+public interface SettingRepository extends JpaRepository<Setting, Long>, KeysetPagingRepository<Setting>, VersionedRepository<Setting>
 {
-	@Query("select s from Setting s where upper(s.name) in :names")
-	public List<Setting> findByNameIgnoreCaseIn(@Param("names") List<String> names);
+	public List<Setting> findByNormalizedNameIn(List<String> normalizedNames);
+	
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public Setting findByNormalizedName(String normalizedName);
+	
+	@Transactional
+	public void deleteByNormalizedName(String normalizedName);
 	
-	public Setting findByNameIgnoreCase(String name);
+	public default List<Setting> findByNameIgnoreCaseIn(List<String> names)
+	{
+		return InListQueryExecutor.execute(NormalizationUtils.normalize(names), this::findByNormalizedNameIn);
+	}
+	
+	public default Setting findByNameIgnoreCase(String name)
+	{
+		return findByNormalizedName(NormalizationUtils.normalize(name));
+	}
+	
+	public default void deleteByNameIgnoreCase(String name)
+	{
+		deleteByNormalizedName(NormalizationUtils.normalize(name));
+	}
 	
 	@Transactional
-	public void deleteByNameIgnoreCase(String name);
+	@Query("select s.id as id, s.version as version from Setting s where s.normalizedName = :normalizedName")
+	public EntityVersion findVersionByNormalizedName(@Param("normalizedName") String normalizedName);
 	
+	public default EntityVersion findVersionByNameIgnoreCase(String name)
+	{
+		return findVersionByNormalizedName(NormalizationUtils.normalize(name));
+	}
+	
+	public default KeysetPage<Setting> findPage(String token, int size)
+	{
+		return findPage(token, size, Setting::getId);
+	}
 }
-
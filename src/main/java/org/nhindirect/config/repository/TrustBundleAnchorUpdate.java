@@ -0,0 +1,84 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+/**
+ * Result of an incremental trust bundle anchor update.
+ * @since 6.0.1
+ */
+public class TrustBundleAnchorUpdate
+{
+	private final boolean skipped;
+	private final int added;
+	private final int removed;
+	private final int unchanged;
+	
+	public TrustBundleAnchorUpdate(boolean skipped, int added, int removed, int unchanged)
+	{
+		this.skipped = skipped;
+		this.added = added;
+		this.removed = removed;
+		this.unchanged = unchanged;
+	}
+	
+	/**
+	 * Indicates if the update was skipped because the bundle check sum did not change.
+	 * @return True if the update was skipped.
+	 */
+	public boolean isSkipped()
+	{
+		return skipped;
+	}
+	
+	/**
+	 * Gets the number of anchors that were inserted.
+	 * @return The number of anchors that were inserted.
+	 */
+	public int getAdded()
+	{
+		return added;
+	}
+	
+	/**
+	 * Gets the number of anchors that were deleted.
+	 * @return The number of anchors that were deleted.
+	 */
+	public int getRemoved()
+	{
+		return removed;
+	}
+	
+	/**
+	 * Gets the number of existing anchors that were kept.
+	 * @return The number of existing anchors that were kept.
+	 */
+	public int getUnchanged()
+	{
+		return unchanged;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "[skipped: " + skipped + " | added: " + added + " | removed: " + removed + " | unchanged: " + unchanged + "]";
+	}
+}
@@ -22,17 +22,35 @@ THE POSSIBILITY OF SUCH DAMAGE.
 package org.nhindirect.config.repository;
 
 import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
 
 import org.nhindirect.config.store.Domain;
 import org.nhindirect.config.store.TrustBundle;
 import org.nhindirect.config.store.TrustBundleDomainReltn;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface TrustBundleDomainReltnRepository extends JpaRepository<TrustBundleDomainReltn, Long>
+public interface TrustBundleDomainReltnRepository extends JpaRepository<TrustBundleDomainReltn, Long>, KeysetPagingRepository<TrustBundleDomainReltn>, VersionedRepository<TrustBundleDomainReltn>
 {
 	public Collection<TrustBundleDomainReltn> findByDomain(Domain domain);
 	
+	@Transactional
+	@Query("select distinct r from TrustBundleDomainReltn r join fetch r.domain d join fetch r.trustBundle b left join fetch b.trustBundleAnchors "
+			+ "where d.normalizedDomainName = :normalizedDomainName")
+	@QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+	public List<TrustBundleDomainReltn> findWithAnchorsByNormalizedDomainName(@Param("normalizedDomainName") String normalizedDomainName);
+	
+	public default List<TrustBundleDomainReltn> findWithAnchorsByDomainNameIgnoreCase(String domainName)
+	{
+		return findWithAnchorsByNormalizedDomainName(NormalizationUtils.normalize(domainName));
+	}
+	
 	@Transactional
 	public void deleteByDomain(Domain domain);
 	
@@ -41,4 +59,9 @@ public interface TrustBundleDomainReltnRepository extends JpaRepository<TrustBun
 	
 	@Transactional
 	public void deleteByDomainAndTrustBundle(Domain domain, TrustBundle trustBundle);
+	
+	public default KeysetPage<TrustBundleDomainReltn> findPage(String token, int size)
+	{
+		return findPage(token, size, TrustBundleDomainReltn::getId);
+	}
 }
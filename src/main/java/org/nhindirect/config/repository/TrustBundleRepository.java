@@ -23,13 +23,58 @@ THE POSSIBILITY OF SUCH DAMAGE.
 package org.nhindirect.config.repository;
 
 
+import java.util.Calendar;
+import java.util.List;
+
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
+import org.nhindirect.config.repository.projection.EntityVersion;
+import org.nhindirect.config.store.BundleRefreshError;
 import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.util.NormalizationUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface TrustBundleRepository extends JpaRepository<TrustBundle, Long>
+public interface TrustBundleRepository extends JpaRepository<TrustBundle, Long>, KeysetPagingRepository<TrustBundle>, VersionedRepository<TrustBundle>, TrustBundleRepositoryCustom
 {
 	@Transactional
-	public TrustBundle findByBundleNameIgnoreCase(String bundleName);
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public TrustBundle findByNormalizedBundleName(String normalizedBundleName);
+	
+	public default TrustBundle findByBundleNameIgnoreCase(String bundleName)
+	{
+		return findByNormalizedBundleName(NormalizationUtils.normalize(bundleName));
+	}
+	
+	@Transactional
+	public List<TrustBundle> findByRefreshIntervalGreaterThan(int refreshInterval);
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("update TrustBundle b set b.lastRefreshAttempt = :attempt, b.lastRefreshError = :error, b.version = b.version + 1 where b.id = :id")
+	public int updateLastRefreshAttempt(@Param("id") long id, @Param("attempt") Calendar attempt, @Param("error") BundleRefreshError error);
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("update TrustBundle b set b.lastRefreshAttempt = :attempt, b.lastSuccessfulRefresh = :attempt, "
+			+ "b.lastRefreshError = org.nhindirect.config.store.BundleRefreshError.SUCCESS, b.version = b.version + 1 where b.id = :id")
+	public int updateLastSuccessfulRefresh(@Param("id") long id, @Param("attempt") Calendar attempt);
+	
+	@Transactional
+	@Query("select b.id as id, b.version as version from TrustBundle b where b.normalizedBundleName = :normalizedBundleName")
+	public EntityVersion findVersionByNormalizedBundleName(@Param("normalizedBundleName") String normalizedBundleName);
+	
+	public default EntityVersion findVersionByBundleNameIgnoreCase(String bundleName)
+	{
+		return findVersionByNormalizedBundleName(NormalizationUtils.normalize(bundleName));
+	}
+	
+	public default KeysetPage<TrustBundle> findPage(String token, int size)
+	{
+		return findPage(token, size, TrustBundle::getId);
+	}
 }
@@ -0,0 +1,45 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.Collection;
+
+import org.nhindirect.config.store.TrustBundleAnchor;
+
+/**
+ * Custom trust bundle repository operations that can't be expressed as Spring Data query methods.
+ * @since 6.0.1
+ */
+public interface TrustBundleRepositoryCustom
+{
+	/**
+	 * Updates the anchors of a trust bundle by diffing the new anchors against the existing anchors by thumbprint.  Anchors
+	 * that are no longer in the bundle are deleted, new anchors are inserted, and anchors that are already in the bundle are 
+	 * left untouched.  If the check sum matches the bundle's current check sum, nothing is written.
+	 * @param trustBundleId The id of the trust bundle.
+	 * @param anchors The complete set of anchors that the bundle should contain.
+	 * @param checkSum The check sum of the bundle content that the anchors were read from.
+	 * @return The result of the update.
+	 * @throws org.nhindirect.config.store.ConfigurationStoreException If the trust bundle does not exist.
+	 */
+	public TrustBundleAnchorUpdate updateTrustBundleAnchors(long trustBundleId, Collection<TrustBundleAnchor> anchors, String checkSum);
+}
@@ -0,0 +1,99 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.store.ConfigurationStoreException;
+import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.TrustBundleAnchor;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementation of the custom trust bundle repository operations.
+ * @since 6.0.1
+ */
+public class TrustBundleRepositoryImpl implements TrustBundleRepositoryCustom
+{
+	private static final Log log = LogFactory.getLog(TrustBundleRepositoryImpl.class);
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	@Transactional
+	public TrustBundleAnchorUpdate updateTrustBundleAnchors(long trustBundleId, Collection<TrustBundleAnchor> anchors, String checkSum)
+	{
+		final TrustBundle bundle = entityManager.find(TrustBundle.class, trustBundleId);
+		if (bundle == null)
+			throw new ConfigurationStoreException("Trust bundle with id " + trustBundleId + " does not exist");
+		
+		if (checkSum != null && checkSum.equals(bundle.getCheckSum()))
+		{
+			log.debug("Check sum of trust bundle " + bundle.getBundleName() + " is unchanged.  Skipping anchor update.");
+			return new TrustBundleAnchorUpdate(true, 0, 0, 0);
+		}
+		
+		final Map<String, TrustBundleAnchor> incoming = new HashMap<>();
+		for (TrustBundleAnchor anchor : anchors)
+			incoming.putIfAbsent(anchor.getThumbprint(), anchor);
+		
+		int removed = 0;
+		int unchanged = 0;
+		
+		// the anchor collection removes orphans, so removing an anchor from it deletes the row
+		final Collection<TrustBundleAnchor> existing = bundle.getTrustBundleAnchors();
+		for (final Iterator<TrustBundleAnchor> iter = existing.iterator(); iter.hasNext();)
+		{
+			final TrustBundleAnchor anchor = iter.next();
+			if (incoming.remove(anchor.getThumbprint()) == null)
+			{
+				iter.remove();
+				++removed;
+			}
+			else
+				++unchanged;
+		}
+		
+		for (TrustBundleAnchor anchor : incoming.values())
+		{
+			anchor.setTrustBundle(bundle);
+			existing.add(anchor);
+		}
+		
+		bundle.setCheckSum(checkSum);
+		
+		final TrustBundleAnchorUpdate retVal = new TrustBundleAnchorUpdate(false, incoming.size(), removed, unchanged);
+		
+		log.debug("Updated anchors of trust bundle " + bundle.getBundleName() + ": " + retVal);
+		
+		return retVal;
+	}
+}
@@ -0,0 +1,145 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository.projection;
+
+import java.util.Calendar;
+
+import org.nhindirect.config.store.EntityStatus;
+
+/**
+ * Lightweight view of an anchor that does not include the certificate data.  Used for listing and lookup queries
+ * that don't need to decode the certificate.
+ * @since 6.0.1
+ */
+public class AnchorSummary
+{
+	private final long id;
+	
+	private final String owner;
+	
+	private final String thumbprint;
+	
+	private final Calendar validStartDate;
+	
+	private final Calendar validEndDate;
+	
+	private final EntityStatus status;
+	
+	private final boolean incoming;
+	
+	private final boolean outgoing;
+	
+	/**
+	 * Constructor.  Called by the JPQL constructor expressions of the summary queries.
+	 * @param id The id of the anchor.
+	 * @param owner The owner of the anchor.
+	 * @param thumbprint The thumbprint of the anchor.
+	 * @param validStartDate The start of the validity period of the anchor.
+	 * @param validEndDate The end of the validity period of the anchor.
+	 * @param status The status of the anchor.
+	 * @param incoming True if the anchor is used for incoming messages.
+	 * @param outgoing True if the anchor is used for outgoing messages.
+	 */
+	public AnchorSummary(long id, String owner, String thumbprint, Calendar validStartDate, Calendar validEndDate, EntityStatus status, boolean incoming, boolean outgoing)
+	{
+		this.id = id;
+		this.owner = owner;
+		this.thumbprint = thumbprint;
+		this.validStartDate = validStartDate;
+		this.validEndDate = validEndDate;
+		this.status = status;
+		this.incoming = incoming;
+		this.outgoing = outgoing;
+	}
+	
+	/**
+	 * Gets the id of the anchor.
+	 * @return The id of the anchor.
+	 */
+	public long getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Gets the owner of the anchor.
+	 * @return The owner of the anchor.
+	 */
+	public String getOwner()
+	{
+		return owner;
+	}
+	
+	/**
+	 * Gets the thumbprint of the anchor.
+	 * @return The thumbprint of the anchor.
+	 */
+	public String getThumbprint()
+	{
+		return thumbprint;
+	}
+	
+	/**
+	 * Gets the start of the validity period of the anchor.
+	 * @return The start of the validity period of the anchor.
+	 */
+	public Calendar getValidStartDate()
+	{
+		return validStartDate;
+	}
+	
+	/**
+	 * Gets the end of the validity period of the anchor.
+	 * @return The end of the validity period of the anchor.
+	 */
+	public Calendar getValidEndDate()
+	{
+		return validEndDate;
+	}
+	
+	/**
+	 * Gets the status of the anchor.
+	 * @return The status of the anchor.
+	 */
+	public EntityStatus getStatus()
+	{
+		return status;
+	}
+	
+	/**
+	 * Indicates if the anchor is used for incoming messages.
+	 * @return True if the anchor is used for incoming messages.
+	 */
+	public boolean isIncoming()
+	{
+		return incoming;
+	}
+	
+	/**
+	 * Indicates if the anchor is used for outgoing messages.
+	 * @return True if the anchor is used for outgoing messages.
+	 */
+	public boolean isOutgoing()
+	{
+		return outgoing;
+	}
+}
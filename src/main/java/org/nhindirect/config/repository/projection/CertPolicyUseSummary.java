@@ -0,0 +1,159 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository.projection;
+
+import java.util.Calendar;
+
+import org.nhindirect.config.store.CertPolicyUse;
+import org.nhindirect.policy.PolicyLexicon;
+
+/**
+ * Lightweight view of a policy as used by a domain through one of its policy groups.  It does not include the policy data, 
+ * so it can be used by callers that only need policy metadata.
+ * @since 6.0.1
+ */
+public class CertPolicyUseSummary
+{
+	private final long policyGroupId;
+	
+	private final String policyGroupName;
+	
+	private final long policyId;
+	
+	private final String policyName;
+	
+	private final PolicyLexicon lexicon;
+	
+	private final Calendar policyCreateTime;
+	
+	private final CertPolicyUse policyUse;
+	
+	private final boolean incoming;
+	
+	private final boolean outgoing;
+	
+	/**
+	 * Constructor.  Called by the JPQL constructor expression of the summary query.
+	 * @param policyGroupId The id of the policy group.
+	 * @param policyGroupName The name of the policy group.
+	 * @param policyId The id of the policy.
+	 * @param policyName The name of the policy.
+	 * @param lexicon The lexicon the policy is written in.
+	 * @param policyCreateTime The time the policy was created.
+	 * @param policyUse How the policy is used within the group.
+	 * @param incoming True if the policy is applied to incoming messages.
+	 * @param outgoing True if the policy is applied to outgoing messages.
+	 */
+	public CertPolicyUseSummary(long policyGroupId, String policyGroupName, long policyId, String policyName, PolicyLexicon lexicon, Calendar policyCreateTime, CertPolicyUse policyUse, boolean incoming, boolean outgoing)
+	{
+		this.policyGroupId = policyGroupId;
+		this.policyGroupName = policyGroupName;
+		this.policyId = policyId;
+		this.policyName = policyName;
+		this.lexicon = lexicon;
+		this.policyCreateTime = policyCreateTime;
+		this.policyUse = policyUse;
+		this.incoming = incoming;
+		this.outgoing = outgoing;
+	}
+	
+	/**
+	 * Gets the id of the policy group.
+	 * @return The id of the policy group.
+	 */
+	public long getPolicyGroupId()
+	{
+		return policyGroupId;
+	}
+	
+	/**
+	 * Gets the name of the policy group.
+	 * @return The name of the policy group.
+	 */
+	public String getPolicyGroupName()
+	{
+		return policyGroupName;
+	}
+	
+	/**
+	 * Gets the id of the policy.
+	 * @return The id of the policy.
+	 */
+	public long getPolicyId()
+	{
+		return policyId;
+	}
+	
+	/**
+	 * Gets the name of the policy.
+	 * @return The name of the policy.
+	 */
+	public String getPolicyName()
+	{
+		return policyName;
+	}
+	
+	/**
+	 * Gets the lexicon the policy is written in.
+	 * @return The lexicon the policy is written in.
+	 */
+	public PolicyLexicon getLexicon()
+	{
+		return lexicon;
+	}
+	
+	/**
+	 * Gets the time the policy was created.
+	 * @return The time the policy was created.
+	 */
+	public Calendar getPolicyCreateTime()
+	{
+		return policyCreateTime;
+	}
+	
+	/**
+	 * Gets how the policy is used within the group.
+	 * @return How the policy is used within the group.
+	 */
+	public CertPolicyUse getPolicyUse()
+	{
+		return policyUse;
+	}
+	
+	/**
+	 * Indicates if the policy is applied to incoming messages.
+	 * @return True if the policy is applied to incoming messages.
+	 */
+	public boolean isIncoming()
+	{
+		return incoming;
+	}
+	
+	/**
+	 * Indicates if the policy is applied to outgoing messages.
+	 * @return True if the policy is applied to outgoing messages.
+	 */
+	public boolean isOutgoing()
+	{
+		return outgoing;
+	}
+}
@@ -0,0 +1,132 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository.projection;
+
+import java.util.Calendar;
+
+import org.nhindirect.config.store.EntityStatus;
+
+/**
+ * Lightweight view of a certificate that does not include the certificate data.  Used for listing and lookup queries
+ * that don't need to decode the certificate.
+ * @since 6.0.1
+ */
+public class CertificateSummary
+{
+	private final long id;
+	
+	private final String owner;
+	
+	private final String thumbprint;
+	
+	private final Calendar validStartDate;
+	
+	private final Calendar validEndDate;
+	
+	private final EntityStatus status;
+	
+	private final boolean privateKey;
+	
+	/**
+	 * Constructor.  Called by the JPQL constructor expressions of the summary queries.
+	 * @param id The id of the certificate.
+	 * @param owner The owner of the certificate.
+	 * @param thumbprint The thumbprint of the certificate.
+	 * @param validStartDate The start of the validity period of the certificate.
+	 * @param validEndDate The end of the validity period of the certificate.
+	 * @param status The status of the certificate.
+	 * @param privateKey True if the certificate has a private key.
+	 */
+	public CertificateSummary(long id, String owner, String thumbprint, Calendar validStartDate, Calendar validEndDate, EntityStatus status, boolean privateKey)
+	{
+		this.id = id;
+		this.owner = owner;
+		this.thumbprint = thumbprint;
+		this.validStartDate = validStartDate;
+		this.validEndDate = validEndDate;
+		this.status = status;
+		this.privateKey = privateKey;
+	}
+	
+	/**
+	 * Gets the id of the certificate.
+	 * @return The id of the certificate.
+	 */
+	public long getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Gets the owner of the certificate.
+	 * @return The owner of the certificate.
+	 */
+	public String getOwner()
+	{
+		return owner;
+	}
+	
+	/**
+	 * Gets the thumbprint of the certificate.
+	 * @return The thumbprint of the certificate.
+	 */
+	public String getThumbprint()
+	{
+		return thumbprint;
+	}
+	
+	/**
+	 * Gets the start of the validity period of the certificate.
+	 * @return The start of the validity period of the certificate.
+	 */
+	public Calendar getValidStartDate()
+	{
+		return validStartDate;
+	}
+	
+	/**
+	 * Gets the end of the validity period of the certificate.
+	 * @return The end of the validity period of the certificate.
+	 */
+	public Calendar getValidEndDate()
+	{
+		return validEndDate;
+	}
+	
+	/**
+	 * Gets the status of the certificate.
+	 * @return The status of the certificate.
+	 */
+	public EntityStatus getStatus()
+	{
+		return status;
+	}
+	
+	/**
+	 * Indicates if the certificate has a private key.
+	 * @return True if the certificate has a private key.
+	 */
+	public boolean isPrivateKey()
+	{
+		return privateKey;
+	}
+}
@@ -0,0 +1,353 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.repository.AddressRepository;
+import org.nhindirect.config.repository.ConfigChangeRepository;
+import org.nhindirect.config.repository.InListQueryExecutor;
+import org.nhindirect.config.store.Address;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.ConfigChangeType;
+import org.nhindirect.config.store.util.NormalizationUtils;
+
+/**
+ * Resolves email addresses with a Bloom filter in front of the address table.  The filter holds the normalized email address of 
+ * every address, so lookups for addresses that do not exist, such as spam and misdirected mail, are answered from memory without 
+ * a database query.  Lookups that pass the filter are read from the {@link AddressRepository}.
+ * <p>
+ * The filter is sized from the row count of the address table when it is built and is then kept current from the configuration 
+ * change log: added and updated addresses are added to the filter on every refresh.  Removed addresses cannot be taken out of a 
+ * Bloom filter, so the filter is rebuilt when enough addresses were removed, or when the filter has filled up enough that its
+ * false positive rate exceeds twice the target rate.  Addresses added by other nodes are not seen until the next refresh, so a
+ * new address may be reported as missing for up to one refresh interval.
+ * <p>
+ * The change log is read with a {@link ChangeLogCursor}, which re-reads recent changes so changes committed out of sequence order
+ * are not missed.  Changes of transactions that take longer than its window to commit are picked up when the filter is rebuilt, 
+ * which happens at least every {@link #MAX_FILTER_AGE}.
+ * <p>
+ * Until {@link #start()} is called every lookup goes to the database.
+ * @since 6.0.1
+ */
+public class AddressResolver
+{
+	private static final Log log = LogFactory.getLog(AddressResolver.class);
+	
+	/**
+	 * Default target false positive rate of the filter.
+	 */
+	public static final double DEFAULT_FPP = 0.01;
+	
+	/**
+	 * Default time in milliseconds between refreshes of the filter from the change log.
+	 */
+	public static final long DEFAULT_REFRESH_INTERVAL = 10000L;
+	
+	/**
+	 * The filter is sized for this many times the rows in the table, so it can take new addresses before it has to be rebuilt.
+	 */
+	protected static final double CAPACITY_FACTOR = 2.0;
+	
+	/**
+	 * Minimum number of addresses the filter is sized for.
+	 */
+	protected static final long MIN_CAPACITY = 1024L;
+	
+	/**
+	 * Maximum time in milliseconds between rebuilds of the filter.
+	 */
+	protected static final long MAX_FILTER_AGE = 3600000L;
+	
+	protected final AddressRepository addressRepo;
+	
+	protected final ChangeLogCursor changeCursor;
+	
+	protected final double fpp;
+	
+	protected final long refreshInterval;
+	
+	private volatile BloomFilter filter;
+	
+	private long removedSinceBuild;
+	
+	private long builtAt;
+	
+	private ScheduledExecutorService refreshExecutor;
+	
+	private final LongAdder filtered = new LongAdder();
+	
+	private final LongAdder found = new LongAdder();
+	
+	private final LongAdder notFound = new LongAdder();
+	
+	/**
+	 * Creates a resolver with the default false positive rate and refresh interval.
+	 * @param addressRepo The address repository.
+	 * @param changeRepo The configuration change log repository.
+	 */
+	public AddressResolver(AddressRepository addressRepo, ConfigChangeRepository changeRepo)
+	{
+		this(addressRepo, changeRepo, DEFAULT_FPP, DEFAULT_REFRESH_INTERVAL);
+	}
+	
+	/**
+	 * Creates a resolver.
+	 * @param addressRepo The address repository.
+	 * @param changeRepo The configuration change log repository.
+	 * @param fpp The target false positive rate of the filter.  Must be between 0 and 1.
+	 * @param refreshInterval The time in milliseconds between refreshes of the filter from the change log.
+	 */
+	public AddressResolver(AddressRepository addressRepo, ConfigChangeRepository changeRepo, double fpp, long refreshInterval)
+	{
+		if (fpp <= 0 || fpp >= 1)
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+		if (refreshInterval <= 0)
+			throw new IllegalArgumentException("Refresh interval must be greater than 0");
+		
+		this.addressRepo = addressRepo;
+		this.changeCursor = new ChangeLogCursor(changeRepo, Address.class);
+		this.fpp = fpp;
+		this.refreshInterval = refreshInterval;
+	}
+	
+	/**
+	 * Builds the filter and starts refreshing it in the background.  The filter is built before this method returns.
+	 */
+	public synchronized void start()
+	{
+		if (refreshExecutor != null)
+			return;
+		
+		rebuild();
+		
+		refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "AddressResolver-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refreshExecutor.scheduleWithFixedDelay(() -> 
+		{
+			try
+			{
+				refresh();
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to refresh address filter: " + e.getMessage(), e);
+			}
+		}, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops refreshing the filter and drops it.  Later lookups go to the database.
+	 */
+	public synchronized void shutdown()
+	{
+		if (refreshExecutor != null)
+		{
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+		filter = null;
+		builtAt = 0;
+		changeCursor.clear();
+	}
+	
+	/**
+	 * Gets an address.
+	 * @param emailAddress The email address.  The address is not case sensitive.
+	 * @return The address, or null if it does not exist.
+	 */
+	public Address findAddress(String emailAddress)
+	{
+		final String normalized = NormalizationUtils.normalize(emailAddress);
+		if (normalized == null)
+			return null;
+		
+		final BloomFilter current = filter;
+		if (current != null && !current.mightContain(normalized))
+		{
+			filtered.increment();
+			return null;
+		}
+		
+		final Address retVal = addressRepo.findByNormalizedEmailAddress(normalized);
+		if (retVal == null)
+			notFound.increment();
+		else
+			found.increment();
+		
+		return retVal;
+	}
+	
+	/**
+	 * Gets the addresses that exist out of a set of email addresses.  Addresses ruled out by the filter are dropped and the rest 
+	 * are read with {@link InListQueryExecutor}.
+	 * @param emailAddresses The email addresses.  The addresses are not case sensitive.
+	 * @return The addresses that exist.  Returns an empty list if none of the addresses exist.
+	 */
+	public List<Address> findAddresses(Collection<String> emailAddresses)
+	{
+		final BloomFilter current = filter;
+		
+		final Set<String> normalized = new LinkedHashSet<>(NormalizationUtils.normalize(emailAddresses));
+		normalized.remove(null);
+		
+		final List<String> candidates = new ArrayList<>(normalized.size());
+		for (String emailAddress : normalized)
+		{
+			if (current == null || current.mightContain(emailAddress))
+				candidates.add(emailAddress);
+			else
+				filtered.increment();
+		}
+		
+		if (candidates.isEmpty())
+			return Collections.emptyList();
+		
+		final List<Address> retVal = InListQueryExecutor.execute(candidates, addressRepo::findByNormalizedEmailAddressIn);
+		found.add(retVal.size());
+		notFound.add(candidates.size() - retVal.size());
+		
+		return retVal;
+	}
+	
+	/**
+	 * Rebuilds the filter from the address table, sized for the current number of addresses.
+	 */
+	public synchronized void rebuild()
+	{
+		// read the position of the change log first, so changes made while the table is read are replayed on the next refresh
+		final long sequence = changeCursor.findLatestSequence();
+		
+		final long capacity = Math.max(MIN_CAPACITY, (long)(addressRepo.count() * CAPACITY_FACTOR));
+		final BloomFilter newFilter = new BloomFilter(capacity, fpp);
+		for (String normalized : addressRepo.findAllNormalizedEmailAddresses())
+			newFilter.put(normalized);
+		
+		filter = newFilter;
+		changeCursor.reset(sequence);
+		removedSinceBuild = 0;
+		builtAt = System.currentTimeMillis();
+		
+		log.debug("Built address filter with " + newFilter.getInsertionCount() + " addresses and " + newFilter.getNumBits() + " bits");
+	}
+	
+	/**
+	 * Adds the addresses that were added or updated since the last refresh to the filter, and rebuilds the filter if it has degraded.
+	 * Builds the filter if it was not built yet.
+	 */
+	public synchronized void refresh()
+	{
+		final BloomFilter current = filter;
+		if (current == null)
+		{
+			rebuild();
+			return;
+		}
+		
+		changeCursor.read(changes ->
+		{
+			final List<Long> changedIds = new ArrayList<>();
+			for (ConfigChange change : changes)
+			{
+				if (change.getChangeType() == ConfigChangeType.DELETE)
+					++removedSinceBuild;
+				else
+					changedIds.add(change.getEntityId());
+			}
+			
+			if (!changedIds.isEmpty())
+				for (Address address : addressRepo.findAllById(changedIds))
+					if (address.getNormalizedEmailAddress() != null)
+						current.put(address.getNormalizedEmailAddress());
+		});
+		
+		// removed addresses stay in the filter as false positives that the fill rate estimate does not see
+		if (current.getExpectedFpp() > fpp * 2 || removedSinceBuild > current.getExpectedInsertions() / 4 
+				|| System.currentTimeMillis() - builtAt > MAX_FILTER_AGE)
+			rebuild();
+	}
+	
+	/**
+	 * Gets the estimated false positive rate of the filter.
+	 * @return The estimated false positive rate, or 1 if the filter is not built.
+	 */
+	public double getExpectedFpp()
+	{
+		final BloomFilter current = filter;
+		
+		return (current == null) ? 1.0 : current.getExpectedFpp();
+	}
+	
+	/**
+	 * Gets the approximate number of addresses in the filter.
+	 * @return The number of addresses in the filter, or 0 if the filter is not built.
+	 */
+	public long getFilterSize()
+	{
+		final BloomFilter current = filter;
+		
+		return (current == null) ? 0 : current.getInsertionCount();
+	}
+	
+	/**
+	 * Gets the number of lookups answered by the filter without a database query.
+	 * @return The number of filtered lookups.
+	 */
+	public long getFilteredCount()
+	{
+		return filtered.sum();
+	}
+	
+	/**
+	 * Gets the number of lookups that passed the filter and found an address.
+	 * @return The number of found addresses.
+	 */
+	public long getFoundCount()
+	{
+		return found.sum();
+	}
+	
+	/**
+	 * Gets the number of lookups that passed the filter but did not find an address.  These are the false positives of the filter,
+	 * plus all misses while the filter is not built.
+	 * @return The number of addresses not found in the database.
+	 */
+	public long getNotFoundCount()
+	{
+		return notFound.sum();
+	}
+}
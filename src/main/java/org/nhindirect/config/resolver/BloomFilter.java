@@ -0,0 +1,210 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe Bloom filter over strings.  The filter answers whether a string might have been added or was definitely never added,
+ * using a fixed bit array and no references to the strings themselves.  Bit positions are derived from a 64 bit hash of the string
+ * with double hashing, so each lookup hashes the string once regardless of the number of hash functions.
+ * <p>
+ * Strings can be added concurrently with lookups.  Strings cannot be removed; rebuild the filter to drop them.
+ * @since 6.0.1
+ */
+public class BloomFilter
+{
+	private static final double LN2 = Math.log(2);
+	
+	private final AtomicLongArray bits;
+	
+	private final long numBits;
+	
+	private final int numHashes;
+	
+	private final long expectedInsertions;
+	
+	private final AtomicLong bitCount = new AtomicLong();
+	
+	private final AtomicLong insertions = new AtomicLong();
+	
+	/**
+	 * Creates a filter sized for a number of strings and a target false positive rate.
+	 * @param expectedInsertions The number of strings the filter is sized for.
+	 * @param fpp The false positive rate when the filter holds the expected number of strings.  Must be between 0 and 1.
+	 */
+	public BloomFilter(long expectedInsertions, double fpp)
+	{
+		if (expectedInsertions <= 0)
+			throw new IllegalArgumentException("Expected insertions must be greater than 0");
+		if (fpp <= 0 || fpp >= 1)
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+		
+		final long words = Math.max(1, ((long)Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2)) + 63) / 64);
+		if (words > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Filter for " + expectedInsertions + " strings is too large");
+		
+		this.bits = new AtomicLongArray((int)words);
+		this.numBits = words * 64;
+		this.numHashes = Math.max(1, (int)Math.round((double)numBits / expectedInsertions * LN2));
+		this.expectedInsertions = expectedInsertions;
+	}
+	
+	/**
+	 * Adds a string to the filter.
+	 * @param value The string to add.
+	 * @return True if the filter changed, false if the string might already have been added.
+	 */
+	public boolean put(String value)
+	{
+		final long hash = hash(value);
+		final long h1 = hash;
+		final long h2 = mix(hash) | 1L;
+		
+		boolean changed = false;
+		for (int i = 0; i < numHashes; ++i)
+			changed |= setBit(index(h1 + i * h2));
+		
+		if (changed)
+			insertions.incrementAndGet();
+		
+		return changed;
+	}
+	
+	/**
+	 * Indicates if a string might have been added to the filter.
+	 * @param value The string to look up.
+	 * @return False if the string was definitely never added, true if it might have been.
+	 */
+	public boolean mightContain(String value)
+	{
+		final long hash = hash(value);
+		final long h1 = hash;
+		final long h2 = mix(hash) | 1L;
+		
+		for (int i = 0; i < numHashes; ++i)
+		{
+			final long index = index(h1 + i * h2);
+			if ((bits.get((int)(index >>> 6)) & (1L << index)) == 0)
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the probability that {@link #mightContain(String)} returns true for a string that was never added, estimated from the
+	 * fraction of bits that are set.
+	 * @return The current false positive rate.
+	 */
+	public double getExpectedFpp()
+	{
+		return Math.pow((double)bitCount.get() / numBits, numHashes);
+	}
+	
+	/**
+	 * Gets the number of strings the filter is sized for.
+	 * @return The number of strings the filter is sized for.
+	 */
+	public long getExpectedInsertions()
+	{
+		return expectedInsertions;
+	}
+	
+	/**
+	 * Gets the number of added strings that changed the filter.  This is a close lower bound of the number of distinct strings added.
+	 * @return The number of strings added.
+	 */
+	public long getInsertionCount()
+	{
+		return insertions.get();
+	}
+	
+	/**
+	 * Gets the size of the bit array.
+	 * @return The number of bits.
+	 */
+	public long getNumBits()
+	{
+		return numBits;
+	}
+	
+	/**
+	 * Gets the number of bits set or tested for each string.
+	 * @return The number of hash functions.
+	 */
+	public int getNumHashes()
+	{
+		return numHashes;
+	}
+	
+	private long index(long combinedHash)
+	{
+		return (combinedHash & Long.MAX_VALUE) % numBits;
+	}
+	
+	private boolean setBit(long index)
+	{
+		final int word = (int)(index >>> 6);
+		final long mask = 1L << index;
+		
+		long current;
+		do
+		{
+			current = bits.get(word);
+			if ((current & mask) != 0)
+				return false;
+		}
+		while (!bits.compareAndSet(word, current, current | mask));
+		
+		bitCount.incrementAndGet();
+		
+		return true;
+	}
+	
+	/*
+	 * 64 bit FNV-1a over the characters of the string followed by the murmur3 finalizer to spread the low entropy bits
+	 */
+	private static long hash(String value)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); ++i)
+		{
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		
+		return mix(hash);
+	}
+	
+	private static long mix(long hash)
+	{
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		
+		return hash;
+	}
+}
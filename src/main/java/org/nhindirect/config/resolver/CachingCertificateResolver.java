@@ -0,0 +1,312 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.repository.CertificateRepository;
+import org.nhindirect.config.repository.ConfigChangeRepository;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.util.NormalizationUtils;
+
+/**
+ * Resolves certificates from an in-memory index of the certificate table.  The index is keyed by lower case owner and by thumbprint,
+ * so lookups are served from memory without touching the database.
+ * <p>
+ * The index is refreshed incrementally from the configuration change log: certificates that were added, changed, or removed 
+ * since the last refresh are read again by id.  The log is read with a {@link ChangeLogCursor}, which re-reads recent changes
+ * so certificates committed out of id order are not missed.  Changes of transactions that take longer than its window to commit 
+ * are picked up by a full reload of the table once the index is older than the maximum staleness.  If the index exceeds the 
+ * maximum staleness at lookup time (for example the background refresh is not running), it is reloaded synchronously before 
+ * the lookup is served.
+ * <p>
+ * Certificates returned by the resolver are shared between callers and must not be modified.
+ * @since 6.0.1
+ */
+public class CachingCertificateResolver
+{
+	private static final Log log = LogFactory.getLog(CachingCertificateResolver.class);
+	
+	/**
+	 * Default time in milliseconds between incremental refreshes.
+	 */
+	public static final long DEFAULT_REFRESH_INTERVAL = 10000L;
+	
+	/**
+	 * Default time in milliseconds between full reloads of the index.
+	 */
+	public static final long DEFAULT_MAX_STALENESS = 900000L;
+	
+	protected final CertificateRepository certRepo;
+	
+	protected final ChangeLogCursor changeCursor;
+	
+	protected final long refreshInterval;
+	
+	protected final long maxStaleness;
+	
+	private volatile CertificateIndex index;
+	
+	private ScheduledExecutorService refreshExecutor;
+	
+	/**
+	 * Creates a resolver with the default refresh interval and maximum staleness.
+	 * @param certRepo The repository used to load the index.
+	 * @param changeRepo The configuration change log repository.
+	 */
+	public CachingCertificateResolver(CertificateRepository certRepo, ConfigChangeRepository changeRepo)
+	{
+		this(certRepo, changeRepo, DEFAULT_REFRESH_INTERVAL, DEFAULT_MAX_STALENESS);
+	}
+	
+	/**
+	 * Creates a resolver.
+	 * @param certRepo The repository used to load the index.
+	 * @param changeRepo The configuration change log repository.
+	 * @param refreshInterval The time in milliseconds between incremental refreshes.
+	 * @param maxStaleness The maximum age in milliseconds of the index before the entire table is reloaded.
+	 */
+	public CachingCertificateResolver(CertificateRepository certRepo, ConfigChangeRepository changeRepo, long refreshInterval, long maxStaleness)
+	{
+		if (refreshInterval <= 0 || maxStaleness <= 0)
+			throw new IllegalArgumentException("Refresh interval and max staleness must be greater than 0");
+		
+		this.certRepo = certRepo;
+		this.changeCursor = new ChangeLogCursor(changeRepo, Certificate.class);
+		this.refreshInterval = refreshInterval;
+		this.maxStaleness = maxStaleness;
+	}
+	
+	/**
+	 * Starts refreshing the index in the background.  The index is loaded before this method returns.
+	 */
+	public synchronized void start()
+	{
+		if (refreshExecutor != null)
+			return;
+		
+		reload();
+		
+		refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "CachingCertificateResolver-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refreshExecutor.scheduleWithFixedDelay(() -> 
+		{
+			try
+			{
+				refresh();
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to refresh certificate index: " + e.getMessage(), e);
+			}
+		}, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops refreshing the index in the background.
+	 */
+	public synchronized void shutdown()
+	{
+		if (refreshExecutor != null)
+		{
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+	}
+	
+	/**
+	 * Gets all certificates for an owner.
+	 * @param owner The certificate owner.  The owner is not case sensitive.
+	 * @return The owner's certificates.  Returns an empty list if the owner does not have any certificates.
+	 */
+	public List<Certificate> findByOwner(String owner)
+	{
+		if (owner == null)
+			return Collections.emptyList();
+		
+		return lookup(getIndex().byOwner, NormalizationUtils.normalize(owner));
+	}
+	
+	/**
+	 * Gets all certificates with a given thumbprint.
+	 * @param thumbprint The certificate thumbprint.
+	 * @return The certificates with the thumbprint.  Returns an empty list if no certificates match the thumbprint.
+	 */
+	public List<Certificate> findByThumbprint(String thumbprint)
+	{
+		if (thumbprint == null)
+			return Collections.emptyList();
+		
+		return lookup(getIndex().byThumbprint, thumbprint);
+	}
+	
+	/**
+	 * Gets a certificate by owner and thumbprint.
+	 * @param owner The certificate owner.  The owner is not case sensitive.
+	 * @param thumbprint The certificate thumbprint.
+	 * @return The certificate or null if no certificate matches the owner and thumbprint.
+	 */
+	public Certificate findByOwnerAndThumbprint(String owner, String thumbprint)
+	{
+		for (Certificate cert : findByThumbprint(thumbprint))
+		{
+			if (cert.getOwner() != null && cert.getOwner().equalsIgnoreCase(owner))
+				return cert;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Applies the certificates that were added, changed, or removed since the last refresh to the index.  The entire table is 
+	 * loaded if the index has not been loaded yet or is older than the maximum staleness.
+	 */
+	public synchronized void refresh()
+	{
+		final CertificateIndex current = index;
+		if (current == null || isStale(current))
+		{
+			reload();
+			return;
+		}
+		
+		final Set<Long> changedIds = new LinkedHashSet<>();
+		changeCursor.read(changes ->
+		{
+			for (ConfigChange change : changes)
+				changedIds.add(change.getEntityId());
+		});
+		if (changedIds.isEmpty())
+			return;
+		
+		log.debug("Applying " + changedIds.size() + " changed certificates to the certificate index.");
+		
+		// certificates that can't be read any more were removed
+		final Map<Long, Certificate> certs = new HashMap<>(current.byId);
+		certs.keySet().removeAll(changedIds);
+		for (Certificate cert : certRepo.findAllById(changedIds))
+			certs.put(cert.getId(), cert);
+		
+		index = new CertificateIndex(certs, current.loadTime);
+	}
+	
+	/**
+	 * Reloads the entire certificate table into the index.
+	 */
+	public synchronized void reload()
+	{
+		final long loadTime = System.currentTimeMillis();
+		
+		// read the position of the change log first, so changes made while the table is read are applied on the next refresh
+		final long sequence = changeCursor.findLatestSequence();
+		
+		final Map<Long, Certificate> certs = new HashMap<>();
+		for (Certificate cert : certRepo.findAll())
+			certs.put(cert.getId(), cert);
+		
+		log.debug("Loaded " + certs.size() + " certificates into the certificate index.");
+		
+		index = new CertificateIndex(certs, loadTime);
+		changeCursor.reset(sequence);
+	}
+	
+	protected CertificateIndex getIndex()
+	{
+		final CertificateIndex current = index;
+		if (current == null || isStale(current))
+		{
+			synchronized (this)
+			{
+				// another thread may have reloaded while we were waiting for the lock
+				if (index == null || isStale(index))
+					reload();
+				
+				return index;
+			}
+		}
+		
+		return current;
+	}
+	
+	protected boolean isStale(CertificateIndex index)
+	{
+		return System.currentTimeMillis() - index.loadTime > maxStaleness;
+	}
+	
+	private static List<Certificate> lookup(Map<String, List<Certificate>> map, String key)
+	{
+		final List<Certificate> certs = map.get(key);
+		
+		return (certs == null) ? Collections.emptyList() : certs;
+	}
+	
+	/**
+	 * Immutable snapshot of the certificate table.
+	 */
+	protected static class CertificateIndex
+	{
+		protected final Map<Long, Certificate> byId;
+		protected final Map<String, List<Certificate>> byOwner;
+		protected final Map<String, List<Certificate>> byThumbprint;
+		protected final long loadTime;
+		
+		protected CertificateIndex(Map<Long, Certificate> byId, long loadTime)
+		{
+			this.byId = Collections.unmodifiableMap(byId);
+			this.loadTime = loadTime;
+			
+			final Map<String, List<Certificate>> owners = new HashMap<>();
+			final Map<String, List<Certificate>> thumbprints = new HashMap<>();
+			
+			for (Certificate cert : byId.values())
+			{
+				if (cert.getOwner() != null)
+					owners.computeIfAbsent(NormalizationUtils.normalize(cert.getOwner()), key -> new ArrayList<>()).add(cert);
+				
+				if (cert.getThumbprint() != null)
+					thumbprints.computeIfAbsent(cert.getThumbprint(), key -> new ArrayList<>()).add(cert);
+			}
+			
+			owners.replaceAll((key, certs) -> Collections.unmodifiableList(certs));
+			thumbprints.replaceAll((key, certs) -> Collections.unmodifiableList(certs));
+			
+			this.byOwner = owners;
+			this.byThumbprint = thumbprints;
+		}
+	}
+}
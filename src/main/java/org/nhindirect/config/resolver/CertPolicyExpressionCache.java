@@ -0,0 +1,263 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.store.CertPolicy;
+import org.nhindirect.policy.PolicyExpression;
+import org.nhindirect.policy.PolicyLexiconParserFactory;
+import org.nhindirect.policy.PolicyProcessException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache of compiled policy expressions keyed by certificate policy id.  Each entry is stamped with the version of the policy it was
+ * compiled from (the optimistic lock version of the policy), and is recompiled when a policy with a different version is requested.  
+ * Policy data is only lexed on a miss, so callers that evaluate the same policy repeatedly never re-parse its source.
+ * <p>
+ * Concurrent requests for the same policy wait for a single compilation.  Compilation counts and times are tracked for reporting
+ * through {@link org.nhindirect.config.metrics.CertPolicyExpressionCacheMetrics}.
+ * <p>
+ * Policies whose data is changed by bulk updates, which do not increment the version, must be removed with {@link #invalidate(long)}.  
+ * Expressions returned by the cache are shared between callers and must not be modified.
+ * @since 6.0.1
+ */
+public class CertPolicyExpressionCache
+{
+	private static final Log log = LogFactory.getLog(CertPolicyExpressionCache.class);
+	
+	/**
+	 * Default maximum number of cached policy expressions.
+	 */
+	public static final long DEFAULT_MAX_POLICIES = 1000L;
+	
+	private final Cache<Long, CompiledPolicy> cache;
+	
+	private final LongAdder hits = new LongAdder();
+	
+	private final LongAdder misses = new LongAdder();
+	
+	private final LongAdder compileCount = new LongAdder();
+	
+	private final LongAdder compileErrors = new LongAdder();
+	
+	private final LongAdder compileTime = new LongAdder();
+	
+	/**
+	 * Creates a cache with the default maximum size.
+	 */
+	public CertPolicyExpressionCache()
+	{
+		this(DEFAULT_MAX_POLICIES);
+	}
+	
+	/**
+	 * Creates a cache.
+	 * @param maxPolicies The maximum number of cached policy expressions.
+	 */
+	public CertPolicyExpressionCache(long maxPolicies)
+	{
+		if (maxPolicies <= 0)
+			throw new IllegalArgumentException("Max policies must be greater than 0");
+		
+		cache = Caffeine.newBuilder()
+				.maximumSize(maxPolicies)
+				.build();
+	}
+	
+	/**
+	 * Gets the compiled expression of a policy, compiling it if it is not cached or was compiled from a different version.
+	 * @param policy The certificate policy.
+	 * @return The compiled policy expression.
+	 * @throws PolicyProcessException Thrown if the policy data cannot be compiled in the policy's lexicon.
+	 */
+	public PolicyExpression getExpression(CertPolicy policy) throws PolicyProcessException
+	{
+		final long version = getVersion(policy);
+		
+		final CompiledPolicy cached = cache.getIfPresent(policy.getId());
+		if (cached != null && cached.version == version)
+		{
+			hits.increment();
+			return cached.expression;
+		}
+		
+		try
+		{
+			return cache.asMap().compute(policy.getId(), (id, current) -> 
+			{
+				// another thread may have compiled this version while we were waiting
+				if (current != null && current.version == version)
+				{
+					hits.increment();
+					return current;
+				}
+				
+				misses.increment();
+				return new CompiledPolicy(version, compile(policy));
+			}).expression;
+		}
+		catch (CompileException e)
+		{
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Removes a policy from the cache.
+	 * @param policyId The id of the policy.
+	 */
+	public void invalidate(long policyId)
+	{
+		cache.invalidate(policyId);
+	}
+	
+	/**
+	 * Removes all policies from the cache.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+	
+	/**
+	 * Gets the approximate number of cached policy expressions.
+	 * @return The approximate number of cached policy expressions.
+	 */
+	public long size()
+	{
+		return cache.estimatedSize();
+	}
+	
+	/**
+	 * Gets the number of requests served from the cache.
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+	
+	/**
+	 * Gets the number of requests that required a compilation.
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+	
+	/**
+	 * Gets the number of policy compilations, including failed compilations.
+	 * @return The number of compilations.
+	 */
+	public long getCompileCount()
+	{
+		return compileCount.sum();
+	}
+	
+	/**
+	 * Gets the number of compilations that failed.
+	 * @return The number of failed compilations.
+	 */
+	public long getCompileErrorCount()
+	{
+		return compileErrors.sum();
+	}
+	
+	/**
+	 * Gets the total time spent compiling policies.
+	 * @param unit The time unit of the result.
+	 * @return The total compile time.
+	 */
+	public double getTotalCompileTime(TimeUnit unit)
+	{
+		return (double)compileTime.sum() / unit.toNanos(1);
+	}
+	
+	protected PolicyExpression compile(CertPolicy policy)
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			final PolicyExpression expression = 
+					PolicyLexiconParserFactory.getInstance(policy.getLexicon()).parse(new ByteArrayInputStream(policy.getPolicyData()));
+			
+			log.debug("Compiled policy " + policy.getPolicyName() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+			
+			return expression;
+		}
+		catch (PolicyProcessException e)
+		{
+			compileErrors.increment();
+			throw new CompileException(e);
+		}
+		finally
+		{
+			compileCount.increment();
+			compileTime.add(System.nanoTime() - start);
+		}
+	}
+	
+	protected static long getVersion(CertPolicy policy)
+	{
+		return policy.getVersion();
+	}
+	
+	private static class CompiledPolicy
+	{
+		final long version;
+		
+		final PolicyExpression expression;
+		
+		CompiledPolicy(long version, PolicyExpression expression)
+		{
+			this.version = version;
+			this.expression = expression;
+		}
+	}
+	
+	/*
+	 * Carries checked compile exceptions out of the cache's compute function.
+	 */
+	private static class CompileException extends RuntimeException
+	{
+		private static final long serialVersionUID = 4519839711434781092L;
+
+		CompileException(PolicyProcessException cause)
+		{
+			super(cause);
+		}
+		
+		@Override
+		public synchronized PolicyProcessException getCause()
+		{
+			return (PolicyProcessException)super.getCause();
+		}
+	}
+}
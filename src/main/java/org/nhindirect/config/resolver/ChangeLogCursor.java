@@ -0,0 +1,179 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.nhindirect.config.repository.ConfigChangeRepository;
+import org.nhindirect.config.store.ConfigChange;
+
+/**
+ * Reads the configuration change log of one entity type for an in-memory index that is kept current from the log.
+ * <p>
+ * Change log sequence numbers are assigned before a transaction commits, so a change can become visible after changes with higher
+ * sequence numbers.  Each read therefore goes back to the sequence position the cursor had {@link #DEFAULT_REREAD_WINDOW} ago and 
+ * passes on only the changes it did not pass on before.  Changes of transactions that take longer than the window to commit are 
+ * missed, so indexes kept current with a cursor must still be rebuilt from their table from time to time.
+ * <p>
+ * The cursor is not thread safe; callers read and reset it under their own lock.
+ * @since 6.0.1
+ */
+public class ChangeLogCursor
+{
+	/**
+	 * Default time in milliseconds that changes are re-read after later changes were seen.
+	 */
+	public static final long DEFAULT_REREAD_WINDOW = 60000L;
+	
+	/**
+	 * Maximum number of change log entries read per query.
+	 */
+	protected static final int CHANGE_BATCH_SIZE = 1000;
+	
+	protected final ConfigChangeRepository changeRepo;
+	
+	protected final Class<?> entityType;
+	
+	protected final long rereadWindow;
+	
+	private boolean positioned;
+	
+	private long lastSequence;
+	
+	private long rereadSequence;
+	
+	/*
+	 * Time and last sequence of each reset and read within the re-read window, oldest first
+	 */
+	private final Deque<long[]> sequenceHistory = new ArrayDeque<>();
+	
+	/*
+	 * Changes after the re-read position that were already passed on.
+	 */
+	private final Set<Long> readChanges = new HashSet<>();
+	
+	/**
+	 * Creates a cursor with the default re-read window.
+	 * @param changeRepo The configuration change log repository.
+	 * @param entityType The entity type to read changes of.
+	 */
+	public ChangeLogCursor(ConfigChangeRepository changeRepo, Class<?> entityType)
+	{
+		this(changeRepo, entityType, DEFAULT_REREAD_WINDOW);
+	}
+	
+	/**
+	 * Creates a cursor.
+	 * @param changeRepo The configuration change log repository.
+	 * @param entityType The entity type to read changes of.
+	 * @param rereadWindow The time in milliseconds that changes are re-read after later changes were seen.
+	 */
+	public ChangeLogCursor(ConfigChangeRepository changeRepo, Class<?> entityType, long rereadWindow)
+	{
+		if (rereadWindow < 0)
+			throw new IllegalArgumentException("Re-read window must not be negative");
+		
+		this.changeRepo = changeRepo;
+		this.entityType = entityType;
+		this.rereadWindow = rereadWindow;
+	}
+	
+	/**
+	 * Gets the latest sequence of the change log.  Read it before the index is rebuilt from its table and pass it to 
+	 * {@link #reset(long)} afterwards, so changes made while the table is read are read again.
+	 * @return The latest sequence of the change log.
+	 */
+	public long findLatestSequence()
+	{
+		return changeRepo.findLatestSequence();
+	}
+	
+	/**
+	 * Moves the cursor after a rebuild of the index.  The re-read position of earlier reads is kept, so changes that commit out 
+	 * of order while the table was read are still read.
+	 * @param sequence The latest sequence of the change log before the table was read.
+	 */
+	public void reset(long sequence)
+	{
+		if (!positioned)
+		{
+			rereadSequence = sequence;
+			positioned = true;
+		}
+		
+		lastSequence = Math.max(lastSequence, sequence);
+		sequenceHistory.addLast(new long[] {System.currentTimeMillis(), lastSequence});
+	}
+	
+	/**
+	 * Reads the changes that were not read before.
+	 * @param consumer Receives the changes in sequence order, in batches of at most {@link #CHANGE_BATCH_SIZE}.
+	 */
+	public void read(Consumer<List<ConfigChange>> consumer)
+	{
+		final long now = System.currentTimeMillis();
+		while (!sequenceHistory.isEmpty() && sequenceHistory.getFirst()[0] <= now - rereadWindow)
+			rereadSequence = sequenceHistory.removeFirst()[1];
+		
+		readChanges.removeIf(id -> id <= rereadSequence);
+		
+		long sequence = rereadSequence;
+		List<ConfigChange> changes;
+		do
+		{
+			changes = changeRepo.findChangesAfter(entityType, sequence, CHANGE_BATCH_SIZE);
+			
+			final List<ConfigChange> unread = new ArrayList<>(changes.size());
+			for (ConfigChange change : changes)
+				if (readChanges.add(change.getId()))
+					unread.add(change);
+			
+			if (!unread.isEmpty())
+				consumer.accept(unread);
+			
+			if (!changes.isEmpty())
+				sequence = changes.get(changes.size() - 1).getId();
+		}
+		while (changes.size() == CHANGE_BATCH_SIZE);
+		
+		lastSequence = Math.max(lastSequence, sequence);
+		sequenceHistory.addLast(new long[] {now, lastSequence});
+	}
+	
+	/**
+	 * Forgets the position of the cursor.  The next {@link #reset(long)} starts over.
+	 */
+	public void clear()
+	{
+		positioned = false;
+		lastSequence = 0;
+		rereadSequence = 0;
+		sequenceHistory.clear();
+		readChanges.clear();
+	}
+}
@@ -0,0 +1,323 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.repository.DNSRepository;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+/**
+ * Serves DNS records from an in-memory snapshot of the dnsrecord table.  The snapshot is keyed by lower case record name 
+ * and record type and holds pre-built dnsjava {@link Record} objects along with their canonical wire encoding, so 
+ * queries are answered with a hash lookup instead of a database query and a record rebuild.
+ * <p>
+ * The snapshot is immutable and is replaced as a whole when the table is reloaded, so readers never see a partially loaded 
+ * zone.  Records can be modified in place in the table, so the entire table is reloaded on every refresh.  Components 
+ * that modify DNS records can call {@link #reload()} to publish their changes without waiting for the next refresh.
+ * <p>
+ * Records and wire buffers returned by the index are shared between callers and must not be modified.
+ * @since 6.0.1
+ */
+public class DNSZoneIndex
+{
+	private static final Log log = LogFactory.getLog(DNSZoneIndex.class);
+	
+	/**
+	 * Default time in milliseconds between reloads of the index.
+	 */
+	public static final long DEFAULT_REFRESH_INTERVAL = 60000L;
+	
+	protected final DNSRepository dnsRepo;
+	
+	protected final long refreshInterval;
+	
+	private volatile ZoneSnapshot snapshot;
+	
+	private ScheduledExecutorService refreshExecutor;
+	
+	/**
+	 * Creates an index with the default refresh interval.
+	 * @param dnsRepo The repository used to load the index.
+	 */
+	public DNSZoneIndex(DNSRepository dnsRepo)
+	{
+		this(dnsRepo, DEFAULT_REFRESH_INTERVAL);
+	}
+	
+	/**
+	 * Creates an index.
+	 * @param dnsRepo The repository used to load the index.
+	 * @param refreshInterval The time in milliseconds between reloads of the index.
+	 */
+	public DNSZoneIndex(DNSRepository dnsRepo, long refreshInterval)
+	{
+		if (refreshInterval <= 0)
+			throw new IllegalArgumentException("Refresh interval must be greater than 0");
+		
+		this.dnsRepo = dnsRepo;
+		this.refreshInterval = refreshInterval;
+	}
+	
+	/**
+	 * Starts reloading the index in the background.  The index is loaded before this method returns.
+	 */
+	public synchronized void start()
+	{
+		if (refreshExecutor != null)
+			return;
+		
+		reload();
+		
+		refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "DNSZoneIndex-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refreshExecutor.scheduleWithFixedDelay(() -> 
+		{
+			try
+			{
+				reload();
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to reload DNS zone index: " + e.getMessage(), e);
+			}
+		}, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops reloading the index in the background.
+	 */
+	public synchronized void shutdown()
+	{
+		if (refreshExecutor != null)
+		{
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+	}
+	
+	/**
+	 * Gets the records for a name and type.
+	 * @param name The record name.  The name is not case sensitive and the trailing dot is optional.
+	 * @param type The record type such as {@link Type#A} or {@link Type#CERT}.  {@link Type#ANY} returns all records
+	 * for the name.
+	 * @return The matching records.  Returns an empty list if no records match.
+	 */
+	public List<ZoneRecord> find(String name, int type)
+	{
+		if (name == null)
+			return Collections.emptyList();
+		
+		final Map<Integer, List<ZoneRecord>> byType = getSnapshot().byName.get(toKey(name));
+		if (byType == null)
+			return Collections.emptyList();
+		
+		// records are also indexed under ANY, so ANY queries are a single lookup as well
+		final List<ZoneRecord> records = byType.get(type);
+		
+		return (records == null) ? Collections.emptyList() : records;
+	}
+	
+	/**
+	 * Gets the records for a name and type.
+	 * @param name The record name.
+	 * @param type The record type.
+	 * @return The matching records.  Returns an empty list if no records match.
+	 */
+	public List<ZoneRecord> find(Name name, int type)
+	{
+		if (name == null)
+			return Collections.emptyList();
+		
+		return find(name.toString(), type);
+	}
+	
+	/**
+	 * Gets the number of records in the index.
+	 * @return The number of records in the index.
+	 */
+	public int size()
+	{
+		return getSnapshot().size;
+	}
+	
+	/**
+	 * Reloads the entire dnsrecord table and replaces the current snapshot.  Records that cannot be converted to a 
+	 * dnsjava record are logged and left out of the snapshot.
+	 */
+	public synchronized void reload()
+	{
+		final long loadTime = System.currentTimeMillis();
+		
+		final Map<String, Map<Integer, List<ZoneRecord>>> byName = new HashMap<>();
+		int size = 0;
+		
+		for (DNSRecord rec : dnsRepo.findAll())
+		{
+			final ZoneRecord zoneRecord;
+			try
+			{
+				zoneRecord = ZoneRecord.fromDNSRecord(rec);
+			}
+			catch (Exception e)
+			{
+				log.warn("Skipping DNS record " + rec.getId() + " (" + rec.getName() + "): " + e.getMessage());
+				continue;
+			}
+			
+			final Map<Integer, List<ZoneRecord>> byType = byName.computeIfAbsent(toKey(rec.getName()), key -> new HashMap<>());
+			byType.computeIfAbsent(rec.getType(), key -> new ArrayList<>()).add(zoneRecord);
+			byType.computeIfAbsent(Type.ANY, key -> new ArrayList<>()).add(zoneRecord);
+			++size;
+		}
+		
+		for (Map<Integer, List<ZoneRecord>> byType : byName.values())
+			byType.replaceAll((key, records) -> Collections.unmodifiableList(records));
+		
+		log.debug("Loaded " + size + " records into the DNS zone index.");
+		
+		snapshot = new ZoneSnapshot(byName, size, loadTime);
+	}
+	
+	protected ZoneSnapshot getSnapshot()
+	{
+		final ZoneSnapshot current = snapshot;
+		if (current == null)
+		{
+			synchronized (this)
+			{
+				if (snapshot == null)
+					reload();
+				
+				return snapshot;
+			}
+		}
+		
+		return current;
+	}
+	
+	protected static String toKey(String name)
+	{
+		final String key = NormalizationUtils.normalize(name);
+		
+		return key.endsWith(".") ? key : key + ".";
+	}
+	
+	/**
+	 * Immutable snapshot of the dnsrecord table.
+	 */
+	protected static class ZoneSnapshot
+	{
+		protected final Map<String, Map<Integer, List<ZoneRecord>>> byName;
+		protected final int size;
+		protected final long loadTime;
+		
+		protected ZoneSnapshot(Map<String, Map<Integer, List<ZoneRecord>>> byName, int size, long loadTime)
+		{
+			this.byName = byName;
+			this.size = size;
+			this.loadTime = loadTime;
+		}
+	}
+	
+	/**
+	 * A pre-built DNS record and its canonical wire encoding.
+	 */
+	public static class ZoneRecord
+	{
+		private final long id;
+		private final Record record;
+		private final byte[] wire;
+		
+		protected ZoneRecord(long id, Record record)
+		{
+			this.id = id;
+			this.record = record;
+			this.wire = record.toWireCanonical();
+		}
+		
+		protected static ZoneRecord fromDNSRecord(DNSRecord rec) throws Exception
+		{
+			String name = rec.getName();
+			if (!name.endsWith("."))
+				name = name + ".";
+			
+			return new ZoneRecord(rec.getId(), Record.newRecord(Name.fromString(name), rec.getType(), rec.getDclass(), 
+					rec.getTtl(), rec.getData()));
+		}
+		
+		/**
+		 * Gets the id of the dnsrecord row that the record was built from.
+		 * @return The id of the dnsrecord row.
+		 */
+		public long getId()
+		{
+			return id;
+		}
+		
+		/**
+		 * Gets the dnsjava record.
+		 * @return The dnsjava record.
+		 */
+		public Record getRecord()
+		{
+			return record;
+		}
+		
+		/**
+		 * Gets a read only view of the canonical wire encoding of the record.  Each call returns a new view, so callers
+		 * can consume the buffer without affecting other callers.
+		 * @return A read only buffer containing the canonical wire encoding.
+		 */
+		public ByteBuffer getWire()
+		{
+			return ByteBuffer.wrap(wire).asReadOnlyBuffer();
+		}
+		
+		/**
+		 * Gets the length of the canonical wire encoding.
+		 * @return The length in bytes of the canonical wire encoding.
+		 */
+		public int getWireLength()
+		{
+			return wire.length;
+		}
+	}
+}
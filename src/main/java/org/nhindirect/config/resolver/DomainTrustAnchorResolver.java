@@ -0,0 +1,231 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.security.cert.X509Certificate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.repository.AnchorRepository;
+import org.nhindirect.config.repository.TrustBundleDomainReltnRepository;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.CertificateException;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.TrustBundleAnchor;
+import org.nhindirect.config.store.TrustBundleDomainReltn;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.TrustAnchorChangeListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Resolves the merged trust anchors of a domain.  On a cache miss the enabled anchors owned by the domain are loaded with one 
+ * query and the domain's trust bundles are loaded together with their anchors in a single fetch joined query, instead of walking 
+ * each bundle's lazily loaded anchors.  Owned anchors that are not {@link EntityStatus#ENABLED} are not trusted.
+ * <p>
+ * Results are cached per domain.  Entries are invalidated through the {@link TrustAnchorChangeListener} when an anchor, trust 
+ * bundle, bundle anchor, or bundle to domain relationship is changed through JPA.  A change to a trust bundle or its anchors 
+ * only invalidates the domains whose cached anchors were merged from that bundle.  Changes made outside of this JVM or through bulk
+ * queries are not seen, so entries also expire a fixed time after they are loaded.
+ * <p>
+ * The resolver registers itself for change notifications when it is created; call {@link #shutdown()} to unregister it.
+ * @since 6.0.1
+ */
+public class DomainTrustAnchorResolver
+{
+	private static final Log log = LogFactory.getLog(DomainTrustAnchorResolver.class);
+	
+	/**
+	 * Default maximum number of cached domains.
+	 */
+	public static final long DEFAULT_MAX_DOMAINS = 10000L;
+	
+	/**
+	 * Default time in milliseconds after which a cached domain is reloaded.
+	 */
+	public static final long DEFAULT_EXPIRE_AFTER_WRITE = 3600000L;
+	
+	protected final AnchorRepository anchorRepo;
+	
+	protected final TrustBundleDomainReltnRepository reltnRepo;
+	
+	private final Cache<String, DomainTrustAnchors> cache;
+	
+	private final TrustAnchorChangeListener.Observer observer;
+	
+	/**
+	 * Creates a resolver with the default cache size and expiration.
+	 * @param anchorRepo The anchor repository.
+	 * @param reltnRepo The trust bundle to domain relationship repository.
+	 */
+	public DomainTrustAnchorResolver(AnchorRepository anchorRepo, TrustBundleDomainReltnRepository reltnRepo)
+	{
+		this(anchorRepo, reltnRepo, DEFAULT_MAX_DOMAINS, DEFAULT_EXPIRE_AFTER_WRITE);
+	}
+	
+	/**
+	 * Creates a resolver.
+	 * @param anchorRepo The anchor repository.
+	 * @param reltnRepo The trust bundle to domain relationship repository.
+	 * @param maxDomains The maximum number of cached domains.
+	 * @param expireAfterWrite The time in milliseconds after which a cached domain is reloaded.
+	 */
+	public DomainTrustAnchorResolver(AnchorRepository anchorRepo, TrustBundleDomainReltnRepository reltnRepo, long maxDomains, long expireAfterWrite)
+	{
+		if (maxDomains <= 0 || expireAfterWrite <= 0)
+			throw new IllegalArgumentException("Max domains and expiration must be greater than 0");
+		
+		this.anchorRepo = anchorRepo;
+		this.reltnRepo = reltnRepo;
+		
+		cache = Caffeine.newBuilder()
+				.maximumSize(maxDomains)
+				.expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		
+		observer = new TrustAnchorChangeListener.Observer()
+		{
+			@Override
+			public void trustAnchorsChanged(String normalizedDomainName)
+			{
+				if (normalizedDomainName == null)
+					invalidateAll();
+				else
+					cache.invalidate(normalizedDomainName);
+			}
+			
+			@Override
+			public void trustBundleChanged(long trustBundleId)
+			{
+				cache.asMap().values().removeIf(anchors -> anchors.getTrustBundleIds().contains(trustBundleId));
+			}
+		};
+		TrustAnchorChangeListener.register(observer);
+	}
+	
+	/**
+	 * Stops receiving change notifications and clears the cache.
+	 */
+	public void shutdown()
+	{
+		TrustAnchorChangeListener.unregister(observer);
+		invalidateAll();
+	}
+	
+	/**
+	 * Gets the merged trust anchors of a domain.
+	 * @param domainName The domain name.  The name is not case sensitive.
+	 * @return The domain's anchors.  The anchor sets are empty if the domain does not have any anchors.
+	 */
+	public DomainTrustAnchors getAnchors(String domainName)
+	{
+		final String normalizedDomainName = NormalizationUtils.normalize(domainName);
+		
+		return cache.get(normalizedDomainName, this::load);
+	}
+	
+	/**
+	 * Removes a domain from the cache.
+	 * @param domainName The domain name.  The name is not case sensitive.
+	 */
+	public void invalidate(String domainName)
+	{
+		cache.invalidate(NormalizationUtils.normalize(domainName));
+	}
+	
+	/**
+	 * Removes all domains from the cache.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+	
+	/**
+	 * Gets the hit, miss, and eviction statistics of the cache.
+	 * @return The cache statistics.
+	 */
+	public CacheStats getStats()
+	{
+		return cache.stats();
+	}
+	
+	protected DomainTrustAnchors load(String normalizedDomainName)
+	{
+		final Map<String, X509Certificate> incoming = new LinkedHashMap<>();
+		final Map<String, X509Certificate> outgoing = new LinkedHashMap<>();
+		final Set<Long> trustBundleIds = new HashSet<>();
+		
+		for (Anchor anchor : anchorRepo.findByNormalizedOwnerAndStatus(normalizedDomainName, EntityStatus.ENABLED))
+		{
+			try
+			{
+				add(anchor.getThumbprint(), anchor.toCertificate(), anchor.isIncoming(), anchor.isOutgoing(), incoming, outgoing);
+			}
+			catch (CertificateException e)
+			{
+				log.warn("Skipping invalid anchor " + anchor.getId() + " of domain " + normalizedDomainName + ": " + e.getMessage());
+			}
+		}
+		
+		for (TrustBundleDomainReltn reltn : reltnRepo.findWithAnchorsByNormalizedDomainName(normalizedDomainName))
+		{
+			if (!reltn.isIncoming() && !reltn.isOutgoing())
+				continue;
+			
+			trustBundleIds.add(reltn.getTrustBundle().getId());
+			for (TrustBundleAnchor anchor : reltn.getTrustBundle().getTrustBundleAnchors())
+			{
+				try
+				{
+					add(anchor.getThumbprint(), anchor.toCertificate(), reltn.isIncoming(), reltn.isOutgoing(), incoming, outgoing);
+				}
+				catch (CertificateException e)
+				{
+					log.warn("Skipping invalid anchor " + anchor.getId() + " of trust bundle " + reltn.getTrustBundle().getBundleName() 
+							+ ": " + e.getMessage());
+				}
+			}
+		}
+		
+		log.debug("Loaded " + incoming.size() + " incoming and " + outgoing.size() + " outgoing anchors for domain " + normalizedDomainName);
+		
+		return new DomainTrustAnchors(normalizedDomainName, incoming, outgoing, trustBundleIds);
+	}
+	
+	private static void add(String thumbprint, X509Certificate cert, boolean isIncoming, boolean isOutgoing, 
+			Map<String, X509Certificate> incoming, Map<String, X509Certificate> outgoing)
+	{
+		if (isIncoming)
+			incoming.putIfAbsent(thumbprint, cert);
+		if (isOutgoing)
+			outgoing.putIfAbsent(thumbprint, cert);
+	}
+}
@@ -0,0 +1,125 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.resolver;
+
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of the incoming and outgoing trust anchors of a domain, merged from the anchors owned by the domain and the
+ * anchors of the trust bundles associated with it.  Each anchor appears at most once per direction.
+ * @since 6.0.1
+ */
+public class DomainTrustAnchors
+{
+	private final String domainName;
+	
+	private final Map<String, X509Certificate> incoming;
+	
+	private final Map<String, X509Certificate> outgoing;
+	
+	private final Set<Long> trustBundleIds;
+	
+	/**
+	 * Constructor.
+	 * @param domainName The lower case domain name.
+	 * @param incoming The incoming anchors keyed by thumbprint.
+	 * @param outgoing The outgoing anchors keyed by thumbprint.
+	 */
+	public DomainTrustAnchors(String domainName, Map<String, X509Certificate> incoming, Map<String, X509Certificate> outgoing)
+	{
+		this(domainName, incoming, outgoing, Collections.emptySet());
+	}
+	
+	/**
+	 * Constructor.
+	 * @param domainName The lower case domain name.
+	 * @param incoming The incoming anchors keyed by thumbprint.
+	 * @param outgoing The outgoing anchors keyed by thumbprint.
+	 * @param trustBundleIds The ids of the trust bundles the anchors were merged from.
+	 */
+	public DomainTrustAnchors(String domainName, Map<String, X509Certificate> incoming, Map<String, X509Certificate> outgoing, 
+			Set<Long> trustBundleIds)
+	{
+		this.domainName = domainName;
+		this.incoming = Collections.unmodifiableMap(incoming);
+		this.outgoing = Collections.unmodifiableMap(outgoing);
+		this.trustBundleIds = Collections.unmodifiableSet(trustBundleIds);
+	}
+	
+	/**
+	 * Gets the lower case domain name.
+	 * @return The lower case domain name.
+	 */
+	public String getDomainName()
+	{
+		return domainName;
+	}
+	
+	/**
+	 * Gets the anchors used to validate incoming messages.
+	 * @return The incoming anchors.
+	 */
+	public Collection<X509Certificate> getIncoming()
+	{
+		return incoming.values();
+	}
+	
+	/**
+	 * Gets the anchors used to validate outgoing messages.
+	 * @return The outgoing anchors.
+	 */
+	public Collection<X509Certificate> getOutgoing()
+	{
+		return outgoing.values();
+	}
+	
+	/**
+	 * Gets the incoming anchors keyed by thumbprint.
+	 * @return The incoming anchors keyed by thumbprint.
+	 */
+	public Map<String, X509Certificate> getIncomingByThumbprint()
+	{
+		return incoming;
+	}
+	
+	/**
+	 * Gets the outgoing anchors keyed by thumbprint.
+	 * @return The outgoing anchors keyed by thumbprint.
+	 */
+	public Map<String, X509Certificate> getOutgoingByThumbprint()
+	{
+		return outgoing;
+	}
+	
+	/**
+	 * Gets the ids of the trust bundles the anchors were merged from.
+	 * @return The trust bundle ids.
+	 */
+	public Set<Long> getTrustBundleIds()
+	{
+		return trustBundleIds;
+	}
+}
@@ -30,25 +30,37 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+
 @Entity
-@Table(name = "address")
+@Table(name = "address", indexes={@Index(columnList="normalizedEmailAddress", name="IDX_RI_ADDRESS_NORMALIZEDEMAILADDRESS", unique=false),
+		@Index(columnList="domainId,id", name="IDX_RI_ADDRESS_DOMAINID_ID", unique=false)})
 /**
  * The JPA Address class
  */
 public class Address {
 
     private String emailAddress;
+    private String normalizedEmailAddress;
 
     private Long id;
+    private long version;
 
     private Domain domain;
 
@@ -147,6 +159,39 @@ public class Address {
         emailAddress = anEmail;
     }
 
+    /**
+     * Gets the lower case form of the email address that is used for case insensitive lookups.  The value is
+     * maintained automatically when the address is persisted or updated.
+     * 
+     * @return The lower case form of the email address.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedEmailAddress", length=400)
+    @XmlTransient
+    public String getNormalizedEmailAddress() {
+        return normalizedEmailAddress;
+    }
+
+    /**
+     * Sets the lower case form of the email address.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedEmailAddress The lower case form of the email address.
+     * @since 6.0.1
+     */
+    protected void setNormalizedEmailAddress(String normalizedEmailAddress) {
+        this.normalizedEmailAddress = normalizedEmailAddress;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns() {
+        normalizedEmailAddress = NormalizationUtils.normalize(emailAddress);
+    }
+
     /**
      * Get the value of id.
      * 
@@ -154,7 +199,9 @@ public class Address {
      */
     @Column(name = "id", nullable = false)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+    @GenericGenerator(name = "address_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "address_seq"))
     @XmlAttribute
     public Long getId() {
         if (id == null) {
@@ -173,6 +220,31 @@ public class Address {
         this.id = id;
     }
 
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @XmlAttribute
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Get the value of domain.
      * 
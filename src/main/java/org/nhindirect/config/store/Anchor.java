@@ -21,36 +21,64 @@ THE POSSIBILITY OF SUCH DAMAGE.
 
 package org.nhindirect.config.store;
 
-import java.io.ByteArrayInputStream;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Calendar;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.nhindirect.common.cert.Thumbprint;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+import org.nhindirect.config.store.util.TrustAnchorChangeListener;
+import org.nhindirect.config.store.util.X509CertificateCache;
 
 @Entity
-@Table(name = "anchor")
+@EntityListeners(TrustAnchorChangeListener.class)
+@Table(name = "anchor", indexes=@Index(columnList="normalizedOwner,id", name="IDX_RI_ANCHOR_NORMALIZEDOWNER_ID", unique=false))
+@Access(AccessType.PROPERTY)
 /**
  * The JPA Domain class
  */
 public class Anchor {
 
     private String owner;
+    private String normalizedOwner;
     private String thumbprint;
     private long certificateId;
+    
+    /*
+     * Mapped to the field so that loading an entity does not decode the certificate.  The column is only 
+     * fetched lazily when the classes are bytecode enhanced (see the lazy-lob build profile).
+     */
+    @Access(AccessType.FIELD)
+    @Column(name = "certificateData", length=4096)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] certificateData;
+    
     private long id;
+    private long version;
     private Calendar createTime;
     private Calendar validStartDate;
     private Calendar validEndDate;
@@ -78,6 +106,38 @@ public class Anchor {
         this.owner = owner;
     }
 
+    /**
+     * Gets the lower case form of the owner that is used for case insensitive lookups.  The value is
+     * maintained automatically when the anchor is persisted or updated.
+     * 
+     * @return The lower case form of the owner.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedOwner")
+    public String getNormalizedOwner() {
+        return normalizedOwner;
+    }
+
+    /**
+     * Sets the lower case form of the owner.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedOwner The lower case form of the owner.
+     * @since 6.0.1
+     */
+    protected void setNormalizedOwner(String normalizedOwner) {
+        this.normalizedOwner = normalizedOwner;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns() {
+        normalizedOwner = NormalizationUtils.normalize(owner);
+    }
+
     /**
      * Get the value of thumbprint.
      * 
@@ -103,8 +163,7 @@ public class Anchor {
      * 
      * @return the value of certificateData.
      */
-    @Column(name = "certificateData", length=4096)
-    @Lob
+    @Transient
     public byte[] getData() {
         return certificateData;
     }
@@ -132,7 +191,9 @@ public class Anchor {
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anchor_seq")
+    @GenericGenerator(name = "anchor_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "anchor_seq"))
     public long getId() {
         return id;
     }
@@ -147,6 +208,30 @@ public class Anchor {
         this.id = id;
     }
 
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Get the value of createTime.
      * 
@@ -290,10 +375,8 @@ public class Anchor {
         X509Certificate cert = null;
         try {
             validate();
-            ByteArrayInputStream bais = new ByteArrayInputStream(certificateData);
-            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
+            cert = X509CertificateCache.getInstance().getCertificate(certificateData);
             setThumbprint(Thumbprint.toThumbprint(cert).toString());
-            bais.close();
         } catch (Exception e) {
             setData(Certificate.NULL_CERT);
             throw new CertificateException("Data cannot be converted to a valid X.509 Certificate", e);
@@ -306,9 +389,7 @@ public class Anchor {
         X509Certificate cert = null;
         try {
             validate();
-            ByteArrayInputStream bais = new ByteArrayInputStream(certificateData);
-            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
-            bais.close();
+            cert = X509CertificateCache.getInstance().getCertificate(certificateData);
         } catch (Exception e) {
             throw new CertificateException("Data cannot be converted to a valid X.509 Certificate", e);
         }
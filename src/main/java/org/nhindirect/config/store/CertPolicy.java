@@ -2,29 +2,59 @@ package org.nhindirect.config.store;
 
 import java.util.Calendar;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlAttribute;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 import org.nhindirect.policy.PolicyLexicon;
 
 @Entity
-@Table(name = "certpolicy", indexes=@Index(columnList="policyName", unique=true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-certpolicy")
+@Table(name = "certpolicy", indexes={@Index(columnList="policyName", unique=true),
+		@Index(columnList="normalizedPolicyName", name="IDX_RI_CERTPOLICY_NORMALIZEDPOLICYNAME", unique=false)})
+@Access(AccessType.PROPERTY)
 public class CertPolicy 
 {
 	private long id;
+	private long version;
 	private String policyName;
+	private String normalizedPolicyName;
 	private PolicyLexicon lexicon;
+	
+    /*
+     * The column is only fetched lazily when the classes are bytecode enhanced (see the lazy-lob build profile).
+     */
+    @Access(AccessType.FIELD)
+    @Column(name = "data", nullable = false, length=204800)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
 	private byte[] policyData;
+	
     private Calendar createTime;  	
 	
 	public CertPolicy()
@@ -39,7 +69,9 @@ public class CertPolicy
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certpolicy_seq")
+    @GenericGenerator(name = "certpolicy_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "certpolicy_seq"))
     public long getId() 
     {
         return id;
@@ -55,6 +87,32 @@ public class CertPolicy
     {
         this.id = id;
     } 
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
     
     @Enumerated
     @Column(name = "lexicon", nullable = false)
@@ -89,9 +147,43 @@ public class CertPolicy
     {
     	this.policyName = policyName;
     }
+
+    /**
+     * Gets the lower case form of the policy name that is used for case insensitive lookups.  The value is
+     * maintained automatically when the policy is persisted or updated.
+     * 
+     * @return The lower case form of the policy name.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedPolicyName")
+    public String getNormalizedPolicyName()
+    {
+    	return normalizedPolicyName;
+    }
+
+    /**
+     * Sets the lower case form of the policy name.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedPolicyName The lower case form of the policy name.
+     * @since 6.0.1
+     */
+    protected void setNormalizedPolicyName(String normalizedPolicyName)
+    {
+    	this.normalizedPolicyName = normalizedPolicyName;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns()
+    {
+    	normalizedPolicyName = NormalizationUtils.normalize(policyName);
+    }
     
-    @Column(name = "data", nullable = false, length=204800)
-    @Lob
+    @Transient
     public byte[] getPolicyData()
     {
     	return policyData;
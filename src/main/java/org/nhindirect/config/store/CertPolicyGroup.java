@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -12,17 +13,32 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 
 
 @Entity
-@Table(name = "certpolicygroup", indexes=@Index(columnList="policyGroupName", unique=true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-certpolicygroup")
+@Table(name = "certpolicygroup", indexes={@Index(columnList="policyGroupName", unique=true),
+		@Index(columnList="normalizedPolicyGroupName", name="IDX_RI_CERTPOLICYGROUP_NORMALIZEDPOLICYGROUPNAME", unique=false)})
 public class CertPolicyGroup 
 {
 	private long id;
+	private long version;
 	private String policyGroupName;
+	private String normalizedPolicyGroupName;
 	private Collection<CertPolicyGroupReltn> policies;
     private Calendar createTime;  	
 	
@@ -40,7 +56,9 @@ public class CertPolicyGroup
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certpolicygroup_seq")
+    @GenericGenerator(name = "certpolicygroup_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "certpolicygroup_seq"))
     public long getId() 
     {
         return id;
@@ -56,6 +74,32 @@ public class CertPolicyGroup
     {
         this.id = id;
     } 
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
     
     /**
      * Get the value of policyGroupName.
@@ -77,8 +121,44 @@ public class CertPolicyGroup
     {
     	this.policyGroupName = policyGroupName;
     }
+
+    /**
+     * Gets the lower case form of the policy group name that is used for case insensitive lookups.  The value is
+     * maintained automatically when the policy group is persisted or updated.
+     * 
+     * @return The lower case form of the policy group name.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedPolicyGroupName")
+    public String getNormalizedPolicyGroupName()
+    {
+    	return normalizedPolicyGroupName;
+    }
+
+    /**
+     * Sets the lower case form of the policy group name.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedPolicyGroupName The lower case form of the policy group name.
+     * @since 6.0.1
+     */
+    protected void setNormalizedPolicyGroupName(String normalizedPolicyGroupName)
+    {
+    	this.normalizedPolicyGroupName = normalizedPolicyGroupName;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns()
+    {
+    	normalizedPolicyGroupName = NormalizationUtils.normalize(policyGroupName);
+    }
     
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "certPolicyGroup")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-certpolicygroup-reltns")
     public Collection<CertPolicyGroupReltn> getCertPolicyGroupReltn() 
     {
 
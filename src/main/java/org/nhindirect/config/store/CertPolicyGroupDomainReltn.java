@@ -6,15 +6,23 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 
 @Entity
-@Table(name = "certpolicygroupdomainreltn")
+@Table(name = "certpolicygroupdomainreltn", indexes={@Index(columnList="domain_id", name="IDX_RI_CERTPOLICYGROUPDOMAINRELTN_DOMAINID", unique=false),
+		@Index(columnList="policy_group_id", name="IDX_RI_CERTPOLICYGROUPDOMAINRELTN_POLICYGROUPID", unique=false)})
 public class CertPolicyGroupDomainReltn 
 {
 	private long id;
+	private long version;
 	
 	private Domain domain;
 	
@@ -32,7 +40,9 @@ public class CertPolicyGroupDomainReltn
      */
     @Column(name = "id", nullable = false)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certpolicygroupdomainreltn_seq")
+    @GenericGenerator(name = "certpolicygroupdomainreltn_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "certpolicygroupdomainreltn_seq"))
     public long getId() 
     {
         return id;
@@ -48,6 +58,32 @@ public class CertPolicyGroupDomainReltn
    {
        this.id = id;
    }   
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
    
    /**
     * Gets the value of the policy group.
@@ -1,5 +1,6 @@
 package org.nhindirect.config.store;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
@@ -7,17 +8,29 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+
 @Entity
-@Table(name = "certpolicygroupreltn")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-certpolicygroupreltn")
+@Table(name = "certpolicygroupreltn", indexes={@Index(columnList="certPolicyGroupId", name="IDX_RI_CERTPOLICYGROUPRELTN_POLICYGROUPID", unique=false),
+		@Index(columnList="certPolicyId", name="IDX_RI_CERTPOLICYGROUPRELTN_POLICYID", unique=false)})
 public class CertPolicyGroupReltn 
 {
 	private long id;
+	private long version;
 	private CertPolicyGroup policyGroup;
 	private CertPolicy policy;
 	private CertPolicyUse policyUse;
@@ -36,7 +49,9 @@ public class CertPolicyGroupReltn
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certpolicygroupreltn_seq")
+    @GenericGenerator(name = "certpolicygroupreltn_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "certpolicygroupreltn_seq"))
     public long getId() 
     {
         return id;
@@ -52,6 +67,32 @@ public class CertPolicyGroupReltn
     {
         this.id = id;
     } 
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
     
     @ManyToOne(optional = false, fetch = FetchType.EAGER)
     @JoinColumn(name = "certPolicyGroupId")
@@ -26,29 +26,43 @@ import java.net.URL;
 import java.security.Key;
 import java.security.KeyStore;
 import java.security.PrivateKey;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Calendar;
 import java.util.Enumeration;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.nhindirect.common.cert.Thumbprint;
 import org.nhindirect.common.crypto.CryptoExtensions;
 import org.nhindirect.config.model.utils.CertUtils;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+import org.nhindirect.config.store.util.X509CertificateCache;
 
 @Entity
-@Table(name = "certificate",   indexes={@Index(columnList="thumbprint", name="IDX_RI_CERTIFICATE_THUMBPRINT", unique=false)})
+@Table(name = "certificate",   indexes={@Index(columnList="thumbprint", name="IDX_RI_CERTIFICATE_THUMBPRINT", unique=false),
+		@Index(columnList="normalizedOwner,id", name="IDX_RI_CERTIFICATE_NORMALIZEDOWNER_ID", unique=false)})
+@Access(AccessType.PROPERTY)
 /**
  * The JPA Certificate class
  */
@@ -64,8 +78,21 @@ public class Certificate
     public static final byte[] NULL_CERT = new byte[] {};
 
     private String owner;
+    private String normalizedOwner;
     private String thumbprint;
     private long id = 0L;
+    private long version;
+    
+    /*
+     * The data column is mapped to the field so that loading an entity does not go through setData().  The thumbprint and
+     * private key flag are already stored with the entity, so the data only needs to be decoded when it is explicitly set 
+     * or when the credential is requested.  The column is only fetched lazily when the classes are bytecode enhanced
+     * (see the lazy-lob build profile).
+     */
+    @Access(AccessType.FIELD)
+    @Column(name = "certificateData",  length=8192)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] data;
     private Calendar createTime;
     private Calendar validStartDate;
@@ -98,19 +125,50 @@ public class Certificate
         this.owner = owner;
     }
 
+    /**
+     * Gets the lower case form of the owner that is used for case insensitive lookups.  The value is
+     * maintained automatically when the certificate is persisted or updated.
+     * 
+     * @return The lower case form of the owner.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedOwner")
+    public String getNormalizedOwner() {
+        return normalizedOwner;
+    }
+
+    /**
+     * Sets the lower case form of the owner.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedOwner The lower case form of the owner.
+     * @since 6.0.1
+     */
+    protected void setNormalizedOwner(String normalizedOwner) {
+        this.normalizedOwner = normalizedOwner;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns() {
+        normalizedOwner = NormalizationUtils.normalize(owner);
+    }
+
     /**
      * Get the value of data.
      * 
      * @return the value of data.
      */
-    @Column(name = "certificateData",  length=8192)
-    @Lob
+    @Transient
     public byte[] getData() {
         return data;
     }
 
     /**
-     * Set the value of data.
+     * Set the value of data.  The data is decoded to validate it and to set the thumbprint and private key flag.
      * 
      * @param data
      *            The value of data.
@@ -173,7 +231,9 @@ public class Certificate
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_seq")
+    @GenericGenerator(name = "certificate_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "certificate_seq"))
     public long getId() {
         return id;
     }
@@ -188,6 +248,30 @@ public class Certificate
         this.id = id;
     }
 
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Get the value of createTime.
      * 
@@ -369,47 +453,22 @@ public class Certificate
         try 
         {
             validate();
-            ByteArrayInputStream bais = new ByteArrayInputStream(data);
+            
+            // data that has already been decoded as a plain X509 certificate can't be a PKCS12 data stream
+            final X509CertificateCache certCache = X509CertificateCache.getInstance();
+            final X509Certificate cachedCert = certCache.getCachedCertificate(data);
+            if (cachedCert != null)
+            	return new CertContainer(cachedCert, null);
             
             // lets try this a as a PKCS12 data stream first
-            try
-            {
-            	KeyStore localKeyStore = KeyStore.getInstance("PKCS12", CryptoExtensions.getJCEProviderName());
-            	
-            	localKeyStore.load(bais, keyStorePass);
-            	Enumeration<String> aliases = localKeyStore.aliases();
-
-
-        		// we are really expecting only one alias 
-        		if (aliases.hasMoreElements())        			
-        		{
-        			String alias = aliases.nextElement();
-        			X509Certificate cert = (X509Certificate)localKeyStore.getCertificate(alias);
-        			
-    				// check if there is private key
-    				Key key = localKeyStore.getKey(alias, privateKeyPass);
-    				if (key != null && key instanceof PrivateKey) 
-    				{
-    					certContainer = new CertContainer(cert, key);
-    					
-    				}
-        		}
-            }
-            catch (Exception e)
-            {
-            	// must not be a PKCS12 stream, go on to next step
-            }
+            certContainer = certCache.getCredential(data, keyStorePass, privateKeyPass, () -> loadPkcs12(keyStorePass, privateKeyPass));
    
             if (certContainer == null)            	
             {
             	//try X509 certificate factory next       
-                bais.reset();
-                bais = new ByteArrayInputStream(data);
-
-            	X509Certificate cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
+            	X509Certificate cert = certCache.getCertificate(data);
             	certContainer = new CertContainer(cert, null);
             }
-            bais.close();
         } 
         catch (Exception e) 
         {
@@ -419,6 +478,39 @@ public class Certificate
         return certContainer;
     }
     
+    /*
+     * Returns null if the data is not a PKCS12 data stream or does not hold a private key.
+     */
+    private CertContainer loadPkcs12(char[] keyStorePass, char[] privateKeyPass)
+    {
+        try (ByteArrayInputStream bais = new ByteArrayInputStream(data))
+        {
+        	KeyStore localKeyStore = KeyStore.getInstance("PKCS12", CryptoExtensions.getJCEProviderName());
+        	
+        	localKeyStore.load(bais, keyStorePass);
+        	Enumeration<String> aliases = localKeyStore.aliases();
+
+
+    		// we are really expecting only one alias 
+    		if (aliases.hasMoreElements())        			
+    		{
+    			String alias = aliases.nextElement();
+    			X509Certificate cert = (X509Certificate)localKeyStore.getCertificate(alias);
+    			
+				// check if there is private key
+				Key key = localKeyStore.getKey(alias, privateKeyPass);
+				if (key != null && key instanceof PrivateKey) 
+					return new CertContainer(cert, key);
+    		}
+        }
+        catch (Exception e)
+        {
+        	// must not be a PKCS12 stream, go on to next step
+        }
+        
+        return null;
+    }
+    
     /**
      * @deprecated
      * @see org.nhindirect.config.model.utils.CertUtils.CertContainer
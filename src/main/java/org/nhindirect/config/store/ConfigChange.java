@@ -0,0 +1,187 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store;
+
+import java.util.Calendar;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * JPA entity object for an entry of the configuration change log.  An entry is written in the same transaction as every insert, 
+ * update, and delete of the other config-store entities, so consumers can ask for the changes after the last sequence number they
+ * processed instead of re-reading whole tables.
+ * <p>
+ * The sequence number is the id of the entry.  Ids are taken from the configchange_seq sequence one at a time (no pooling) when
+ * the transaction is about to commit, so they increase across all nodes in close to commit order.  Two transactions committing 
+ * at the same time may still become visible out of sequence order, so consumers should re-read a short window behind the last
+ * sequence they processed.  Bulk JPQL updates and deletes bypass the log.
+ * @since 6.0.1
+ */
+@Entity
+@Table(name = "configchange", indexes={@Index(columnList="entityType, id", name="IDX_RI_CONFIGCHANGE_ENTITYTYPE", unique=false)})
+public class ConfigChange 
+{
+	private long id;
+	private String entityType;
+	private long entityId;
+	private ConfigChangeType changeType;
+	private Calendar changeTime;
+	
+	public ConfigChange()
+	{
+		
+	}
+	
+	/**
+	 * Constructor.
+	 * @param entityType The simple class name of the changed entity.
+	 * @param entityId The id of the changed entity.
+	 * @param changeType The kind of change.
+	 */
+	public ConfigChange(String entityType, long entityId, ConfigChangeType changeType)
+	{
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.changeType = changeType;
+		this.changeTime = Calendar.getInstance();
+	}
+	
+	/**
+	 * Gets the sequence number of the change.
+	 * 
+	 * @return The sequence number of the change.
+	 */
+	@Id
+	@Column(name = "id", nullable = false)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "configchange_seq")
+	@SequenceGenerator(name = "configchange_seq", sequenceName = "configchange_seq", allocationSize = 1)
+	public long getId() 
+	{
+		return id;
+	}
+	
+	/**
+	 * Sets the sequence number of the change.
+	 * 
+	 * @param id The sequence number of the change.
+	 */
+	public void setId(long id) 
+	{
+		this.id = id;
+	}
+	
+	/**
+	 * Gets the simple class name of the changed entity, for example Domain or Certificate.
+	 * 
+	 * @return The simple class name of the changed entity.
+	 */
+	@Column(name = "entityType", length = 64, nullable = false)
+	public String getEntityType() 
+	{
+		return entityType;
+	}
+	
+	/**
+	 * Sets the simple class name of the changed entity.
+	 * 
+	 * @param entityType The simple class name of the changed entity.
+	 */
+	public void setEntityType(String entityType) 
+	{
+		this.entityType = entityType;
+	}
+	
+	/**
+	 * Gets the id of the changed entity.
+	 * 
+	 * @return The id of the changed entity.
+	 */
+	@Column(name = "entityId", nullable = false)
+	public long getEntityId() 
+	{
+		return entityId;
+	}
+	
+	/**
+	 * Sets the id of the changed entity.
+	 * 
+	 * @param entityId The id of the changed entity.
+	 */
+	public void setEntityId(long entityId) 
+	{
+		this.entityId = entityId;
+	}
+	
+	/**
+	 * Gets the kind of change.
+	 * 
+	 * @return The kind of change.
+	 */
+	@Enumerated
+	@Column(name = "changeType", nullable = false)
+	public ConfigChangeType getChangeType() 
+	{
+		return changeType;
+	}
+	
+	/**
+	 * Sets the kind of change.
+	 * 
+	 * @param changeType The kind of change.
+	 */
+	public void setChangeType(ConfigChangeType changeType) 
+	{
+		this.changeType = changeType;
+	}
+	
+	/**
+	 * Gets the time the change was recorded.
+	 * 
+	 * @return The time the change was recorded.
+	 */
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "changeTime", nullable = false)
+	public Calendar getChangeTime() 
+	{
+		return changeTime;
+	}
+	
+	/**
+	 * Sets the time the change was recorded.
+	 * 
+	 * @param changeTime The time the change was recorded.
+	 */
+	public void setChangeTime(Calendar changeTime) 
+	{
+		this.changeTime = changeTime;
+	}
+}
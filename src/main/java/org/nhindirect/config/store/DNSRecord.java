@@ -17,23 +17,38 @@ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
 package org.nhindirect.config.store;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Calendar;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 import org.bouncycastle.util.Arrays;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 
 @Entity
-@Table(name = "dnsrecord")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-dnsrecord")
+@Table(name = "dnsrecord", indexes={@Index(columnList="normalizedName,type", name="IDX_RI_DNSRECORD_NORMALIZEDNAME_TYPE", unique=false),
+		@Index(columnList="type,id", name="IDX_RI_DNSRECORD_TYPE_ID", unique=false)})
 /**
  * The JPA Domain class representing a DNS record.  This is a generic DNS record that can represent (in theory) any
  * DNS record type.
@@ -44,12 +59,15 @@ import org.nhindirect.config.store.util.DNSRecordUtils;
 public class DNSRecord 
 {
     private long id;
+    private long version;
 	private String name;
+	private String normalizedName;
 	private int type;
 	private int dclass;
 	private long ttl;
 	private byte[] data;
     private Calendar createTime;
+    private volatile byte[] wire;
     
     public DNSRecord()
     {
@@ -62,7 +80,9 @@ public class DNSRecord
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)	
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dnsrecord_seq")
+    @GenericGenerator(name = "dnsrecord_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "dnsrecord_seq"))
 	public long getId() 
 	{
 		return id;
@@ -77,6 +97,32 @@ public class DNSRecord
 		this.id = id;  
 	}
 
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
+
 	/**
 	 * Gets the name associated with this DNS entry.  The is generally the name that is used for lookup purposes.
 	 * @return The name associated with this DNS entry.
@@ -94,6 +140,42 @@ public class DNSRecord
 	public void setName(String name) 
 	{
 		this.name = name;
+		this.wire = null;
+	}
+
+	/**
+	 * Gets the lower case form of the name that is used for case insensitive lookups.  The value is
+	 * maintained automatically when the DNS record is persisted or updated.
+	 * 
+	 * @return The lower case form of the name.
+	 * @since 6.0.1
+	 */
+	@Column(name = "normalizedName")
+	public String getNormalizedName()
+	{
+		return normalizedName;
+	}
+
+	/**
+	 * Sets the lower case form of the name.  Used by the persistence provider when the entity is loaded.
+	 * 
+	 * @param normalizedName The lower case form of the name.
+	 * @since 6.0.1
+	 */
+	protected void setNormalizedName(String normalizedName)
+	{
+		this.normalizedName = normalizedName;
+	}
+
+	/**
+	 * Recomputes the normalized lookup columns from their source values before the entity is written.
+	 * @since 6.0.1
+	 */
+	@PrePersist
+	@PreUpdate
+	protected void updateNormalizedColumns()
+	{
+		normalizedName = NormalizationUtils.normalize(name);
 	}
 	
 	/**
@@ -113,6 +195,7 @@ public class DNSRecord
 	public void setType(int type) 
 	{
 		this.type = type;
+		this.wire = null;
 	}
 	
 	/**
@@ -132,6 +215,7 @@ public class DNSRecord
 	public void setDclass(int dclass) 
 	{
 		this.dclass = dclass;
+		this.wire = null;
 	}
 	
 	/**
@@ -151,6 +235,7 @@ public class DNSRecord
 	public void setTtl(long ttl) 
 	{
 		this.ttl = ttl;
+		this.wire = null;
 	}
 	
     /**
@@ -196,6 +281,28 @@ public class DNSRecord
 	public void setData(byte[] data) 
 	{
 		this.data = data;
+		this.wire = null;
+	}
+	
+	/**
+	 * Gets a read only view of the canonical wire transfer format of the record.  The encoding is created on first use and 
+	 * cached until the name, type, class, ttl, or rdata of the record is set, so serving the same record repeatedly does not
+	 * rebuild it.  Modifying the array returned by {@link #getData()} in place does not invalidate the cached encoding;
+	 * use {@link #setData(byte[])} instead.
+	 * @return A read only buffer containing the record in raw wire transfer format.  Each call returns a new view.
+	 * @throws IOException
+	 * @since 6.0.1
+	 */
+	public ByteBuffer toWireBuffer() throws IOException
+	{
+		byte[] encoded = wire;
+		if (encoded == null)
+		{
+			encoded = DNSRecordUtils.encodeWire(this);
+			wire = encoded;
+		}
+		
+		return ByteBuffer.wrap(encoded).asReadOnlyBuffer();
 	}
 	
 	/**
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
@@ -33,18 +34,34 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Column;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 
 
 @Entity
-@Table(name = "domain")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-domain")
+@Table(name = "domain", indexes=@Index(columnList="normalizedDomainName", name="IDX_RI_DOMAIN_NORMALIZEDDOMAINNAME", unique=false))
 /**
  * The JPA Domain class
  */
@@ -54,16 +71,19 @@ public class Domain {
 	private static long MAGIC_POSTMASTER_ID = -2;
 	
     private String domainName;
+    private String normalizedDomainName;
 
     private Calendar createTime;
 
     private Calendar updateTime;
 
     private Long postmasterAddressId;
+    private String storedPostmasterEmail;
 
     private Collection<Address> addresses;
 
     private Long id;
+    private long version;
 
     private EntityStatus status = EntityStatus.NEW;
 
@@ -93,7 +113,9 @@ public class Domain {
      */
     @Column(name = "id", nullable = false)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "domain_seq")
+    @GenericGenerator(name = "domain_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "domain_seq"))
     @XmlAttribute
     public Long getId() {
         if (id == null) {
@@ -112,6 +134,31 @@ public class Domain {
         id = anId;
     }
 
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @XmlAttribute
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Get the value of domainName.
      * 
@@ -184,6 +231,39 @@ public class Domain {
         domainName = aName;
     }
 
+    /**
+     * Gets the lower case form of the domain name that is used for case insensitive lookups.  The value is
+     * maintained automatically when the domain is persisted or updated.
+     * 
+     * @return The lower case form of the domain name.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedDomainName")
+    @XmlTransient
+    public String getNormalizedDomainName() {
+        return normalizedDomainName;
+    }
+
+    /**
+     * Sets the lower case form of the domain name.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedDomainName The lower case form of the domain name.
+     * @since 6.0.1
+     */
+    protected void setNormalizedDomainName(String normalizedDomainName) {
+        this.normalizedDomainName = normalizedDomainName;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns() {
+        normalizedDomainName = NormalizationUtils.normalize(domainName);
+    }
+
     /**
      * Set the value of createTime.
      * 
@@ -215,14 +295,41 @@ public class Domain {
         status = aStatus;
     }
 
+    /**
+     * Get the email address of the postmaster address as it was stored when the domain was loaded.  It is
+     * read with the domain so the postmaster can be resolved without loading the address collection.  The formula
+     * uses the column names of the default Spring Boot physical naming strategy.
+     * 
+     * @return the stored postmaster email address.
+     */
+    @Formula("(select a.emailaddress from address a where a.id = postmaster_address_id)")
+    protected String getStoredPostmasterEmail() {
+        return storedPostmasterEmail;
+    }
+
+    /**
+     * Set the value of storedPostmasterEmail.
+     * 
+     * @param email
+     *            The value of storedPostmasterEmail.
+     */
+    protected void setStoredPostmasterEmail(String email) {
+        storedPostmasterEmail = email;
+    }
+
     /**
      * If we have an email address id, then search through the collection of
-     * addresses to find an id match and return it.
+     * addresses to find an id match and return it.  If the addresses have not been
+     * loaded, the postmaster address read with the domain is returned instead.
      * 
      * @return the postmaster email address.
      */
     @Transient
     public String getPostMasterEmail() {
+        if (!Hibernate.isInitialized(addresses)) {
+            return (getPostmasterAddressId() != null) ? storedPostmasterEmail : null;
+        }
+        
         String result = null;
         // return the address that matched the ID
         if ((getAddresses().size() > 0) && (getPostmasterAddressId() != null)) {
@@ -244,11 +351,20 @@ public class Domain {
      *           0/Null   Not Null  Add to Address if not there, set Id<br>
      *           Not Null Not Null  if id.address = address then None, otherwise update id </p>
      * 
+     * Changing the postmaster to a different address requires the addresses to be loaded
+     * (see the DomainRepository findWithAddresses queries).
+     * 
      * @param email
      *            The postmaster email address.
      */
     public void setPostMasterEmail(String email) {
 
+        if (email != null && !Hibernate.isInitialized(addresses) && getPostmasterAddressId() != null
+                && email.equals(storedPostmasterEmail)) {
+            // already the postmaster; nothing to change and no need to load the addresses
+            return;
+        }
+        
         if (email == null) {
             if (getPostmasterAddressId() != null) {
                 setPostmasterAddressId(null);
@@ -280,12 +396,13 @@ public class Domain {
     }
 
     /**
-     * Get a colection of addresses.
+     * Get a colection of addresses.  The addresses are fetched lazily; use the DomainRepository findWithAddresses 
+     * queries to load domains and their addresses in a single query.
      * 
      * @return a collection of addresses.
      */
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER, mappedBy = "domain")
-    @XmlElement(name = "address")
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY, mappedBy = "domain")
+    @XmlTransient
     public Collection<Address> getAddresses() {
         if (addresses == null) {
             addresses = new ArrayList<Address>();
@@ -303,6 +420,28 @@ public class Domain {
         this.addresses = addresses;
     }
 
+    /**
+     * Get the addresses to marshal.  Addresses that have not been loaded are left out of the XML document 
+     * instead of being loaded outside of a transaction.
+     * 
+     * @return the loaded addresses, or null if the addresses have not been loaded.
+     */
+    @Transient
+    @XmlElement(name = "address")
+    protected Collection<Address> getMarshalledAddresses() {
+        return Hibernate.isInitialized(addresses) ? getAddresses() : null;
+    }
+
+    /**
+     * Set the addresses read from an XML document.
+     * 
+     * @param addresses
+     *            the value of addresses
+     */
+    protected void setMarshalledAddresses(Collection<Address> addresses) {
+        setAddresses(addresses);
+    }
+
     /**
      * Verify the Domain is valid.
      * 
@@ -328,8 +467,11 @@ public class Domain {
      */
     @Override
     public String toString() {
+    	// don't force the lazy address collection to load just to log the domain
+    	final String addressCount = Hibernate.isInitialized(addresses) ? String.valueOf(getAddresses().size()) : "not loaded";
+    	
         return "[ID: " + getId() + " | Domain: " + getDomainName() + " | Status: " + getStatus().toString()
-                + " | Addresses: " + getAddresses().size() + "]";
+                + " | Addresses: " + addressCount + "]";
     }
 
     @Override
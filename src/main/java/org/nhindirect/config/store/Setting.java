@@ -18,6 +18,7 @@ package org.nhindirect.config.store;
 
 import java.util.Calendar;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Index;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -25,12 +26,25 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
 
 @Entity
-@Table(name = "setting", indexes=@Index(columnList="name", unique=true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-setting")
+@Table(name = "setting", indexes={@Index(columnList="name", unique=true),
+		@Index(columnList="normalizedName", name="IDX_RI_SETTING_NORMALIZEDNAME", unique=false)})
 /**
  * The JPA settings class.  This tables holds various configuration settings such as how the configuration service should behave or settings
  * for a gateway.  This structure is made up of simple name value pairs. 
@@ -38,8 +52,10 @@ import javax.persistence.TemporalType;
 public class Setting 
 {
     private String name;
+    private String normalizedName;
     private String value;
     private long id;
+    private long version;
     private Calendar createTime;
     private Calendar updateTime;
     private EntityStatus status = EntityStatus.NEW;
@@ -63,6 +79,38 @@ public class Setting
     public void setName(String name) {
         this.name = name;
     }    
+
+    /**
+     * Gets the lower case form of the name that is used for case insensitive lookups.  The value is
+     * maintained automatically when the setting is persisted or updated.
+     * 
+     * @return The lower case form of the name.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedName")
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    /**
+     * Sets the lower case form of the name.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedName The lower case form of the name.
+     * @since 6.0.1
+     */
+    protected void setNormalizedName(String normalizedName) {
+        this.normalizedName = normalizedName;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns() {
+        normalizedName = NormalizationUtils.normalize(name);
+    }
     
     /**
      * Get the value of the setting.
@@ -91,7 +139,9 @@ public class Setting
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "setting_seq")
+    @GenericGenerator(name = "setting_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "setting_seq"))
     public long getId() {
         return id;
     }
@@ -105,6 +155,30 @@ public class Setting
     public void setId(long id) {
         this.id = id;
     }
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
     
     /**
      * Get the value of status.
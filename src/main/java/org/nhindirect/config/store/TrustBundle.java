@@ -21,16 +21,19 @@ THE POSSIBILITY OF SUCH DAMAGE.
 
 package org.nhindirect.config.store;
 
-import java.io.ByteArrayInputStream;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -39,9 +42,22 @@ import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.NormalizationUtils;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+import org.nhindirect.config.store.util.TrustAnchorChangeListener;
+import org.nhindirect.config.store.util.X509CertificateCache;
 
 /**
  * JPA entity object for a trust bundle
@@ -49,13 +65,29 @@ import javax.persistence.TemporalType;
  * @since 1.2
  */
 @Entity
-@Table(name = "trustbundle", indexes=@Index(columnList="bundleName", unique=true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-trustbundle")
+@EntityListeners(TrustAnchorChangeListener.class)
+@Table(name = "trustbundle", indexes={@Index(columnList="bundleName", unique=true),
+		@Index(columnList="normalizedBundleName", name="IDX_RI_TRUSTBUNDLE_NORMALIZEDBUNDLENAME", unique=false)})
+@Access(AccessType.PROPERTY)
 public class TrustBundle 
 {
 	private long id;
+	private long version;
 	private String bundleName;
+	private String normalizedBundleName;
 	private String bundleURL;
+	
+    /*
+     * The column is only fetched lazily when the classes are bytecode enhanced (see the lazy-lob build profile).
+     */
+    @Access(AccessType.FIELD)
+    @Column(name = "signingCertificateData", length=4096)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] signingCertificateData;
+    
     private Collection<TrustBundleAnchor> trustBundleAnchors;
     private int refreshInterval;
     private Calendar lastRefreshAttempt;
@@ -78,7 +110,9 @@ public class TrustBundle
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trustbundle_seq")
+    @GenericGenerator(name = "trustbundle_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "trustbundle_seq"))
     public long getId() 
     {
         return id;
@@ -94,6 +128,32 @@ public class TrustBundle
     {
         this.id = id;
     } 
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
     
 
     /**
@@ -117,6 +177,41 @@ public class TrustBundle
     {
     	this.bundleName = bundleName;
     }
+
+    /**
+     * Gets the lower case form of the bundle name that is used for case insensitive lookups.  The value is
+     * maintained automatically when the trust bundle is persisted or updated.
+     * 
+     * @return The lower case form of the bundle name.
+     * @since 6.0.1
+     */
+    @Column(name = "normalizedBundleName")
+    public String getNormalizedBundleName()
+    {
+    	return normalizedBundleName;
+    }
+
+    /**
+     * Sets the lower case form of the bundle name.  Used by the persistence provider when the entity is loaded.
+     * 
+     * @param normalizedBundleName The lower case form of the bundle name.
+     * @since 6.0.1
+     */
+    protected void setNormalizedBundleName(String normalizedBundleName)
+    {
+    	this.normalizedBundleName = normalizedBundleName;
+    }
+
+    /**
+     * Recomputes the normalized lookup columns from their source values before the entity is written.
+     * @since 6.0.1
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateNormalizedColumns()
+    {
+    	normalizedBundleName = NormalizationUtils.normalize(bundleName);
+    }
     
     /**
      * Gets the value of the bundle URL.  The URL specifies the location of the bundle
@@ -146,8 +241,7 @@ public class TrustBundle
      * 
      * @return the value of the signing certificate
      */
-    @Column(name = "signingCertificateData", length=4096)
-    @Lob
+    @Transient
     public byte[] getSigningCertificateData() 
     {
         return signingCertificateData;
@@ -287,6 +381,7 @@ public class TrustBundle
      * @return collection of trust anchors contained within the bundle
      */ 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY, mappedBy = "trustBundle")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-trustbundle-anchors")
     public Collection<TrustBundleAnchor> getTrustBundleAnchors() 
     {
         if (trustBundleAnchors == null) 
@@ -340,9 +435,7 @@ public class TrustBundle
         try 
         {
             validate();
-            ByteArrayInputStream bais = new ByteArrayInputStream(signingCertificateData);
-            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
-            bais.close();
+            cert = X509CertificateCache.getInstance().getCertificate(signingCertificateData);
         } 
         catch (Exception e) 
         {
@@ -21,27 +21,40 @@ THE POSSIBILITY OF SUCH DAMAGE.
 
 package org.nhindirect.config.store;
 
-import java.io.ByteArrayInputStream;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Calendar;
 import java.util.Locale;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.nhindirect.common.cert.Thumbprint;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+import org.nhindirect.config.store.util.TrustAnchorChangeListener;
+import org.nhindirect.config.store.util.X509CertificateCache;
 
 /**
  * JPA entity object for a trust bundle anchor
@@ -49,12 +62,27 @@ import org.nhindirect.common.cert.Thumbprint;
  * @since 1.2
  */
 @Entity
-@Table(name = "trustbundleanchor")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config-store-trustbundleanchor")
+@EntityListeners(TrustAnchorChangeListener.class)
+@Table(name = "trustbundleanchor", indexes=@Index(columnList="trustBundleId", name="IDX_RI_TRUSTBUNDLEANCHOR_TRUSTBUNDLEID", unique=false))
+@Access(AccessType.PROPERTY)
 public class TrustBundleAnchor 
 {
     private long id;
+    private long version;
     private TrustBundle trustBundle;
+    
+    /*
+     * Mapped to the field so that loading an entity does not decode the certificate.  The column is only 
+     * fetched lazily when the classes are bytecode enhanced (see the lazy-lob build profile).
+     */
+    @Access(AccessType.FIELD)
+    @Column(name = "anchorData", length=4096, nullable = false)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private byte[] anchorData;
+    
     private String thumbprint;
     private Calendar validStartDate;
     private Calendar validEndDate;
@@ -66,7 +94,9 @@ public class TrustBundleAnchor
      */
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trustbundleanchor_seq")
+    @GenericGenerator(name = "trustbundleanchor_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "trustbundleanchor_seq"))
     public long getId() 
     {
         return id;
@@ -82,6 +112,32 @@ public class TrustBundleAnchor
     {
         this.id = id;
     } 
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
     
     /**
      * Get the value of thumbprint.
@@ -135,8 +191,7 @@ public class TrustBundleAnchor
      * 
      * @return the value of anchorData Data.
      */
-    @Column(name = "anchorData", length=4096, nullable = false)
-    @Lob
+    @Transient
     public byte[] getData() 
     {
         return anchorData;
@@ -212,8 +267,7 @@ public class TrustBundleAnchor
         X509Certificate cert = null;
         try {
             validate();
-            final ByteArrayInputStream bais = new ByteArrayInputStream(anchorData);
-            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
+            cert = X509CertificateCache.getInstance().getCertificate(anchorData);
             setThumbprint(Thumbprint.toThumbprint(cert).toString());
             
             final Calendar calEndTime = Calendar.getInstance(Locale.getDefault());
@@ -223,7 +277,6 @@ public class TrustBundleAnchor
             
             this.setValidEndDate(calEndTime);
             this.setValidStartDate(calStartTime);
-            bais.close();
         } catch (Exception e) {
             setData(Certificate.NULL_CERT);
             throw new CertificateException("Data cannot be converted to a valid X.509 Certificate", e);
@@ -243,9 +296,7 @@ public class TrustBundleAnchor
         try 
         {
             validate();
-            final ByteArrayInputStream bais = new ByteArrayInputStream(anchorData);
-            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(bais);
-            bais.close();
+            cert = X509CertificateCache.getInstance().getCertificate(anchorData);
         } 
         catch (Exception e) 
         {
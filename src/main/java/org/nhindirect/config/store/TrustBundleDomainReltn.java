@@ -23,13 +23,21 @@ package org.nhindirect.config.store;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.nhindirect.config.store.util.PooledSequenceIdGenerator;
+import org.nhindirect.config.store.util.TrustAnchorChangeListener;
 
 /**
  * JPA entity object for a trust bundle to domain relationship
@@ -37,10 +45,13 @@ import javax.persistence.Table;
  * @since 1.2
  */
 @Entity
-@Table(name = "trustbundledomainreltn")
+@EntityListeners(TrustAnchorChangeListener.class)
+@Table(name = "trustbundledomainreltn", indexes={@Index(columnList="domain_id", name="IDX_RI_TRUSTBUNDLEDOMAINRELTN_DOMAINID", unique=false),
+		@Index(columnList="trust_bundle_id", name="IDX_RI_TRUSTBUNDLEDOMAINRELTN_TRUSTBUNDLEID", unique=false)})
 public class TrustBundleDomainReltn 
 {
 	private long id;
+	private long version;
 	
 	private Domain domain;
 	
@@ -62,7 +73,9 @@ public class TrustBundleDomainReltn
      */
     @Column(name = "id", nullable = false)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trustbundledomainreltn_seq")
+    @GenericGenerator(name = "trustbundledomainreltn_seq", strategy = PooledSequenceIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = "sequence_name", value = "trustbundledomainreltn_seq"))
     public long getId() 
     {
         return id;
@@ -78,6 +91,32 @@ public class TrustBundleDomainReltn
    {
        this.id = id;
    }   
+
+    /**
+     * Gets the optimistic lock version of the entity.  The persistence provider increments the version each time the entity 
+     * is updated.
+     * 
+     * @return The version of the entity.
+     * @since 6.0.1
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() 
+    {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic lock version of the entity.  An update of a detached copy fails if the version no longer matches
+     * the stored entity.
+     * 
+     * @param version The version of the entity.
+     * @since 6.0.1
+     */
+    public void setVersion(long version) 
+    {
+        this.version = version;
+    }
    
    /**
     * Gets the value of the trust bundle.
@@ -0,0 +1,295 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.ConfigChangeType;
+
+/**
+ * Hibernate event listener that writes the configuration change log.  Inserts, updates, and deletes of the config-store entities
+ * are collected for each transaction and written as {@link ConfigChange} entries just before the transaction commits, on the 
+ * JDBC connection of the transaction.  The log is therefore committed or rolled back together with 
+ * the changes it describes.
+ * <p>
+ * Several changes to the same entity in one transaction are collapsed into one entry, and an entity that is added and removed in
+ * the same transaction is not logged at all.  The listener is registered by {@link ConfigChangeIntegrator}.
+ * @since 6.0.1
+ */
+public class ConfigChangeEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener
+{
+	private static final long serialVersionUID = -3541402846718327062L;
+
+	private static final Log log = LogFactory.getLog(ConfigChangeEventListener.class);
+	
+	private final transient Map<Transaction, ConfigChangeProcess> processes = new ConcurrentHashMap<>();
+	
+	@Override
+	public void onPostInsert(PostInsertEvent event)
+	{
+		changed(event.getSession(), event.getPersister(), event.getId(), ConfigChangeType.INSERT);
+	}
+	
+	@Override
+	public void onPostUpdate(PostUpdateEvent event)
+	{
+		changed(event.getSession(), event.getPersister(), event.getId(), ConfigChangeType.UPDATE);
+	}
+	
+	@Override
+	public void onPostDelete(PostDeleteEvent event)
+	{
+		changed(event.getSession(), event.getPersister(), event.getId(), ConfigChangeType.DELETE);
+	}
+	
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister)
+	{
+		return false;
+	}
+	
+	/*
+	 * Still abstract in the Hibernate version used here, so it must be implemented.
+	 */
+	@Override
+	@Deprecated
+	public boolean requiresPostCommitHanding(EntityPersister persister)
+	{
+		return requiresPostCommitHandling(persister);
+	}
+	
+	protected void changed(EventSource session, EntityPersister persister, Serializable id, ConfigChangeType changeType)
+	{
+		if (persister.getMappedClass() == ConfigChange.class || !(id instanceof Number))
+			return;
+		
+		if (!session.isTransactionInProgress())
+		{
+			log.warn("Change to " + persister.getEntityName() + " " + id + " made outside of a transaction is not logged.");
+			return;
+		}
+		
+		final Transaction transaction = session.accessTransaction();
+		ConfigChangeProcess process = processes.get(transaction);
+		if (process == null)
+		{
+			process = new ConfigChangeProcess();
+			processes.put(transaction, process);
+			
+			session.getActionQueue().registerProcess(process);
+			session.getActionQueue().registerProcess(new AfterTransactionCompletionProcess()
+			{
+				@Override
+				public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session)
+				{
+					processes.remove(transaction);
+				}
+			});
+		}
+		
+		process.add(persister.getMappedClass().getSimpleName(), ((Number)id).longValue(), changeType);
+	}
+	
+	/**
+	 * Collects the changes of one transaction and writes them before it commits.
+	 * <p>
+	 * When change log ids come from a database sequence, the entries are written with one batched insert that takes each id from
+	 * the sequence in the insert itself, so writing the log costs a few statements however many entities changed.  Otherwise,
+	 * for example on MySQL where the sequence is emulated with a table, the entries are saved through a child session in JDBC 
+	 * batches of {@link #WRITE_BATCH_SIZE}.
+	 */
+	protected static class ConfigChangeProcess implements BeforeTransactionCompletionProcess
+	{
+		/**
+		 * Number of change log entries sent to the database in one JDBC batch.
+		 */
+		protected static final int WRITE_BATCH_SIZE = 500;
+		
+		private final Map<ChangeKey, ConfigChangeType> changes = new LinkedHashMap<>();
+		
+		protected synchronized void add(String entityType, long entityId, ConfigChangeType changeType)
+		{
+			final ChangeKey key = new ChangeKey(entityType, entityId);
+			
+			final ConfigChangeType existing = changes.get(key);
+			if (existing == null)
+				changes.put(key, changeType);
+			else if (existing == ConfigChangeType.INSERT)
+			{
+				// other transactions never saw the entity, so it is still an insert or nothing happened at all
+				if (changeType == ConfigChangeType.DELETE)
+					changes.remove(key);
+			}
+			else
+				changes.put(key, changeType);
+		}
+		
+		@Override
+		public synchronized void doBeforeTransactionCompletion(SessionImplementor session)
+		{
+			if (changes.isEmpty())
+				return;
+			
+			final AbstractEntityPersister persister = 
+					(AbstractEntityPersister)session.getFactory().getMetamodel().entityPersister(ConfigChange.class);
+			final IdentifierGenerator generator = persister.getIdentifierGenerator();
+			
+			if (generator instanceof SequenceStyleGenerator 
+					&& ((SequenceStyleGenerator)generator).getDatabaseStructure() instanceof SequenceStructure)
+				insertChanges(session, persister, ((SequenceStyleGenerator)generator).getDatabaseStructure().getName());
+			else
+				saveChanges(session);
+			
+			changes.clear();
+		}
+		
+		protected void insertChanges(SessionImplementor session, AbstractEntityPersister persister, String sequenceName)
+		{
+			final Dialect dialect = session.getFactory().getJdbcServices().getDialect();
+			final String sql = "insert into " + persister.getTableName() + " (" + persister.getIdentifierColumnNames()[0] + ", " 
+					+ persister.getPropertyColumnNames("entityType")[0] + ", " + persister.getPropertyColumnNames("entityId")[0] + ", " 
+					+ persister.getPropertyColumnNames("changeType")[0] + ", " + persister.getPropertyColumnNames("changeTime")[0] 
+					+ ") values (" + dialect.getSelectSequenceNextValString(sequenceName) + ", ?, ?, ?, ?)";
+			
+			final Timestamp changeTime = new Timestamp(System.currentTimeMillis());
+			final JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+			final PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+			try
+			{
+				int batched = 0;
+				for (Map.Entry<ChangeKey, ConfigChangeType> change : changes.entrySet())
+				{
+					statement.setString(1, change.getKey().entityType);
+					statement.setLong(2, change.getKey().entityId);
+					statement.setInt(3, change.getValue().ordinal());
+					statement.setTimestamp(4, changeTime);
+					statement.addBatch();
+					
+					if (++batched == WRITE_BATCH_SIZE)
+					{
+						statement.executeBatch();
+						batched = 0;
+					}
+				}
+				
+				if (batched > 0)
+					statement.executeBatch();
+			}
+			catch (SQLException e)
+			{
+				throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Could not write the configuration change log", sql);
+			}
+			finally
+			{
+				jdbcCoordinator.getResourceRegistry().release(statement);
+				jdbcCoordinator.afterStatementExecution();
+			}
+		}
+		
+		protected void saveChanges(SessionImplementor session)
+		{
+			try (Session child = ((Session)session).sessionWithOptions().connection().autoClose(false)
+					.connectionHandlingMode(PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION).openSession())
+			{
+				child.setJdbcBatchSize(WRITE_BATCH_SIZE);
+				
+				int saved = 0;
+				for (Map.Entry<ChangeKey, ConfigChangeType> change : changes.entrySet())
+				{
+					child.save(new ConfigChange(change.getKey().entityType, change.getKey().entityId, change.getValue()));
+					
+					if (++saved % WRITE_BATCH_SIZE == 0)
+					{
+						child.flush();
+						child.clear();
+					}
+				}
+				
+				child.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Identifies a changed entity within a transaction.
+	 */
+	protected static class ChangeKey
+	{
+		protected final String entityType;
+		
+		protected final long entityId;
+		
+		protected ChangeKey(String entityType, long entityId)
+		{
+			this.entityType = entityType;
+			this.entityId = entityId;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof ChangeKey))
+				return false;
+			
+			final ChangeKey other = (ChangeKey)obj;
+			return entityId == other.entityId && entityType.equals(other.entityType);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return 31 * entityType.hashCode() + Long.hashCode(entityId);
+		}
+	}
+}
@@ -18,6 +18,7 @@ package org.nhindirect.config.store.util;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAKey;
 
@@ -201,18 +202,36 @@ public class DNSRecordUtils
 	}
 	
 	/**
-	 * Converts a DNS record to a raw wire transfer format.
+	 * Converts a DNS record to a raw wire transfer format.  The conversion uses the record's cached encoding, so only the 
+	 * first conversion of an unmodified record builds the encoding.
 	 * @param rec The DNSRecord to convert.
 	 * @return A byte array representation of the DNSRecord in raw wire transfer format.
 	 * @throws IOException
 	 */	
 	public static byte[] toWire(DNSRecord rec) throws IOException
+	{
+		final ByteBuffer wire = rec.toWireBuffer();
+		
+		final byte[] retVal = new byte[wire.remaining()];
+		wire.get(retVal);
+		
+		return retVal;
+	}	
+	
+	/**
+	 * Builds the canonical raw wire transfer format of a DNS record without consulting the record's cached encoding.
+	 * @param rec The DNSRecord to encode.
+	 * @return A byte array representation of the DNSRecord in raw wire transfer format.
+	 * @throws IOException
+	 * @since 6.0.1
+	 */
+	public static byte[] encodeWire(DNSRecord rec) throws IOException
 	{
 		Record retVal = Record.newRecord(Name.fromString(rec.getName()), rec.getType(), rec.getDclass(), 
 				rec.getTtl(), rec.getData());
 		
 		return retVal.toWireCanonical();
-	}	
+	}
 	
 	/**
 	 * Converts a raw wire transfer format of a record to a DNS record.
@@ -0,0 +1,56 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Utility methods for creating the normalized (lower case) values that are stored in the shadow lookup columns of the 
+ * JPA entities.  Case insensitive lookups compare a normalized parameter against the normalized column so the database
+ * can use a plain index on the column instead of applying a function to every row.
+ * @since 6.0.1
+ */
+public class NormalizationUtils 
+{
+	/**
+	 * Normalizes a single lookup value.
+	 * @param value The value to normalize.
+	 * @return The lower case value or null if the value is null.
+	 */
+	public static String normalize(String value)
+	{
+		return (value == null) ? null : value.toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Normalizes a collection of lookup values.
+	 * @param values The values to normalize.
+	 * @return A list of the lower case values.
+	 */
+	public static List<String> normalize(Collection<String> values)
+	{
+		return values.stream().map(NormalizationUtils::normalize).collect(Collectors.toList());
+	}
+}
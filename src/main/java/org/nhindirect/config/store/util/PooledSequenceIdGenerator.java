@@ -0,0 +1,91 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence generator used for the ids of the config-store entities.  Each entity has its own sequence with a pooled-lo 
+ * optimizer, so a node reserves a block of ids with one sequence call and assigns the ids in the block from memory.
+ * <p>
+ * The size of the block is read from the Hibernate settings (for example spring.jpa.properties.* in Spring Boot).
+ * {@value #SEQUENCE_ALLOCATION_SIZE_PREFIX}&lt;sequence_name&gt;.allocation_size sets the size for a single sequence, and 
+ * {@value #ALLOCATION_SIZE_SETTING} sets it for all sequences.  Without either setting the increment_size parameter of the
+ * generator is used, and {@value #DEFAULT_ALLOCATION_SIZE} if that is not set either.  The increment of the database sequence 
+ * must match the allocation size, which {@link PooledSequenceValidator} checks when the session factory is created.
+ * @since 6.0.1
+ */
+public class PooledSequenceIdGenerator extends SequenceStyleGenerator
+{
+	public static final String STRATEGY = "org.nhindirect.config.store.util.PooledSequenceIdGenerator";
+	
+	public static final String ALLOCATION_SIZE_SETTING = "org.nhindirect.config.store.id.allocation_size";
+	
+	public static final String SEQUENCE_ALLOCATION_SIZE_PREFIX = "org.nhindirect.config.store.id.";
+	
+	public static final int DEFAULT_ALLOCATION_SIZE = 50;
+	
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException 
+	{
+		final Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+		
+		params.setProperty(INCREMENT_PARAM, Integer.toString(getAllocationSize(settings, params)));
+		params.setProperty(OPT_PARAM, "pooled-lo");
+		
+		super.configure(type, params, serviceRegistry);
+	}
+	
+	/**
+	 * Gets the allocation size for a sequence.
+	 * @param settings The Hibernate settings.
+	 * @param params The generator parameters.
+	 * @return The allocation size of the sequence.
+	 */
+	protected static int getAllocationSize(Map<?, ?> settings, Properties params)
+	{
+		final String sequenceName = params.getProperty(SEQUENCE_PARAM);
+		
+		Object size = null;
+		if (sequenceName != null)
+			size = settings.get(SEQUENCE_ALLOCATION_SIZE_PREFIX + sequenceName + ".allocation_size");
+		if (size == null)
+			size = settings.get(ALLOCATION_SIZE_SETTING);
+		if (size == null)
+			size = params.getProperty(INCREMENT_PARAM);
+		if (size == null)
+			return DEFAULT_ALLOCATION_SIZE;
+		
+		final int retVal = Integer.parseInt(size.toString().trim());
+		if (retVal <= 0)
+			throw new MappingException("Allocation size of sequence " + sequenceName + " must be greater than 0");
+		
+		return retVal;
+	}
+}
@@ -0,0 +1,186 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Checks at startup that the increment of each database sequence used by a {@link PooledSequenceIdGenerator} matches the
+ * allocation size of the generator.  The pooled-lo optimizer hands out the ids between two sequence values from memory, so
+ * a sequence that increments by less than the allocation size makes nodes hand out the same ids.  A mismatch fails the 
+ * creation of the session factory.
+ * <p>
+ * The increments are read from information_schema.sequences, limited to the default schema that Hibernate resolves
+ * ({@value AvailableSettings#DEFAULT_SCHEMA}, or the current schema of the connection) so a sequence of the same name in
+ * another schema is not checked in its place.  Databases that don't provide that view, and generators that fall back to a
+ * table because the database has no sequences, are not checked.  Set {@value #VALIDATE_SETTING} to false to turn the 
+ * check off.  Hibernate discovers the integrator through META-INF/services.
+ * @since 6.0.1
+ */
+public class PooledSequenceValidator implements Integrator, SessionFactoryObserver
+{
+	private static final long serialVersionUID = 2475813263064532186L;
+
+	private static final Log log = LogFactory.getLog(PooledSequenceValidator.class);
+	
+	public static final String VALIDATE_SETTING = "org.nhindirect.config.store.id.validate_allocation_size";
+	
+	protected static final String SEQUENCE_QUERY = "select sequence_name, increment from information_schema.sequences where upper(sequence_schema) = ?";
+	
+	@Override
+	public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry)
+	{
+		final Object validate = sessionFactory.getProperties().get(VALIDATE_SETTING);
+		if (validate != null && !Boolean.parseBoolean(validate.toString().trim()))
+			return;
+		
+		// the generators are created after the integrators run, so the check waits until the factory is built
+		sessionFactory.addObserver(this);
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry)
+	{
+
+	}
+	
+	@Override
+	public void sessionFactoryCreated(SessionFactory factory)
+	{
+		final SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor)factory;
+		
+		final Map<String, Integer> allocationSizes = new HashMap<>();
+		for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values())
+		{
+			final IdentifierGenerator generator = persister.getIdentifierGenerator();
+			if (generator instanceof PooledSequenceIdGenerator)
+			{
+				final DatabaseStructure structure = ((PooledSequenceIdGenerator)generator).getDatabaseStructure();
+				if (structure.isPhysicalSequence())
+					allocationSizes.put(getUnqualifiedName(structure.getName()), structure.getIncrementSize());
+			}
+		}
+		
+		if (allocationSizes.isEmpty())
+			return;
+		
+		final Map<String, Long> increments = getSequenceIncrements(sessionFactory);
+		if (increments == null)
+			return;
+		
+		for (Map.Entry<String, Integer> entry : allocationSizes.entrySet())
+		{
+			final Long increment = increments.get(entry.getKey());
+			if (increment == null)
+				log.warn("Sequence " + entry.getKey() + " was not found.  Its increment can't be checked.");
+			else if (increment.longValue() != entry.getValue().longValue())
+				throw new HibernateException("Sequence " + entry.getKey() + " increments by " + increment + " but its generator allocates " 
+						+ entry.getValue() + " ids at a time.  Change the increment of the sequence or the allocation size setting ("
+						+ PooledSequenceIdGenerator.SEQUENCE_ALLOCATION_SIZE_PREFIX + entry.getKey() + ".allocation_size).");
+		}
+	}
+	
+	/**
+	 * Reads the increments of the sequences in the database.
+	 * @param sessionFactory The session factory.
+	 * @return The increments keyed by lower case sequence name, or null if the database does not provide them.
+	 */
+	protected Map<String, Long> getSequenceIncrements(SessionFactoryImplementor sessionFactory)
+	{
+		final JdbcConnectionAccess connectionAccess = 
+				sessionFactory.getServiceRegistry().getService(JdbcServices.class).getBootstrapJdbcConnectionAccess();
+		
+		Connection con = null;
+		try
+		{
+			con = connectionAccess.obtainConnection();
+			
+			final Object defaultSchema = sessionFactory.getProperties().get(AvailableSettings.DEFAULT_SCHEMA);
+			final String schema = (defaultSchema != null && !defaultSchema.toString().trim().isEmpty()) ? 
+					defaultSchema.toString().trim() : con.getSchema();
+			if (schema == null)
+			{
+				log.warn("The default schema could not be determined.  The allocation sizes of the id generators are not checked.");
+				return null;
+			}
+			
+			final Map<String, Long> retVal = new HashMap<>();
+			try (PreparedStatement stmt = con.prepareStatement(SEQUENCE_QUERY))
+			{
+				stmt.setString(1, schema.replace("\"", "").toUpperCase(Locale.ROOT));
+				try (ResultSet rs = stmt.executeQuery())
+				{
+					while (rs.next())
+						retVal.put(rs.getString(1).toLowerCase(Locale.ROOT), Long.parseLong(rs.getString(2).trim()));
+				}
+			}
+			
+			return retVal;
+		}
+		catch (SQLException | NumberFormatException e)
+		{
+			log.warn("Sequence increments could not be read.  The allocation sizes of the id generators are not checked.", e);
+			return null;
+		}
+		finally
+		{
+			if (con != null)
+			{
+				try
+				{
+					connectionAccess.releaseConnection(con);
+				}
+				catch (SQLException e)
+				{
+					log.warn("Failed to release connection.", e);
+				}
+			}
+		}
+	}
+	
+	protected static String getUnqualifiedName(String sequenceName)
+	{
+		return sequenceName.substring(sequenceName.lastIndexOf('.') + 1).replace("\"", "").toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,241 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PreUpdate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.TrustBundleAnchor;
+import org.nhindirect.config.store.TrustBundleDomainReltn;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that notifies registered observers when the trust anchors of a domain may have changed.  It is attached
+ * to the anchor, trust bundle, trust bundle anchor, and trust bundle to domain relationship entities.
+ * <p>
+ * Changes to anchors and relationships are reported by domain name; an anchor that moves to another owner reports both owners.  
+ * Changes to trust bundles and their anchors are reported by bundle id, and observers resolve the domains that use the bundle.
+ * Within a transaction the changes are collected and each affected domain and bundle is reported once when the transaction 
+ * completes, whether it commits or rolls back.  Changes made outside a transaction are reported right away.  Bulk JPQL updates
+ * and deletes do not trigger entity callbacks and are not reported.
+ * @since 6.0.1
+ */
+public class TrustAnchorChangeListener
+{
+	private static final Log log = LogFactory.getLog(TrustAnchorChangeListener.class);
+	
+	private static final List<Observer> observers = new CopyOnWriteArrayList<>();
+	
+	private static final Object PENDING_CHANGES_KEY = new Object();
+	
+	/**
+	 * Receives trust anchor change notifications.
+	 */
+	@FunctionalInterface
+	public static interface Observer
+	{
+		/**
+		 * Called when the trust anchors of a domain may have changed.
+		 * @param normalizedDomainName The lower case name of the domain, or null if the anchors of any domain may have changed.
+		 */
+		public void trustAnchorsChanged(String normalizedDomainName);
+		
+		/**
+		 * Called when a trust bundle or its anchors changed.  Every domain associated with the bundle is affected.  The default 
+		 * treats the change as a change to every domain.
+		 * @param trustBundleId The id of the trust bundle.
+		 */
+		public default void trustBundleChanged(long trustBundleId)
+		{
+			trustAnchorsChanged(null);
+		}
+	}
+	
+	/*
+	 * Domains and bundles changed in one transaction.
+	 */
+	private static class PendingChanges
+	{
+		final Set<String> domains = new HashSet<>();
+		
+		final Set<Long> trustBundleIds = new HashSet<>();
+	}
+	
+	/**
+	 * Registers an observer.
+	 * @param observer The observer to notify of changes.
+	 */
+	public static void register(Observer observer)
+	{
+		observers.add(observer);
+	}
+	
+	/**
+	 * Unregisters an observer.
+	 * @param observer The observer to stop notifying.
+	 */
+	public static void unregister(Observer observer)
+	{
+		observers.remove(observer);
+	}
+	
+	@PostPersist
+	@PostRemove
+	public void entityAddedOrRemoved(Object entity)
+	{
+		if (entity instanceof Anchor)
+			domainChanged(NormalizationUtils.normalize(((Anchor)entity).getOwner()));
+		else
+			entityUpdated(entity);
+	}
+	
+	/*
+	 * Runs before the anchor's own callback recomputes the normalized owner, so the normalized owner still holds the owner the 
+	 * anchor was loaded or last written with.
+	 */
+	@PreUpdate
+	public void entityUpdating(Object entity)
+	{
+		if (entity instanceof Anchor)
+		{
+			final Anchor anchor = (Anchor)entity;
+			
+			domainChanged(anchor.getNormalizedOwner());
+			domainChanged(NormalizationUtils.normalize(anchor.getOwner()));
+		}
+	}
+	
+	@PostUpdate
+	public void entityUpdated(Object entity)
+	{
+		if (entity instanceof TrustBundleDomainReltn)
+		{
+			if (((TrustBundleDomainReltn)entity).getDomain() != null)
+				domainChanged(((TrustBundleDomainReltn)entity).getDomain().getNormalizedDomainName());
+		}
+		else if (entity instanceof TrustBundle)
+			trustBundleChanged(((TrustBundle)entity).getId());
+		else if (entity instanceof TrustBundleAnchor)
+		{
+			if (((TrustBundleAnchor)entity).getTrustBundle() != null)
+				trustBundleChanged(((TrustBundleAnchor)entity).getTrustBundle().getId());
+		}
+	}
+	
+	protected static void domainChanged(String normalizedDomainName)
+	{
+		if (observers.isEmpty() || normalizedDomainName == null)
+			return;
+		
+		final PendingChanges pending = getPendingChanges();
+		if (pending == null)
+			fireDomainChanged(normalizedDomainName);
+		else
+			pending.domains.add(normalizedDomainName);
+	}
+	
+	protected static void trustBundleChanged(long trustBundleId)
+	{
+		if (observers.isEmpty())
+			return;
+		
+		final PendingChanges pending = getPendingChanges();
+		if (pending == null)
+			fireTrustBundleChanged(trustBundleId);
+		else
+			pending.trustBundleIds.add(trustBundleId);
+	}
+	
+	/*
+	 * Gets the changes of the current transaction, or null if there is no transaction to collect them in.
+	 */
+	private static PendingChanges getPendingChanges()
+	{
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return null;
+		
+		PendingChanges pending = (PendingChanges)TransactionSynchronizationManager.getResource(PENDING_CHANGES_KEY);
+		if (pending == null)
+		{
+			final PendingChanges changes = new PendingChanges();
+			TransactionSynchronizationManager.bindResource(PENDING_CHANGES_KEY, changes);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCompletion(int status)
+				{
+					TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_CHANGES_KEY);
+					
+					for (String domain : changes.domains)
+						fireDomainChanged(domain);
+					for (Long trustBundleId : changes.trustBundleIds)
+						fireTrustBundleChanged(trustBundleId);
+				}
+			});
+			pending = changes;
+		}
+		
+		return pending;
+	}
+	
+	private static void fireDomainChanged(String normalizedDomainName)
+	{
+		for (Observer observer : observers)
+		{
+			try
+			{
+				observer.trustAnchorsChanged(normalizedDomainName);
+			}
+			catch (Exception e)
+			{
+				log.warn("Trust anchor change observer failed: " + e.getMessage(), e);
+			}
+		}
+	}
+	
+	private static void fireTrustBundleChanged(long trustBundleId)
+	{
+		for (Observer observer : observers)
+		{
+			try
+			{
+				observer.trustBundleChanged(trustBundleId);
+			}
+			catch (Exception e)
+			{
+				log.warn("Trust anchor change observer failed: " + e.getMessage(), e);
+			}
+		}
+	}
+}
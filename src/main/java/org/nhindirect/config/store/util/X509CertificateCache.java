@@ -0,0 +1,286 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.store.util;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import org.nhindirect.config.store.BundleThumbprint;
+import org.nhindirect.config.store.Certificate.CertContainer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+/**
+ * Shared, bounded cache of parsed X509 certificates.  Entries are keyed by the thumbprint (SHA-1 digest) of the encoded
+ * certificate data and weighed by the size of the encoded data, so the cache is bounded by the number of encoded bytes 
+ * it holds rather than by the number of certificates.
+ * <p>
+ * Decoded PKCS12 credentials (a certificate and its private key) are held in a second cache with the same bound, keyed by the 
+ * thumbprint of the PKCS12 data and a digest of the passwords used to open it.  The private keys therefore stay in memory for as
+ * long as their credential is cached.  Probing either cache for data it does not hold is not counted in its statistics, so the
+ * hit and miss counts only reflect data of the kind the cache holds.
+ * <p>
+ * The maximum weight of the shared instance defaults to 32MB and can be changed with the 
+ * org.nhindirect.config.store.util.X509CertificateCache.maxWeight system property.
+ * @since 6.0.1
+ */
+public class X509CertificateCache
+{
+	public static final String MAX_WEIGHT_PROPERTY = "org.nhindirect.config.store.util.X509CertificateCache.maxWeight";
+	
+	public static final long DEFAULT_MAX_WEIGHT = 32L * 1024L * 1024L;
+	
+	private static final X509CertificateCache INSTANCE = new X509CertificateCache(Long.getLong(MAX_WEIGHT_PROPERTY, DEFAULT_MAX_WEIGHT));
+	
+	private final Cache<String, CachedCertificate> cache;
+	
+	private final Cache<String, CachedCredential> credentials;
+	
+	private final StatsCounter credentialStats = new ConcurrentStatsCounter();
+	
+	/**
+	 * Gets the shared cache instance used by the JPA entity classes.
+	 * @return The shared cache instance.
+	 */
+	public static X509CertificateCache getInstance()
+	{
+		return INSTANCE;
+	}
+	
+	/**
+	 * Creates a cache bounded by the total size of the encoded certificates that it holds.
+	 * @param maxWeight The maximum number of encoded certificate bytes held by the cache.
+	 */
+	public X509CertificateCache(long maxWeight)
+	{
+		cache = Caffeine.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((String thumbprint, CachedCertificate entry) -> entry.weight)
+				.recordStats()
+				.build();
+		
+		credentials = Caffeine.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((String key, CachedCredential entry) -> entry.weight)
+				.recordStats(() -> credentialStats)
+				.build();
+	}
+	
+	/**
+	 * Gets the parsed certificate for the encoded certificate data.  The data is only decoded if the certificate
+	 * is not already in the cache.
+	 * @param encoded The DER or PEM encoded certificate.
+	 * @return The parsed certificate.
+	 * @throws CertificateException If the data cannot be converted to an X509 certificate.
+	 */
+	public X509Certificate getCertificate(byte[] encoded) throws CertificateException
+	{
+		final String thumbprint = toThumbprint(encoded);
+		
+		CachedCertificate entry = cache.getIfPresent(thumbprint);
+		if (entry == null)
+		{
+			// a concurrent miss on the same thumbprint may decode twice, but both threads end up with equivalent certificates
+			final X509Certificate cert = (X509Certificate)CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(encoded));
+			entry = new CachedCertificate(cert, encoded.length);
+			cache.put(thumbprint, entry);
+		}
+		
+		return entry.cert;
+	}
+	
+	/**
+	 * Gets the parsed certificate for the encoded certificate data only if it has already been decoded and cached.
+	 * @param encoded The DER or PEM encoded certificate.
+	 * @return The parsed certificate or null if the data is not in the cache.
+	 */
+	public X509Certificate getCachedCertificate(byte[] encoded)
+	{
+		try
+		{
+			// not counted as a miss, callers probe with data that may not be a plain certificate
+			final CachedCertificate entry = cache.asMap().get(toThumbprint(encoded));
+			
+			return (entry == null) ? null : entry.cert;
+		}
+		catch (CertificateException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Gets the decoded PKCS12 credential for the encoded data, decoding it with the loader if it is not already in the cache.  
+	 * @param encoded The encoded PKCS12 data.
+	 * @param keyStorePass The password of the key store.
+	 * @param privateKeyPass The password of the private key.
+	 * @param loader Decodes the data.  Returns null if the data is not a PKCS12 credential.
+	 * @return The decoded credential, or null if the loader did not return one.
+	 * @throws CertificateException If the data is empty.
+	 */
+	public CertContainer getCredential(byte[] encoded, char[] keyStorePass, char[] privateKeyPass, Supplier<CertContainer> loader) 
+			throws CertificateException
+	{
+		final String key = toThumbprint(encoded) + ":" + toPasswordDigest(keyStorePass, privateKeyPass);
+		
+		// hits and misses are counted here so data that turns out not to be a credential is not counted as a miss
+		final CachedCredential entry = credentials.asMap().get(key);
+		if (entry != null)
+		{
+			credentialStats.recordHits(1);
+			return entry.credential;
+		}
+		
+		final CertContainer credential = loader.get();
+		if (credential != null)
+		{
+			credentialStats.recordMisses(1);
+			credentials.put(key, new CachedCredential(credential, encoded.length));
+		}
+		
+		return credential;
+	}
+	
+	/**
+	 * Gets the hit, miss, and eviction statistics of the cache.
+	 * @return The cache statistics.
+	 */
+	public CacheStats getStats()
+	{
+		return cache.stats();
+	}
+	
+	/**
+	 * Gets the hit, miss, and eviction statistics of the credential cache.
+	 * @return The credential cache statistics.
+	 */
+	public CacheStats getCredentialStats()
+	{
+		return credentials.stats();
+	}
+	
+	/**
+	 * Gets the approximate number of certificates in the cache.
+	 * @return The approximate number of certificates in the cache.
+	 */
+	public long size()
+	{
+		return cache.estimatedSize();
+	}
+	
+	/**
+	 * Performs any pending maintenance such as evictions.
+	 */
+	public void cleanUp()
+	{
+		cache.cleanUp();
+		credentials.cleanUp();
+	}
+	
+	/**
+	 * Removes all certificates and credentials from the cache.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+		credentials.invalidateAll();
+	}
+	
+	protected String toThumbprint(byte[] encoded) throws CertificateException
+	{
+		if (encoded == null || encoded.length == 0)
+			throw new CertificateException("Invalid Certificate: no certificate data exists");
+		
+		try
+		{
+			// the SHA-1 digest of the DER encoding is the same value as the certificate thumbprint
+			return BundleThumbprint.toThumbprint(encoded).toString();
+		}
+		catch (Exception e)
+		{
+			throw new CertificateException("Failed to create certificate thumbprint", e);
+		}
+	}
+	
+	/*
+	 * Credentials opened with different passwords are cached separately, so a wrong password never gets a credential that was 
+	 * opened with the right one.
+	 */
+	protected String toPasswordDigest(char[] keyStorePass, char[] privateKeyPass) throws CertificateException
+	{
+		try
+		{
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (char[] password : new char[][] {keyStorePass, privateKeyPass})
+			{
+				final ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password == null ? new char[0] : password));
+				digest.update(bytes);
+				digest.update((byte)0);
+				if (bytes.hasArray())
+					Arrays.fill(bytes.array(), (byte)0);
+			}
+			
+			return Base64.getEncoder().encodeToString(digest.digest());
+		}
+		catch (Exception e)
+		{
+			throw new CertificateException("Failed to create password digest", e);
+		}
+	}
+	
+	private static class CachedCredential
+	{
+		private final CertContainer credential;
+		private final int weight;
+		
+		CachedCredential(CertContainer credential, int weight)
+		{
+			this.credential = credential;
+			this.weight = weight;
+		}
+	}
+	
+	private static class CachedCertificate
+	{
+		private final X509Certificate cert;
+		private final int weight;
+		
+		CachedCertificate(X509Certificate cert, int weight)
+		{
+			this.cert = cert;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,9 @@
+-- Creates the pooled sequence used to generate certificate ids.  The sequence must increment by the increment_size
+-- of the certificate_seq generator (50) and start above the highest existing certificate id.
+--
+-- The statements below use PostgreSQL syntax.  For other databases create the sequence with the same increment and
+-- set its start value to MAX(id) + 1 from the certificate table.  MySQL has no sequences; see
+-- 6.0.1-entity-sequences-mysql.sql.
+
+CREATE SEQUENCE certificate_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('certificate_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM certificate), false);
@@ -0,0 +1,18 @@
+-- Creates the configuration change log table and its sequence.  The sequence must increment by 1 because change log ids are
+-- the sequence numbers consumers use to ask for the changes after the last one they processed.
+--
+-- Column names assume the default Spring Boot physical naming strategy (camel case mapped to snake case).
+-- The statements below use PostgreSQL syntax.  For other databases use the equivalent column types.
+
+CREATE SEQUENCE configchange_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE configchange (
+	id BIGINT NOT NULL,
+	entity_type VARCHAR(64) NOT NULL,
+	entity_id BIGINT NOT NULL,
+	change_type INTEGER NOT NULL,
+	change_time TIMESTAMP NOT NULL,
+	PRIMARY KEY (id)
+);
+
+CREATE INDEX IDX_RI_CONFIGCHANGE_ENTITYTYPE ON configchange (entity_type, id);
@@ -0,0 +1,46 @@
+-- MySQL version of 6.0.1-entity-sequences.sql and 6.0.1-certificate-sequence.sql.  MySQL has no sequences, so Hibernate
+-- keeps the next value of each id generator in a single row table named after the sequence, and adds the allocation size
+-- to it each time a node reserves a block of ids.  Each table starts at the highest existing id of its entity table plus
+-- one, so existing ids are kept as they are.  The allocation size is not stored in the database, so the startup check of
+-- the sequence increments does not apply; every node must use the same allocation size settings.
+--
+-- Run this script instead of the PostgreSQL scripts.  hibernate_sequence is no longer used once it has run.
+
+CREATE TABLE address_seq (next_val BIGINT);
+INSERT INTO address_seq SELECT COALESCE(MAX(id), 0) + 1 FROM address;
+
+CREATE TABLE anchor_seq (next_val BIGINT);
+INSERT INTO anchor_seq SELECT COALESCE(MAX(id), 0) + 1 FROM anchor;
+
+CREATE TABLE certificate_seq (next_val BIGINT);
+INSERT INTO certificate_seq SELECT COALESCE(MAX(id), 0) + 1 FROM certificate;
+
+CREATE TABLE certpolicy_seq (next_val BIGINT);
+INSERT INTO certpolicy_seq SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicy;
+
+CREATE TABLE certpolicygroup_seq (next_val BIGINT);
+INSERT INTO certpolicygroup_seq SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroup;
+
+CREATE TABLE certpolicygroupdomainreltn_seq (next_val BIGINT);
+INSERT INTO certpolicygroupdomainreltn_seq SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroupdomainreltn;
+
+CREATE TABLE certpolicygroupreltn_seq (next_val BIGINT);
+INSERT INTO certpolicygroupreltn_seq SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroupreltn;
+
+CREATE TABLE dnsrecord_seq (next_val BIGINT);
+INSERT INTO dnsrecord_seq SELECT COALESCE(MAX(id), 0) + 1 FROM dnsrecord;
+
+CREATE TABLE domain_seq (next_val BIGINT);
+INSERT INTO domain_seq SELECT COALESCE(MAX(id), 0) + 1 FROM domain;
+
+CREATE TABLE setting_seq (next_val BIGINT);
+INSERT INTO setting_seq SELECT COALESCE(MAX(id), 0) + 1 FROM setting;
+
+CREATE TABLE trustbundle_seq (next_val BIGINT);
+INSERT INTO trustbundle_seq SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundle;
+
+CREATE TABLE trustbundleanchor_seq (next_val BIGINT);
+INSERT INTO trustbundleanchor_seq SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundleanchor;
+
+CREATE TABLE trustbundledomainreltn_seq (next_val BIGINT);
+INSERT INTO trustbundledomainreltn_seq SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundledomainreltn;
@@ -0,0 +1,48 @@
+-- Creates the per table pooled sequences used to generate entity ids.  Each sequence must increment by the allocation
+-- size of its generator (50 unless org.nhindirect.config.store.id.allocation_size or
+-- org.nhindirect.config.store.id.<sequence>.allocation_size is set) and start above the highest existing id of its table,
+-- so existing ids are kept as they are.  The certificate sequence is created by 6.0.1-certificate-sequence.sql.
+--
+-- The statements below use PostgreSQL syntax.  For other databases with sequences create each sequence with the same
+-- increment and set its start value to MAX(id) + 1 from its table.  MySQL has no sequences; use
+-- 6.0.1-entity-sequences-mysql.sql instead of this script and 6.0.1-certificate-sequence.sql.  hibernate_sequence is no
+-- longer used once this script has run.
+--
+-- The increments are checked when the application starts (see PooledSequenceValidator), and a sequence whose increment
+-- does not match the allocation size of its generator stops the application from starting.
+
+CREATE SEQUENCE address_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('address_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM address), false);
+
+CREATE SEQUENCE anchor_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('anchor_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM anchor), false);
+
+CREATE SEQUENCE certpolicy_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('certpolicy_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicy), false);
+
+CREATE SEQUENCE certpolicygroup_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('certpolicygroup_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroup), false);
+
+CREATE SEQUENCE certpolicygroupdomainreltn_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('certpolicygroupdomainreltn_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroupdomainreltn), false);
+
+CREATE SEQUENCE certpolicygroupreltn_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('certpolicygroupreltn_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM certpolicygroupreltn), false);
+
+CREATE SEQUENCE dnsrecord_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('dnsrecord_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM dnsrecord), false);
+
+CREATE SEQUENCE domain_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('domain_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM domain), false);
+
+CREATE SEQUENCE setting_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('setting_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM setting), false);
+
+CREATE SEQUENCE trustbundle_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('trustbundle_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundle), false);
+
+CREATE SEQUENCE trustbundleanchor_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('trustbundleanchor_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundleanchor), false);
+
+CREATE SEQUENCE trustbundledomainreltn_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('trustbundledomainreltn_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM trustbundledomainreltn), false);
@@ -0,0 +1,23 @@
+-- Indexes for the foreign key and type lookups that were previously unindexed.  The owner, email address, domain name
+-- and DNS name lookups are served by the normalized column indexes in 6.0.1-normalized-lookup-columns.sql.
+--
+-- Column names assume the default Spring Boot physical naming strategy (camel case mapped to snake case).
+-- Adjust the names if the deployment uses a different naming strategy.
+--
+-- The domain and type indexes end with the id so the filtered keyset page queries (where <column> = ? and id > ? order by id)
+-- read each page straight from the index, however deep the page.
+
+CREATE INDEX IDX_RI_ADDRESS_DOMAINID_ID ON address (domain_id, id);
+
+CREATE INDEX IDX_RI_DNSRECORD_TYPE_ID ON dnsrecord (type, id);
+
+CREATE INDEX IDX_RI_TRUSTBUNDLEANCHOR_TRUSTBUNDLEID ON trustbundleanchor (trust_bundle_id);
+
+CREATE INDEX IDX_RI_TRUSTBUNDLEDOMAINRELTN_DOMAINID ON trustbundledomainreltn (domain_id);
+CREATE INDEX IDX_RI_TRUSTBUNDLEDOMAINRELTN_TRUSTBUNDLEID ON trustbundledomainreltn (trust_bundle_id);
+
+CREATE INDEX IDX_RI_CERTPOLICYGROUPDOMAINRELTN_DOMAINID ON certpolicygroupdomainreltn (domain_id);
+CREATE INDEX IDX_RI_CERTPOLICYGROUPDOMAINRELTN_POLICYGROUPID ON certpolicygroupdomainreltn (policy_group_id);
+
+CREATE INDEX IDX_RI_CERTPOLICYGROUPRELTN_POLICYGROUPID ON certpolicygroupreltn (cert_policy_group_id);
+CREATE INDEX IDX_RI_CERTPOLICYGROUPRELTN_POLICYID ON certpolicygroupreltn (cert_policy_id);
@@ -0,0 +1,49 @@
+-- Adds the normalized (lower case) lookup columns used by the case insensitive repository finders
+-- and back fills them from the existing data.  New and updated rows are maintained by the entities.
+--
+-- Column names assume the default Spring Boot physical naming strategy (camel case mapped to snake case).
+-- Adjust the names if the deployment uses a different naming strategy.
+--
+-- The back fill uses the database LOWER() function while the application lower cases values with Java's
+-- String.toLowerCase(Locale.ROOT).  The two agree for ASCII values, which covers domain names, email addresses
+-- and the other lookup keys in practice.  For non ASCII values the database result depends on its collation and
+-- character set and may differ from the application's, in which case the case insensitive finders will not match
+-- those rows until their names are next updated through the application.  Deployments with non ASCII names should
+-- recompute the normalized column of those rows with NormalizationUtils.normalize after running this script.
+
+ALTER TABLE certificate ADD COLUMN normalized_owner VARCHAR(255);
+UPDATE certificate SET normalized_owner = LOWER(owner);
+-- the owner indexes end with the id so keyset pages of one owner are read straight from the index
+CREATE INDEX IDX_RI_CERTIFICATE_NORMALIZEDOWNER_ID ON certificate (normalized_owner, id);
+
+ALTER TABLE anchor ADD COLUMN normalized_owner VARCHAR(255);
+UPDATE anchor SET normalized_owner = LOWER(owner);
+CREATE INDEX IDX_RI_ANCHOR_NORMALIZEDOWNER_ID ON anchor (normalized_owner, id);
+
+ALTER TABLE address ADD COLUMN normalized_email_address VARCHAR(400);
+UPDATE address SET normalized_email_address = LOWER(emailaddress);
+CREATE INDEX IDX_RI_ADDRESS_NORMALIZEDEMAILADDRESS ON address (normalized_email_address);
+
+ALTER TABLE domain ADD COLUMN normalized_domain_name VARCHAR(255);
+UPDATE domain SET normalized_domain_name = LOWER(domain_name);
+CREATE INDEX IDX_RI_DOMAIN_NORMALIZEDDOMAINNAME ON domain (normalized_domain_name);
+
+ALTER TABLE setting ADD COLUMN normalized_name VARCHAR(255);
+UPDATE setting SET normalized_name = LOWER(name);
+CREATE INDEX IDX_RI_SETTING_NORMALIZEDNAME ON setting (normalized_name);
+
+ALTER TABLE dnsrecord ADD COLUMN normalized_name VARCHAR(255);
+UPDATE dnsrecord SET normalized_name = LOWER(name);
+CREATE INDEX IDX_RI_DNSRECORD_NORMALIZEDNAME_TYPE ON dnsrecord (normalized_name, type);
+
+ALTER TABLE certpolicy ADD COLUMN normalized_policy_name VARCHAR(255);
+UPDATE certpolicy SET normalized_policy_name = LOWER(policy_name);
+CREATE INDEX IDX_RI_CERTPOLICY_NORMALIZEDPOLICYNAME ON certpolicy (normalized_policy_name);
+
+ALTER TABLE certpolicygroup ADD COLUMN normalized_policy_group_name VARCHAR(255);
+UPDATE certpolicygroup SET normalized_policy_group_name = LOWER(policy_group_name);
+CREATE INDEX IDX_RI_CERTPOLICYGROUP_NORMALIZEDPOLICYGROUPNAME ON certpolicygroup (normalized_policy_group_name);
+
+ALTER TABLE trustbundle ADD COLUMN normalized_bundle_name VARCHAR(255);
+UPDATE trustbundle SET normalized_bundle_name = LOWER(bundle_name);
+CREATE INDEX IDX_RI_TRUSTBUNDLE_NORMALIZEDBUNDLENAME ON trustbundle (normalized_bundle_name);
@@ -0,0 +1,18 @@
+-- Adds the optimistic lock version columns.  Existing rows start at version 0 and the version is incremented by the
+-- persistence provider on every update.
+--
+-- The statements below use PostgreSQL syntax.  For other databases use the equivalent ALTER TABLE statement.
+
+ALTER TABLE address ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE anchor ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE certificate ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE certpolicy ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE certpolicygroup ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE certpolicygroupdomainreltn ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE certpolicygroupreltn ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE dnsrecord ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE domain ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE setting ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE trustbundle ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE trustbundleanchor ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE trustbundledomainreltn ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
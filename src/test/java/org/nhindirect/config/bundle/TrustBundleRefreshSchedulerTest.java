@@ -0,0 +1,292 @@
+package org.nhindirect.config.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nhindirect.config.repository.TrustBundleDaoBaseTest;
+import org.nhindirect.config.store.BundleRefreshError;
+import org.nhindirect.config.store.TrustBundle;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class TrustBundleRefreshSchedulerTest extends TrustBundleDaoBaseTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	protected int bundleCount;
+	
+	protected File writeBundle(String... certFileNames) throws Exception
+	{
+		final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+		final List<X509Certificate> certs = new ArrayList<>();
+		for (String certFileName : certFileNames)
+			certs.add((X509Certificate)factory.generateCertificate(new ByteArrayInputStream(loadCertificateData(certFileName))));
+		
+		final File bundleFile = folder.newFile();
+		FileUtils.writeByteArrayToFile(bundleFile, factory.generateCertPath(certs).getEncoded("PKCS7"));
+		
+		return bundleFile;
+	}
+	
+	protected TrustBundle addBundle(String bundleURL, int refreshInterval)
+	{
+		final TrustBundle bundle = new TrustBundle();
+		bundle.setBundleName("Test Bundle " + bundleCount++);
+		bundle.setBundleURL(bundleURL);
+		bundle.setRefreshInterval(refreshInterval);
+		bundle.setCreateTime(Calendar.getInstance());
+		
+		return tbRepo.save(bundle);
+	}
+	
+	@Test
+	public void testRefreshBundle_fileBundle_assertAnchorsLoaded() throws Exception
+	{
+		final File bundleFile = writeBundle("secureHealthEmailCACert.der", "cacert.der");
+		final TrustBundle bundle = addBundle(bundleFile.toURI().toString(), 3600);
+		
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+		assertEquals(BundleRefreshError.SUCCESS, scheduler.refreshBundle(bundle.getId()));
+		
+		final TrustBundle refreshed = tbRepo.findById(bundle.getId()).get();
+		assertEquals(2, refreshed.getTrustBundleAnchors().size());
+		assertEquals(BundleRefreshError.SUCCESS, refreshed.getLastRefreshError());
+		assertNotNull(refreshed.getLastRefreshAttempt());
+		assertNotNull(refreshed.getLastSuccessfulRefresh());
+		assertNotNull(refreshed.getCheckSum());
+		
+		// a successful refresh is not due again until the refresh interval has passed
+		assertTrue(scheduler.getNextRefreshTime(refreshed) >= refreshed.getLastRefreshAttempt().getTimeInMillis() + 3600000L);
+		assertTrue(scheduler.getDueBundles(System.currentTimeMillis()).isEmpty());
+	}
+	
+	@Test
+	public void testRefreshBundle_missingFile_assertNotFoundRecorded() throws Exception
+	{
+		final File missing = new File(folder.getRoot(), "missing.p7b");
+		final TrustBundle bundle = addBundle(missing.toURI().toString(), 3600);
+		
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+		assertEquals(BundleRefreshError.NOT_FOUND, scheduler.refreshBundle(bundle.getId()));
+		
+		final TrustBundle refreshed = tbRepo.findById(bundle.getId()).get();
+		assertEquals(BundleRefreshError.NOT_FOUND, refreshed.getLastRefreshError());
+		assertNotNull(refreshed.getLastRefreshAttempt());
+		assertNull(refreshed.getLastSuccessfulRefresh());
+		assertTrue(refreshed.getTrustBundleAnchors().isEmpty());
+	}
+	
+	@Test
+	public void testRefreshBundle_invalidContent_assertInvalidBundleFormat() throws Exception
+	{
+		final File bundleFile = folder.newFile();
+		FileUtils.writeStringToFile(bundleFile, "not a bundle", "UTF-8");
+		final TrustBundle bundle = addBundle(bundleFile.toURI().toString(), 3600);
+		
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+		assertEquals(BundleRefreshError.INVALID_BUNDLE_FORMAT, scheduler.refreshBundle(bundle.getId()));
+	}
+	
+	@Test
+	public void testGetNextRefreshTime_failures_assertBackoff() throws Exception
+	{
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, b -> 
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.NOT_FOUND, "missing");
+		});
+		scheduler.setMaxJitter(0);
+		
+		final TrustBundle bundle = addBundle("http://localhost/bundle.p7b", 60);
+		
+		scheduler.refreshBundle(bundle.getId());
+		TrustBundle refreshed = tbRepo.findById(bundle.getId()).get();
+		long lastAttempt = refreshed.getLastRefreshAttempt().getTimeInMillis();
+		assertEquals(lastAttempt + 60000L, scheduler.getNextRefreshTime(refreshed));
+		
+		scheduler.refreshBundle(bundle.getId());
+		refreshed = tbRepo.findById(bundle.getId()).get();
+		lastAttempt = refreshed.getLastRefreshAttempt().getTimeInMillis();
+		assertEquals(lastAttempt + 120000L, scheduler.getNextRefreshTime(refreshed));
+	}
+	
+	@Test
+	public void testGetNextRefreshTime_timeout_assertRetriedBeforeInterval() throws Exception
+	{
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, b -> 
+		{
+			throw new TrustBundleFetchException(BundleRefreshError.DOWNLOAD_TIMEOUT, "timeout");
+		});
+		scheduler.setMaxJitter(0);
+		scheduler.setTimeoutRetryDelay(1000L);
+		
+		final TrustBundle bundle = addBundle("http://localhost/bundle.p7b", 3600);
+		
+		assertEquals(BundleRefreshError.DOWNLOAD_TIMEOUT, scheduler.refreshBundle(bundle.getId()));
+		final TrustBundle refreshed = tbRepo.findById(bundle.getId()).get();
+		assertEquals(refreshed.getLastRefreshAttempt().getTimeInMillis() + 1000L, scheduler.getNextRefreshTime(refreshed));
+	}
+	
+	@Test
+	public void testRefreshBundle_unexpectedException_assertAttemptRecordedAndBackoff() throws Exception
+	{
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, b -> 
+		{
+			throw new IllegalStateException("unexpected");
+		});
+		scheduler.setMaxJitter(0);
+		
+		final TrustBundle bundle = addBundle("http://localhost/bundle.p7b", 60);
+		
+		assertEquals(BundleRefreshError.INVALID_BUNDLE_FORMAT, scheduler.refreshBundle(bundle.getId()));
+		TrustBundle refreshed = tbRepo.findById(bundle.getId()).get();
+		assertNotNull(refreshed.getLastRefreshAttempt());
+		assertEquals(BundleRefreshError.INVALID_BUNDLE_FORMAT, refreshed.getLastRefreshError());
+		assertEquals(refreshed.getLastRefreshAttempt().getTimeInMillis() + 60000L, scheduler.getNextRefreshTime(refreshed));
+		
+		scheduler.refreshBundle(bundle.getId());
+		refreshed = tbRepo.findById(bundle.getId()).get();
+		assertEquals(refreshed.getLastRefreshAttempt().getTimeInMillis() + 120000L, scheduler.getNextRefreshTime(refreshed));
+	}
+	
+	@Test
+	public void testFetch_connectionRefused_assertDownloadTimeout() throws Exception
+	{
+		final int port;
+		try (ServerSocket socket = new ServerSocket(0))
+		{
+			port = socket.getLocalPort();
+		}
+		
+		final TrustBundle bundle = addBundle("http://localhost:" + port + "/bundle.p7b", 3600);
+		
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+		assertEquals(BundleRefreshError.DOWNLOAD_TIMEOUT, scheduler.refreshBundle(bundle.getId()));
+	}
+	
+	@Test
+	public void testFetch_serverError_assertDownloadTimeout() throws Exception
+	{
+		final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange ->
+		{
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+		});
+		server.start();
+		try
+		{
+			final TrustBundle bundle = addBundle("http://localhost:" + server.getAddress().getPort() + "/bundle.p7b", 3600);
+			
+			final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+			assertEquals(BundleRefreshError.DOWNLOAD_TIMEOUT, scheduler.refreshBundle(bundle.getId()));
+		}
+		finally
+		{
+			server.stop(0);
+		}
+	}
+	
+	@Test
+	public void testFetch_bundleTooLarge_assertInvalidBundleFormat() throws Exception
+	{
+		final byte[] bundleData = FileUtils.readFileToByteArray(writeBundle("secureHealthEmailCACert.der", "cacert.der"));
+		
+		final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/sized", exchange ->
+		{
+			exchange.sendResponseHeaders(200, bundleData.length);
+			exchange.getResponseBody().write(bundleData);
+			exchange.close();
+		});
+		// a response length of 0 sends a chunked response without a Content-Length
+		server.createContext("/chunked", exchange ->
+		{
+			exchange.sendResponseHeaders(200, 0);
+			exchange.getResponseBody().write(bundleData);
+			exchange.close();
+		});
+		server.start();
+		try
+		{
+			final String baseURL = "http://localhost:" + server.getAddress().getPort();
+			final TrustBundle sized = addBundle(baseURL + "/sized", 3600);
+			final TrustBundle chunked = addBundle(baseURL + "/chunked", 3600);
+			
+			final TrustBundleRefreshScheduler limited = new TrustBundleRefreshScheduler(tbRepo, 
+					new URLTrustBundleFetcher(URLTrustBundleFetcher.DEFAULT_TIMEOUT, URLTrustBundleFetcher.DEFAULT_TIMEOUT, bundleData.length - 1));
+			assertEquals(BundleRefreshError.INVALID_BUNDLE_FORMAT, limited.refreshBundle(sized.getId()));
+			assertEquals(BundleRefreshError.INVALID_BUNDLE_FORMAT, limited.refreshBundle(chunked.getId()));
+			assertTrue(tbRepo.findById(chunked.getId()).get().getTrustBundleAnchors().isEmpty());
+			
+			// a bundle of exactly the maximum size is accepted
+			final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, 
+					new URLTrustBundleFetcher(URLTrustBundleFetcher.DEFAULT_TIMEOUT, URLTrustBundleFetcher.DEFAULT_TIMEOUT, bundleData.length));
+			assertEquals(BundleRefreshError.SUCCESS, scheduler.refreshBundle(sized.getId()));
+			assertEquals(BundleRefreshError.SUCCESS, scheduler.refreshBundle(chunked.getId()));
+		}
+		finally
+		{
+			server.stop(0);
+		}
+	}
+	
+	@Test
+	public void testGetNextRefreshTime_jitter_assertWithinBounds() throws Exception
+	{
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher());
+		scheduler.setMaxJitter(10000L);
+		
+		for (long id = 1; id <= 100; ++id)
+		{
+			final long jitter = scheduler.getJitter(id, 3600000L);
+			assertTrue(jitter >= 0 && jitter < 10000L);
+			assertEquals(jitter, scheduler.getJitter(id, 3600000L));
+			assertTrue(scheduler.getJitter(id, 5000L) < 5000L);
+		}
+	}
+	
+	@Test
+	public void testRefreshDueBundles_disabledInterval_assertNotRefreshed() throws Exception
+	{
+		final File bundleFile = writeBundle("cacert.der");
+		addBundle(bundleFile.toURI().toString(), 0);
+		final TrustBundle due = addBundle(bundleFile.toURI().toString(), 3600);
+		
+		final TrustBundleRefreshScheduler scheduler = new TrustBundleRefreshScheduler(tbRepo, new URLTrustBundleFetcher(), 2);
+		scheduler.setMaxJitter(0);
+		
+		final List<TrustBundle> dueBundles = scheduler.getDueBundles(System.currentTimeMillis());
+		assertEquals(1, dueBundles.size());
+		assertEquals(due.getId(), dueBundles.get(0).getId());
+		
+		scheduler.start();
+		try
+		{
+			for (int i = 0; i < 100 && tbRepo.findById(due.getId()).get().getLastRefreshAttempt() == null; ++i)
+				Thread.sleep(100);
+		}
+		finally
+		{
+			scheduler.shutdown();
+		}
+		
+		assertEquals(BundleRefreshError.SUCCESS, tbRepo.findById(due.getId()).get().getLastRefreshError());
+	}
+}
@@ -0,0 +1,196 @@
+package org.nhindirect.config.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.KeysetPage;
+import org.nhindirect.config.repository.SettingRepository;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.Setting;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Import(RepositoryMetricsTest.MetricsConfig.class)
+public class RepositoryMetricsTest extends SpringBaseTest
+{
+	// names of the meters that were registered with a percentile histogram
+	private static final Set<String> histogramMeters = ConcurrentHashMap.newKeySet();
+	
+	@TestConfiguration
+	public static class MetricsConfig
+	{
+		@Bean
+		public MeterRegistry meterRegistry()
+		{
+			final MeterRegistry registry = new SimpleMeterRegistry();
+			registry.config().meterFilter(new MeterFilter()
+			{
+				@Override
+				public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config)
+				{
+					if (Boolean.TRUE.equals(config.isPublishingHistogram()))
+						histogramMeters.add(id.getName());
+					
+					return config;
+				}
+			});
+			
+			return registry;
+		}
+	}
+	
+	@Autowired
+	private SettingRepository repo;
+	
+	@Autowired
+	private MeterRegistry registry;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+		registry.getMeters().forEach(registry::remove);
+	}
+	
+	protected Setting newSetting(String name, String value)
+	{
+		final Setting retVal = new Setting();
+		retVal.setName(name);
+		retVal.setValue(value);
+		retVal.setStatus(EntityStatus.ENABLED);
+		retVal.setUpdateTime(Calendar.getInstance());
+		
+		return retVal;
+	}
+	
+	@Test
+	public void testRepository_isInstrumented()
+	{
+		assertTrue(AopUtils.isAopProxy(repo));
+	}
+	
+	@Test
+	public void testFind_recordsTimerAndResultSize()
+	{
+		repo.save(newSetting("TestName1", "TestValue1"));
+		repo.save(newSetting("TestName2", "TestValue2"));
+		
+		repo.findAll();
+		repo.findAll();
+		
+		final Timer timer = registry.find(RepositoryMetricsInterceptor.TIMER_NAME)
+				.tags("repository", "SettingRepository", "entity", "Setting", "method", "findAll", "exception", "none").timer();
+		assertNotNull(timer);
+		assertEquals(2, timer.count());
+		
+		final DistributionSummary results = registry.find(RepositoryMetricsInterceptor.RESULTS_NAME)
+				.tags("repository", "SettingRepository", "method", "findAll").summary();
+		assertNotNull(results);
+		assertEquals(2, results.count());
+		assertEquals(4.0, results.totalAmount(), 0.0);
+		
+		repo.findByNameIgnoreCase("missing");
+		assertEquals(0.0, registry.find(RepositoryMetricsInterceptor.RESULTS_NAME)
+				.tags("method", "findByNameIgnoreCase").summary().totalAmount(), 0.0);
+	}
+	
+	@Test
+	public void testFind_meterRemoved_recordsToNewMeter()
+	{
+		repo.findAll();
+		
+		registry.getMeters().forEach(registry::remove);
+		
+		repo.findAll();
+		
+		final Timer timer = registry.find(RepositoryMetricsInterceptor.TIMER_NAME)
+				.tags("repository", "SettingRepository", "method", "findAll", "exception", "none").timer();
+		assertNotNull(timer);
+		assertEquals(1, timer.count());
+		
+		final DistributionSummary results = registry.find(RepositoryMetricsInterceptor.RESULTS_NAME)
+				.tags("repository", "SettingRepository", "method", "findAll").summary();
+		assertNotNull(results);
+		assertEquals(1, results.count());
+		assertTrue(histogramMeters.contains(RepositoryMetricsInterceptor.RESULTS_NAME));
+	}
+	
+	@Test
+	public void testSave_error_recordsErrorCounter()
+	{
+		repo.save(newSetting("TestName1", "TestValue1"));
+		
+		boolean exceptionOccured = false;
+		try
+		{
+			repo.save(newSetting("TestName1", "TestValue2"));
+		}
+		catch (DataIntegrityViolationException e)
+		{
+			exceptionOccured = true;
+		}
+		assertTrue(exceptionOccured);
+		
+		assertEquals(1.0, registry.find(RepositoryMetricsInterceptor.ERRORS_NAME)
+				.tags("repository", "SettingRepository", "method", "save", "exception", "DataIntegrityViolationException")
+				.counter().count(), 0.0);
+	}
+	
+	@Test
+	public void testFind_streamAndKeysetPage_recordsEntityCount() throws Throwable
+	{
+		final RepositoryMetricsInterceptor interceptor = new RepositoryMetricsInterceptor(registry, SettingRepository.class);
+		
+		final MethodInvocation pageInvocation = mock(MethodInvocation.class);
+		when(pageInvocation.getMethod()).thenReturn(SettingRepository.class.getMethod("findAll"));
+		when(pageInvocation.proceed()).thenReturn(new KeysetPage<>(Arrays.asList("a", "b", "c"), null));
+		interceptor.invoke(pageInvocation);
+		
+		assertEquals(3.0, registry.find(RepositoryMetricsInterceptor.RESULTS_NAME)
+				.tags("method", "findAll").summary().totalAmount(), 0.0);
+		
+		final MethodInvocation streamInvocation = mock(MethodInvocation.class);
+		when(streamInvocation.getMethod()).thenReturn(SettingRepository.class.getMethod("findByNameIgnoreCase", String.class));
+		when(streamInvocation.proceed()).thenReturn(Stream.of("a", "b"));
+		
+		try (Stream<?> stream = (Stream<?>)interceptor.invoke(streamInvocation))
+		{
+			// nothing is recorded until the stream is consumed and closed
+			assertEquals(2, stream.count());
+			assertNull(registry.find(RepositoryMetricsInterceptor.RESULTS_NAME).tags("method", "findByNameIgnoreCase").summary());
+		}
+		
+		final DistributionSummary results = registry.find(RepositoryMetricsInterceptor.RESULTS_NAME)
+				.tags("method", "findByNameIgnoreCase").summary();
+		assertNotNull(results);
+		assertEquals(1, results.count());
+		assertEquals(2.0, results.totalAmount(), 0.0);
+	}
+}
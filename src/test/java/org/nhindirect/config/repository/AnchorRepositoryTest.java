@@ -13,6 +13,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.projection.AnchorSummary;
 import org.nhindirect.config.store.Anchor;
 import org.nhindirect.config.store.EntityStatus;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -184,5 +185,24 @@ public class AnchorRepositoryTest extends SpringBaseTest
 			assertEquals(TEST_DOMAIN, anchor.getOwner());
 		}
 	}
+	
+	@Test
+	public void testFindSummaries() throws Exception
+	{
+		addTestAnchors();
+		
+		final List<AnchorSummary> summaries = repo.findSummariesByOwnerIgnoreCase(TEST_DOMAIN.toUpperCase());
+		assertEquals(2, summaries.size());
+		
+		for (AnchorSummary summary : summaries)
+		{
+			assertEquals(TEST_DOMAIN, summary.getOwner());
+			assertNotNull(summary.getThumbprint());
+			assertTrue(summary.getId() > 0);
+			assertTrue(summary.isIncoming());
+			assertTrue(summary.isOutgoing());
+		}
+		
+		assertEquals(2, repo.findAllSummaries().size());
+	}
 }
-
@@ -0,0 +1,149 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.nhindirect.config.repository.projection.CertPolicyUseSummary;
+import org.nhindirect.config.store.CertPolicy;
+import org.nhindirect.config.store.CertPolicyGroup;
+import org.nhindirect.config.store.CertPolicyGroupDomainReltn;
+import org.nhindirect.config.store.CertPolicyGroupReltn;
+import org.nhindirect.config.store.CertPolicyUse;
+import org.nhindirect.config.store.Domain;
+import org.nhindirect.policy.PolicyLexicon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CertPolicyGroupDomainReltnRepository_getPolicyGraphByDomainTest extends CertPolicyDaoBaseTest
+{
+	@Autowired
+	private EntityManagerFactory emf;
+	
+	protected CertPolicy addPolicy(String policyName, byte[] data)
+	{
+		final CertPolicy policy = new CertPolicy();
+		policy.setPolicyName(policyName);
+		policy.setLexicon(PolicyLexicon.SIMPLE_TEXT_V1);
+		policy.setPolicyData(data);
+		
+		return polRepo.save(policy);
+	}
+	
+	protected CertPolicyGroupReltn newPolicyUse(CertPolicyGroup group, CertPolicy policy, CertPolicyUse use, boolean incoming, boolean outgoing)
+	{
+		final CertPolicyGroupReltn reltn = new CertPolicyGroupReltn();
+		reltn.setCertPolicy(policy);
+		reltn.setCertPolicyGroup(group);
+		reltn.setPolicyUse(use);
+		reltn.setIncoming(incoming);
+		reltn.setOutgoing(outgoing);
+		
+		return reltn;
+	}
+	
+	protected Domain addPolicyGraph()
+	{
+		final Domain domain = dmRepo.save(new Domain("Test.com"));
+		
+		final CertPolicy policy1 = addPolicy("Policy 1", new byte[] {1,2,3});
+		final CertPolicy policy2 = addPolicy("Policy 2", new byte[] {4,5,6});
+		
+		CertPolicyGroup group = new CertPolicyGroup();
+		group.setPolicyGroupName("Test Group");
+		group = groupRepo.save(group);
+		
+		group.setCertPolicyGroupReltn(new ArrayList<>(Arrays.asList(newPolicyUse(group, policy1, CertPolicyUse.TRUST, true, false), 
+				newPolicyUse(group, policy2, CertPolicyUse.PUBLIC_RESOLVER, false, true))));
+		group = groupRepo.save(group);
+		
+		final CertPolicyGroupDomainReltn reltn = new CertPolicyGroupDomainReltn();
+		reltn.setCertPolicyGroup(group);
+		reltn.setDomain(domain);
+		reltnRepo.save(reltn);
+		
+		return domain;
+	}
+	
+	@Test
+	public void testFindWithPoliciesByDomain_associationsExist_assertGraphLoaded()
+	{
+		addPolicyGraph();
+		
+		final List<CertPolicyGroupDomainReltn> reltns = reltnRepo.findWithPoliciesByDomainNameIgnoreCase("TEST.COM");
+		assertEquals(1, reltns.size());
+		
+		final Collection<CertPolicyGroupReltn> policyUses = reltns.get(0).getCertPolicyGroup().getCertPolicyGroupReltn();
+		assertTrue(Hibernate.isInitialized(policyUses));
+		assertEquals(2, policyUses.size());
+		
+		final Map<String, CertPolicyGroupReltn> byName = new HashMap<>();
+		for (CertPolicyGroupReltn use : policyUses)
+			byName.put(use.getCertPolicy().getPolicyName(), use);
+		
+		assertEquals(CertPolicyUse.TRUST, byName.get("Policy 1").getPolicyUse());
+		assertTrue(byName.get("Policy 1").isIncoming());
+		assertTrue(Arrays.equals(new byte[] {1,2,3}, byName.get("Policy 1").getCertPolicy().getPolicyData()));
+		assertEquals(CertPolicyUse.PUBLIC_RESOLVER, byName.get("Policy 2").getPolicyUse());
+		assertTrue(byName.get("Policy 2").isOutgoing());
+	}
+	
+	@Test
+	public void testFindWithPoliciesByDomain_associationsExist_assertSingleStatement()
+	{
+		addPolicyGraph();
+		
+		final Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		
+		final List<CertPolicyGroupDomainReltn> reltns = reltnRepo.findWithPoliciesByNormalizedDomainName("test.com");
+		assertEquals(1, reltns.size());
+		for (CertPolicyGroupReltn use : reltns.get(0).getCertPolicyGroup().getCertPolicyGroupReltn())
+			assertEquals(3, use.getCertPolicy().getPolicyData().length);
+		
+		// the domain, group, policy uses and policies are all fetched by the one joined query
+		assertEquals(1, stats.getPrepareStatementCount());
+	}
+	
+	@Test
+	public void testFindWithPoliciesByDomain_unknownDomain_assertEmpty()
+	{
+		addPolicyGraph();
+		
+		assertTrue(reltnRepo.findWithPoliciesByDomainNameIgnoreCase("other.com").isEmpty());
+	}
+	
+	@Test
+	public void testFindPolicySummariesByDomain_associationsExist_assertMetadataRetrieved()
+	{
+		addPolicyGraph();
+		
+		final List<CertPolicyUseSummary> summaries = reltnRepo.findPolicySummariesByDomainNameIgnoreCase("test.com");
+		assertEquals(2, summaries.size());
+		
+		final Map<String, CertPolicyUseSummary> byName = new HashMap<>();
+		for (CertPolicyUseSummary summary : summaries)
+			byName.put(summary.getPolicyName(), summary);
+		
+		final CertPolicyUseSummary summary = byName.get("Policy 1");
+		assertEquals("Test Group", summary.getPolicyGroupName());
+		assertEquals(PolicyLexicon.SIMPLE_TEXT_V1, summary.getLexicon());
+		assertEquals(CertPolicyUse.TRUST, summary.getPolicyUse());
+		assertTrue(summary.isIncoming());
+		assertTrue(summary.getPolicyCreateTime() != null);
+		assertEquals(CertPolicyUse.PUBLIC_RESOLVER, byName.get("Policy 2").getPolicyUse());
+	}
+}
@@ -19,7 +19,7 @@ public class CertPolicyGroupRepository_removePolicyUseFromGroupTest extends Cert
 	@Test
 	public void testRemovePolicyFromGroup_addedPolicyToGroup_assertAssociationRemoved()
 	{
-		final CertPolicyGroup group = new CertPolicyGroup();
+		CertPolicyGroup group = new CertPolicyGroup();
 		group.setPolicyGroupName("Test Group");
 		groupRepo.save(group);
 		
@@ -39,7 +39,7 @@ public class CertPolicyGroupRepository_removePolicyUseFromGroupTest extends Cert
 		
 		group.setCertPolicyGroupReltn(Arrays.asList(reltn));
 		
-		groupRepo.save(group);
+		group = groupRepo.save(group);
 		
 			
 		CertPolicyGroup assocGroup = groupRepo.findById(group.getId()).get();
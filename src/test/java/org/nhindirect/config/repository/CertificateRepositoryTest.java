@@ -1,6 +1,7 @@
 package org.nhindirect.config.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -13,13 +14,16 @@ import java.security.cert.CertificateFactory;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.nhindirect.common.crypto.CryptoExtensions;
 import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.projection.CertificateSummary;
 import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.EntityStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -256,4 +260,29 @@ public class CertificateRepositoryTest extends SpringBaseTest
 		certificates = repo.findByOwnerIgnoreCase("gm2552@cerner.com");
 		assertEquals(0, certificates.size());
 	}		
+	
+	@Test 
+	public void testFindSummaries() throws Exception
+	{
+		Certificate cert = new Certificate();
+		cert.setData(loadPkcs12FromCertAndKey("gm2552.der", "gm2552Key.der"));
+		cert.setOwner("gm2552@cerner.com");
+		cert.setStatus(EntityStatus.ENABLED);
+		
+		cert = repo.save(cert);
+		
+		List<CertificateSummary> summaries = repo.findSummariesByOwnerIgnoreCase("GM2552@cerner.com");
+		assertEquals(1, summaries.size());
+		
+		final CertificateSummary summary = summaries.get(0);
+		assertEquals(cert.getId(), summary.getId());
+		assertEquals("gm2552@cerner.com", summary.getOwner());
+		assertEquals(cert.getThumbprint(), summary.getThumbprint());
+		assertEquals(EntityStatus.ENABLED, summary.getStatus());
+		assertTrue(summary.isPrivateKey());
+		
+		assertEquals(1, repo.findSummariesByThumbprint(cert.getThumbprint()).size());
+		assertEquals(1, repo.findAllSummaries().size());
+		assertEquals(0, repo.findSummariesByOwnerIgnoreCase("bogus@cerner.com").size());
+	}
 }
@@ -0,0 +1,96 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.Certificate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class CertificateRepository_findPageTest extends SpringBaseTest
+{
+	private static final String certBasePath = "src/test/resources/certs/"; 
+	
+	@Autowired
+	private CertificateRepository repo;
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}	
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}   
+	
+	private static Certificate createCertificate(String certFileName, String owner) throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(FileUtils.readFileToByteArray(new File(certBasePath + certFileName)));
+		cert.setOwner(owner);
+		
+		return cert;
+	}
+	
+	@Test
+	public void testFindPageByOwner_assertOwnerPagesInIdOrder() throws Exception
+	{
+		final String[] files = {"gm2552.der", "umesh.der", "cacert.der", "ryan.der", "bob.der"};
+		
+		final List<Certificate> certs = new ArrayList<>();
+		for (int i = 0; i < files.length; ++i)
+		{
+			certs.add(createCertificate(files[i], "test.com"));
+			certs.add(createCertificate(files[i], "other.com"));
+		}
+		repo.importCertificates(certs, null);
+		
+		final List<Certificate> paged = new ArrayList<>();
+		KeysetPage<Certificate> page = repo.findPageByOwnerIgnoreCase("TEST.com", null, 2);
+		paged.addAll(page.getContent());
+		while (page.hasNext())
+		{
+			page = repo.findPageByOwnerIgnoreCase("TEST.com", page.getNextToken(), 2);
+			paged.addAll(page.getContent());
+		}
+		
+		assertEquals(files.length, paged.size());
+		for (int i = 0; i < paged.size(); ++i)
+		{
+			assertEquals("test.com", paged.get(i).getOwner());
+			if (i > 0)
+				assertTrue(paged.get(i - 1).getId() < paged.get(i).getId());
+		}
+	}
+	
+	@Test
+	public void testFindPage_tokenAfterDeletedRow_assertContinuesAfterPosition() throws Exception
+	{
+		final List<Certificate> certs = new ArrayList<>();
+		certs.add(createCertificate("gm2552.der", "a@test.com"));
+		certs.add(createCertificate("umesh.der", "b@test.com"));
+		certs.add(createCertificate("ryan.der", "c@test.com"));
+		repo.importCertificates(certs, null);
+		
+		final KeysetPage<Certificate> first = repo.findPage(null, 1);
+		assertTrue(first.hasNext());
+		
+		// the token carries the position, not the row, so removing the row does not break paging
+		repo.deleteById(first.getContent().get(0).getId());
+		
+		final KeysetPage<Certificate> second = repo.findPage(first.getNextToken(), 5);
+		assertEquals(2, second.getContent().size());
+		assertFalse(second.hasNext());
+	}
+}
@@ -0,0 +1,175 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.io.FileUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.ConfigChangeType;
+import org.nhindirect.config.store.EntityStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CertificateRepository_importCertificatesTest extends SpringBaseTest
+{
+	private static final String certBasePath = "src/test/resources/certs/"; 
+	
+	@Autowired
+	private CertificateRepository repo;
+	
+	@Autowired
+	private ConfigChangeRepository changeRepo;
+	
+	@Autowired
+	private PlatformTransactionManager txManager;
+	
+	@Autowired
+	private EntityManagerFactory emf;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}	
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}   
+	
+	private static Certificate createCertificate(String certFileName, String owner) throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(FileUtils.readFileToByteArray(new File(certBasePath + certFileName)));
+		cert.setOwner(owner);
+		
+		return cert;
+	}
+	
+	@Test
+	public void testImportCertificates_assertImported() throws Exception
+	{
+		final String[] files = {"gm2552.der", "umesh.der", "cacert.der", "ryan.der", "bob.der"};
+		
+		final List<Certificate> certs = new ArrayList<>();
+		for (int i = 0; i < 23; ++i)
+			certs.add(createCertificate(files[i % files.length], "user" + i + "@test.com"));
+		
+		// use a batch size that does not divide the number of certificates evenly
+		final List<Certificate> imported = repo.importCertificates(certs, null, 5);
+		
+		assertEquals(23, imported.size());
+		assertEquals(23, repo.count());
+		
+		final Set<Long> ids = new HashSet<>();
+		for (Certificate cert : imported)
+		{
+			assertTrue(cert.getId() > 0);
+			assertTrue(ids.add(cert.getId()));
+			assertNotNull(cert.getValidStartDate());
+			assertNotNull(cert.getValidEndDate());
+			assertEquals(EntityStatus.NEW, cert.getStatus());
+			assertFalse(cert.isPrivateKey());
+		}
+		
+		final List<Certificate> found = repo.findByOwnerIgnoreCase("USER7@test.com");
+		assertEquals(1, found.size());
+		assertEquals("user7@test.com", found.get(0).getOwner());
+	}
+	
+	@Test
+	public void testImportCertificates_privateKey_assertPrivateKeyFlag() throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(CertificateRepositoryTest.loadPkcs12FromCertAndKey("gm2552.der", "gm2552Key.der"));
+		cert.setOwner("gm2552@cerner.com");
+		
+		final List<Certificate> certs = new ArrayList<>();
+		certs.add(cert);
+		repo.importCertificates(certs, null);
+		
+		final List<Certificate> found = repo.findByOwnerIgnoreCase("gm2552@cerner.com");
+		assertEquals(1, found.size());
+		assertTrue(found.get(0).isPrivateKey());
+	}
+	
+	@Test
+	public void testImportCertificates_inTransaction_assertCallerEntitiesStayManaged() throws Exception
+	{
+		final long existingId = repo.save(createCertificate("gm2552.der", "existing@test.com")).getId();
+		
+		new TransactionTemplate(txManager).execute(status ->
+		{
+			try
+			{
+				final Certificate existing = entityManager.find(Certificate.class, existingId);
+				
+				final List<Certificate> certs = new ArrayList<>();
+				for (int i = 0; i < 7; ++i)
+					certs.add(createCertificate("umesh.der", "user" + i + "@test.com"));
+				
+				final List<Certificate> imported = repo.importCertificates(certs, null, 3);
+				
+				assertTrue(entityManager.contains(existing));
+				for (Certificate cert : imported)
+					assertFalse(entityManager.contains(cert));
+			}
+			catch (Exception e)
+			{
+				throw new IllegalStateException(e);
+			}
+			
+			return null;
+		});
+		
+		assertEquals(8, repo.count());
+	}
+	
+	@Test
+	public void testImportCertificates_largeBatch_assertChangeLogWrittenInBatches() throws Exception
+	{
+		final long start = changeRepo.findLatestSequence();
+		
+		final List<Certificate> certs = new ArrayList<>();
+		for (int i = 0; i < 300; ++i)
+			certs.add(createCertificate("umesh.der", "user" + i + "@test.com"));
+		
+		final Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		
+		repo.importCertificates(certs, null);
+		
+		// a few statements per batch of certificates and one for the whole change log, rather than two per certificate
+		assertTrue(stats.getPrepareStatementCount() < 30);
+		
+		final List<ConfigChange> changes = changeRepo.findChangesAfter(Certificate.class, start, 1000);
+		assertEquals(300, changes.size());
+		for (ConfigChange change : changes)
+			assertEquals(ConfigChangeType.INSERT, change.getChangeType());
+	}
+}
@@ -0,0 +1,66 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.common.cert.Thumbprint;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.Certificate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+public class CertificateRepository_loadTest extends SpringBaseTest
+{
+	@Autowired
+	private CertificateRepository repo;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}
+	
+	@Test
+	public void testLoad_storedThumbprintNotRecalculated() throws Exception
+	{
+		final byte[] certData = FileUtils.readFileToByteArray(new File("./src/test/resources/certs/gm2552.der"));
+		
+		Certificate addCert = new Certificate();
+		addCert.setData(certData);
+		addCert.setOwner("gm2552@cerner.com");
+		
+		addCert = repo.save(addCert);
+		entityManager.flush();
+		
+		// if loading the entity decoded the data, the thumbprint would be recalculated from the certificate
+		entityManager.createQuery("update Certificate c set c.thumbprint = 'storedThumbprint' where c.id = :id")
+			.setParameter("id", addCert.getId()).executeUpdate();
+		entityManager.clear();
+		
+		final Certificate cert = repo.findById(addCert.getId()).get();
+		
+		assertEquals("storedThumbprint", cert.getThumbprint());
+		assertArrayEquals(certData, cert.getData());
+		assertFalse(cert.isPrivateKey());
+		assertEquals(addCert.getThumbprint(), Thumbprint.toThumbprint(cert.toCredential().getCert()).toString());
+	}
+}
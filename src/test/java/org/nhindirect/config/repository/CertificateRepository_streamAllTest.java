@@ -0,0 +1,98 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.Certificate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class CertificateRepository_streamAllTest extends SpringBaseTest
+{
+	private static final String certBasePath = "src/test/resources/certs/"; 
+	
+	@Autowired
+	private CertificateRepository repo;
+	
+	@Autowired
+	private PlatformTransactionManager txManager;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}	
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}   
+	
+	private static Certificate createCertificate(String certFileName, String owner) throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(FileUtils.readFileToByteArray(new File(certBasePath + certFileName)));
+		cert.setOwner(owner);
+		
+		return cert;
+	}
+	
+	@Test
+	public void testStreamAll_assertAllStreamedInIdOrderAndDetached() throws Exception
+	{
+		final String[] files = {"gm2552.der", "umesh.der", "cacert.der", "ryan.der", "bob.der"};
+		
+		final List<Certificate> certs = new ArrayList<>();
+		for (int i = 0; i < 12; ++i)
+			certs.add(createCertificate(files[i % files.length], "user" + i + "@test.com"));
+		repo.importCertificates(certs, null);
+		
+		final List<Certificate> streamed = new ArrayList<>();
+		new TransactionTemplate(txManager).execute(status ->
+		{
+			// a fetch size smaller than the table forces several round trips
+			try (Stream<Certificate> stream = repo.streamAll(5))
+			{
+				stream.forEach(cert ->
+				{
+					assertTrue(cert.getData().length > 0);
+					streamed.add(cert);
+				});
+			}
+			
+			for (Certificate cert : streamed)
+				assertFalse(entityManager.contains(cert));
+			
+			return null;
+		});
+		
+		assertEquals(12, streamed.size());
+		for (int i = 1; i < streamed.size(); ++i)
+			assertTrue(streamed.get(i - 1).getId() < streamed.get(i).getId());
+	}
+	
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void testStreamAll_noTransaction_assertException() throws Exception
+	{
+		repo.streamAll();
+	}
+}
@@ -0,0 +1,140 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.ConfigChangeType;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.Setting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ConfigChangeRepositoryTest extends SpringBaseTest
+{
+	@Autowired
+	private ConfigChangeRepository changeRepo;
+	
+	@Autowired
+	private SettingRepository settingRepo;
+	
+	@Autowired
+	private PlatformTransactionManager txManager;
+	
+	protected Setting newSetting(String name, String value)
+	{
+		final Setting retVal = new Setting();
+		retVal.setName(name);
+		retVal.setValue(value);
+		retVal.setStatus(EntityStatus.ENABLED);
+		retVal.setCreateTime(Calendar.getInstance());
+		retVal.setUpdateTime(Calendar.getInstance());
+		
+		return retVal;
+	}
+	
+	@Before
+	public void cleanDataBase()
+	{
+		settingRepo.deleteAll();
+		changeRepo.deleteAll();
+	}
+	
+	@Test
+	public void testInsertUpdateDelete_assertChangesLoggedInOrder() throws Exception
+	{
+		final long start = changeRepo.findLatestSequence();
+		
+		Setting setting = settingRepo.save(newSetting("TestName1", "TestValue1"));
+		setting.setValue("TestValue2");
+		setting = settingRepo.save(setting);
+		settingRepo.deleteById(setting.getId());
+		
+		final List<ConfigChange> changes = changeRepo.findChangesAfter(start, 10);
+		assertEquals(3, changes.size());
+		
+		assertEquals(ConfigChangeType.INSERT, changes.get(0).getChangeType());
+		assertEquals(ConfigChangeType.UPDATE, changes.get(1).getChangeType());
+		assertEquals(ConfigChangeType.DELETE, changes.get(2).getChangeType());
+		for (ConfigChange change : changes)
+		{
+			assertEquals("Setting", change.getEntityType());
+			assertEquals(setting.getId(), change.getEntityId());
+			assertTrue(change.getId() > start);
+		}
+		assertTrue(changes.get(0).getId() < changes.get(1).getId());
+		assertTrue(changes.get(1).getId() < changes.get(2).getId());
+		assertEquals(changes.get(2).getId(), changeRepo.findLatestSequence());
+	}
+	
+	@Test
+	public void testChangesInOneTransaction_assertCollapsed() throws Exception
+	{
+		final long start = changeRepo.findLatestSequence();
+		
+		new TransactionTemplate(txManager).execute(status ->
+		{
+			final Setting kept = settingRepo.save(newSetting("TestName1", "TestValue1"));
+			kept.setValue("TestValue2");
+			settingRepo.flush();
+			
+			final Setting removed = settingRepo.save(newSetting("TestName2", "TestValue2"));
+			settingRepo.flush();
+			settingRepo.delete(removed);
+			
+			return null;
+		});
+		
+		final List<ConfigChange> changes = changeRepo.findChangesAfter(start, 10);
+		assertEquals(1, changes.size());
+		assertEquals(ConfigChangeType.INSERT, changes.get(0).getChangeType());
+		assertEquals(settingRepo.findByNameIgnoreCase("TestName1").getId(), changes.get(0).getEntityId());
+	}
+	
+	@Test
+	public void testRolledBackTransaction_assertNothingLogged() throws Exception
+	{
+		final long start = changeRepo.findLatestSequence();
+		
+		new TransactionTemplate(txManager).execute(status ->
+		{
+			settingRepo.save(newSetting("TestName1", "TestValue1"));
+			settingRepo.flush();
+			status.setRollbackOnly();
+			
+			return null;
+		});
+		
+		assertTrue(changeRepo.findChangesAfter(start, 10).isEmpty());
+	}
+	
+	@Test
+	public void testFindChangesAfter_byEntityType_assertFiltered() throws Exception
+	{
+		final long start = changeRepo.findLatestSequence();
+		
+		settingRepo.save(newSetting("TestName1", "TestValue1"));
+		
+		assertEquals(1, changeRepo.findChangesAfter(Setting.class, start, 10).size());
+		assertTrue(changeRepo.findChangesAfter(ConfigChange.class, start, 10).isEmpty());
+	}
+	
+	@Test
+	public void testDeleteByChangeTimeBefore_assertOldChangesPruned() throws Exception
+	{
+		settingRepo.save(newSetting("TestName1", "TestValue1"));
+		
+		final Calendar future = Calendar.getInstance();
+		future.add(Calendar.MINUTE, 1);
+		
+		assertEquals(1, changeRepo.deleteByChangeTimeBefore(future));
+		assertEquals(0, changeRepo.count());
+	}
+}
@@ -0,0 +1,123 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.xbill.DNS.Type;
+
+public class DNSRepository_findPageTest extends SpringBaseTest
+{
+	@Autowired
+	private DNSRepository dnsRepo;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		dnsRepo.deleteAll();
+	}
+	
+	@Test
+	public void testFindPage_walkAllPages_assertAllRecordsInIdOrder() throws Exception
+	{
+		final List<DNSRecord> records = new ArrayList<>();
+		for (int i = 0; i < 25; ++i)
+			records.add(DNSRecordUtils.createARecord("host" + i + ".example.com", 3600, "10.0.0." + i));
+		dnsRepo.saveAll(records);
+		
+		final List<DNSRecord> paged = new ArrayList<>();
+		String token = null;
+		int pages = 0;
+		do
+		{
+			final KeysetPage<DNSRecord> page = dnsRepo.findPage(token, 10);
+			paged.addAll(page.getContent());
+			token = page.getNextToken();
+			++pages;
+		}
+		while (token != null);
+		
+		assertEquals(3, pages);
+		assertEquals(25, paged.size());
+		for (int i = 1; i < paged.size(); ++i)
+			assertTrue(paged.get(i - 1).getId() < paged.get(i).getId());
+	}
+	
+	@Test
+	public void testFindPage_exactMultipleOfSize_assertNoEmptyTrailingPage() throws Exception
+	{
+		for (int i = 0; i < 4; ++i)
+			dnsRepo.save(DNSRecordUtils.createARecord("host" + i + ".example.com", 3600, "10.0.0." + i));
+		
+		final KeysetPage<DNSRecord> first = dnsRepo.findPage(null, 2);
+		assertEquals(2, first.getContent().size());
+		assertTrue(first.hasNext());
+		
+		final KeysetPage<DNSRecord> second = dnsRepo.findPage(first.getNextToken(), 2);
+		assertEquals(2, second.getContent().size());
+		assertFalse(second.hasNext());
+		assertNull(second.getNextToken());
+	}
+	
+	@Test
+	public void testFindPageByType_assertOnlyTypeReturned() throws Exception
+	{
+		for (int i = 0; i < 5; ++i)
+		{
+			dnsRepo.save(DNSRecordUtils.createARecord("host" + i + ".example.com", 3600, "10.0.0." + i));
+			dnsRepo.save(DNSRecordUtils.createMXRecord("example" + i + ".com", "mail.example.com", 3600, 10));
+		}
+		
+		final KeysetPage<DNSRecord> first = dnsRepo.findPageByType(Type.MX, null, 3);
+		assertEquals(3, first.getContent().size());
+		assertTrue(first.hasNext());
+		
+		final KeysetPage<DNSRecord> second = dnsRepo.findPageByType(Type.MX, first.getNextToken(), 3);
+		assertEquals(2, second.getContent().size());
+		assertFalse(second.hasNext());
+		
+		for (DNSRecord rec : first.getContent())
+			assertEquals(Type.MX, rec.getType());
+		for (DNSRecord rec : second.getContent())
+			assertEquals(Type.MX, rec.getType());
+	}
+	
+	@Test
+	public void testFindPage_emptyTable_assertEmptyLastPage() throws Exception
+	{
+		final KeysetPage<DNSRecord> page = dnsRepo.findPage(null, 10);
+		
+		assertTrue(page.getContent().isEmpty());
+		assertFalse(page.hasNext());
+	}
+	
+	// the repository proxy translates the IllegalArgumentException of KeysetPage
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void testFindPage_malformedToken_assertException() throws Exception
+	{
+		dnsRepo.findPage("not a token", 10);
+	}
+	
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void testFindPage_invalidSize_assertException() throws Exception
+	{
+		dnsRepo.findPage(null, 0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeToken_malformedToken_assertException() throws Exception
+	{
+		KeysetPage.decodeToken("not a token");
+	}
+}
@@ -0,0 +1,86 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class DNSRepository_streamAllTest extends SpringBaseTest
+{
+	@Autowired
+	private DNSRepository dnsRepo;
+	
+	@Autowired
+	private PlatformTransactionManager txManager;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		dnsRepo.deleteAll();
+	}
+	
+	@Test
+	public void testStreamAll_assertAllStreamedAndDetached() throws Exception
+	{
+		final List<DNSRecord> records = new ArrayList<>();
+		for (int i = 0; i < 25; ++i)
+			records.add(DNSRecordUtils.createARecord("host" + i + ".example.com", 3600, "10.0.0." + i));
+		dnsRepo.saveAll(records);
+		
+		final List<String> names = new TransactionTemplate(txManager).execute(status ->
+		{
+			try (Stream<DNSRecord> stream = dnsRepo.streamAll(10))
+			{
+				return stream.map(DNSRecord::getName).collect(Collectors.toList());
+			}
+		});
+		
+		assertEquals(25, names.size());
+		assertEquals("host0.example.com.", names.get(0));
+	}
+	
+	@Test
+	public void testStreamAll_consumedRecords_assertDetached() throws Exception
+	{
+		dnsRepo.save(DNSRecordUtils.createARecord("host.example.com", 3600, "10.0.0.1"));
+		
+		new TransactionTemplate(txManager).execute(status ->
+		{
+			final List<DNSRecord> streamed;
+			try (Stream<DNSRecord> stream = dnsRepo.streamAll())
+			{
+				streamed = stream.collect(Collectors.toList());
+			}
+			
+			assertEquals(1, streamed.size());
+			assertFalse(entityManager.contains(streamed.get(0)));
+			
+			return null;
+		});
+	}
+	
+	@Test(expected = InvalidDataAccessApiUsageException.class)
+	public void testStreamAll_noTransaction_assertException() throws Exception
+	{
+		dnsRepo.streamAll();
+	}
+}
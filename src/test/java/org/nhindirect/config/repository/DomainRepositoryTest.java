@@ -14,6 +14,7 @@ import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.projection.DomainSummary;
 import org.nhindirect.config.store.Address;
 import org.nhindirect.config.store.Domain;
 import org.nhindirect.config.store.EntityStatus;
@@ -246,4 +247,52 @@ public class DomainRepositoryTest  extends SpringBaseTest
 
 	}
 	
+	
+	@Test
+	public void testFindWithAddresses() 
+	{
+		Domain domain = new Domain("health.testdomain.com");
+		domain.setStatus(EntityStatus.ENABLED);
+		domain.getAddresses().add(new Address(domain, "user1@health.testdomain.com"));
+		domain.getAddresses().add(new Address(domain, "user2@health.testdomain.com"));
+		domRepo.save(domain);
+		
+		domain = new Domain("health.newdomain.com");
+		domain.setStatus(EntityStatus.NEW);
+		domRepo.save(domain);
+		
+		Domain testDomain = domRepo.findWithAddressesByDomainNameIgnoreCase("HEALTH.testdomain.com");
+		assertEquals(2, testDomain.getAddresses().size());
+		
+		List<Domain> domains = domRepo.findWithAddressesByStatus(EntityStatus.ENABLED);
+		assertEquals(1, domains.size());
+		assertEquals(2, domains.get(0).getAddresses().size());
+		
+		// distinct domains, not one row per address
+		assertEquals(2, domRepo.findAllWithAddresses().size());
+	}
+	
+	@Test
+	public void testFindSummaries() 
+	{
+		Domain domain = new Domain("health.testdomain.com");
+		domain.setStatus(EntityStatus.ENABLED);
+		domain.getAddresses().add(new Address(domain, "user1@health.testdomain.com"));
+		domRepo.save(domain);
+		
+		domain = new Domain("health.newdomain.com");
+		domain.setStatus(EntityStatus.NEW);
+		domRepo.save(domain);
+		
+		assertEquals(2, domRepo.findAllSummaries().size());
+		
+		List<DomainSummary> summaries = domRepo.findSummariesByStatus(EntityStatus.ENABLED);
+		assertEquals(1, summaries.size());
+		assertEquals("health.testdomain.com", summaries.get(0).getDomainName());
+		assertEquals(EntityStatus.ENABLED, summaries.get(0).getStatus());
+		
+		summaries = domRepo.findSummariesByDomainNameContainingIgnoreCase("NEWDOMAIN");
+		assertEquals(1, summaries.size());
+		assertEquals("health.newdomain.com", summaries.get(0).getDomainName());
+	}
 }
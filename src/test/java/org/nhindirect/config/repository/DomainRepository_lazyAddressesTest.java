@@ -0,0 +1,77 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.Address;
+import org.nhindirect.config.store.Domain;
+import org.nhindirect.config.store.EntityStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Runs without a transaction and with lazy loading outside of a transaction turned off, so the domains
+ * returned by the repository are detached and their address collections can't be loaded.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.enable_lazy_load_no_trans=false")
+public class DomainRepository_lazyAddressesTest extends SpringBaseTest
+{
+	@Autowired
+	private DomainRepository domRepo;
+
+	@Autowired
+	private AddressRepository addRepo;
+
+	@Before
+	public void cleanDataBase()
+	{
+		addRepo.deleteAll();
+		domRepo.deleteAll();
+
+		final Domain domain = new Domain("health.newdomain.com");
+		domain.setStatus(EntityStatus.ENABLED);
+		domain.getAddresses().add(new Address(domain, "test1@health.newdomain.com", "Test1"));
+		domain.getAddresses().add(new Address(domain, "postmaster@health.newdomain.com", "Postmaster"));
+		final Domain saved = domRepo.save(domain);
+
+		saved.setPostMasterEmail("postmaster@health.newdomain.com");
+		domRepo.save(saved);
+	}
+
+	@Test(expected = LazyInitializationException.class)
+	public void testGetAddresses_notLoaded_assertException()
+	{
+		final Domain domain = domRepo.findByDomainNameIgnoreCase("health.newdomain.com");
+
+		domain.getAddresses().size();
+	}
+
+	@Test
+	public void testGetPostMasterEmail_addressesNotLoaded()
+	{
+		final Domain domain = domRepo.findByDomainNameIgnoreCase("health.newdomain.com");
+
+		assertFalse(Hibernate.isInitialized(domain.getAddresses()));
+		assertEquals("postmaster@health.newdomain.com", domain.getPostMasterEmail());
+
+		// setting the current postmaster again doesn't need the addresses
+		domain.setPostMasterEmail("postmaster@health.newdomain.com");
+		assertEquals("postmaster@health.newdomain.com", domain.getPostMasterEmail());
+	}
+
+	@Test
+	public void testGetPostMasterEmail_addressesLoaded()
+	{
+		final Domain domain = domRepo.findWithAddressesByDomainNameIgnoreCase("health.newdomain.com");
+
+		assertTrue(Hibernate.isInitialized(domain.getAddresses()));
+		assertEquals(2, domain.getAddresses().size());
+		assertEquals("postmaster@health.newdomain.com", domain.getPostMasterEmail());
+	}
+}
@@ -0,0 +1,128 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class InListQueryExecutorTest
+{
+	@Test
+	public void testChunk_assertPaddedToPowersOfTwo()
+	{
+		final List<Integer> keys = IntStream.range(0, 21).boxed().collect(Collectors.toList());
+		
+		final List<List<Integer>> chunks = InListQueryExecutor.chunk(keys, 8);
+		
+		assertEquals(3, chunks.size());
+		assertEquals(8, chunks.get(0).size());
+		assertEquals(8, chunks.get(1).size());
+		// 5 remaining keys padded to 8 with the last key
+		assertEquals(Arrays.asList(16, 17, 18, 19, 20, 20, 20, 20), chunks.get(2));
+	}
+	
+	@Test
+	public void testChunk_duplicatesAndNulls_assertDropped()
+	{
+		final List<List<String>> chunks = InListQueryExecutor.chunk(Arrays.asList("a", null, "b", "a", "c"), 8);
+		
+		assertEquals(1, chunks.size());
+		assertEquals(Arrays.asList("a", "b", "c", "c"), chunks.get(0));
+	}
+	
+	@Test
+	public void testChunk_singleKey_assertNotPadded()
+	{
+		assertEquals(Collections.singletonList(Collections.singletonList("a")), InListQueryExecutor.chunk(Collections.singletonList("a"), 8));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunk_chunkSizeNotPowerOfTwo_assertException()
+	{
+		InListQueryExecutor.chunk(Arrays.asList("a", "b"), 6);
+	}
+	
+	@Test
+	public void testExecute_noKeys_assertQueryNotRun()
+	{
+		final List<String> result = InListQueryExecutor.execute(Collections.<String>emptyList(), chunk -> 
+		{
+			throw new AssertionError("query should not run");
+		});
+		
+		assertTrue(result.isEmpty());
+	}
+	
+	@Test
+	public void testExecute_manyChunks_assertAllResultsMerged()
+	{
+		final List<Integer> keys = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+		final Set<Integer> chunkSizes = ConcurrentHashMap.newKeySet();
+		
+		final List<Integer> result = InListQueryExecutor.execute(keys, 64, chunk ->
+		{
+			chunkSizes.add(chunk.size());
+			// an IN list query returns each matching row once regardless of repeated keys
+			return new ArrayList<>(new HashSet<>(chunk));
+		});
+		
+		assertEquals(1000, result.size());
+		assertEquals(new HashSet<>(keys), new HashSet<>(result));
+		assertEquals(Collections.singleton(64), chunkSizes);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testExecute_chunkFails_assertExceptionPropagated()
+	{
+		final List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+		
+		InListQueryExecutor.execute(keys, 16, chunk -> 
+		{
+			if (chunk.contains(50))
+				throw new IllegalStateException("query failed");
+			
+			return chunk;
+		});
+	}
+	
+	@Test
+	public void testExecute_entityManagerBound_assertChunksRunOnCallingThread()
+	{
+		final List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		
+		// an open entity manager in view request binds an entity manager without starting a transaction
+		final Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, new EntityManagerHolder(Mockito.mock(EntityManager.class)));
+		try
+		{
+			final List<Integer> result = InListQueryExecutor.execute(keys, 16, chunk ->
+			{
+				threads.add(Thread.currentThread());
+				return new ArrayList<>(new HashSet<>(chunk));
+			});
+			
+			assertEquals(100, result.size());
+			assertEquals(Collections.singleton(Thread.currentThread()), threads);
+		}
+		finally
+		{
+			TransactionSynchronizationManager.unbindResource(key);
+		}
+	}
+}
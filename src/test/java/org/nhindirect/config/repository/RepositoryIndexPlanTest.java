@@ -0,0 +1,104 @@
+/* 
+Copyright (c) 2010, NHIN Direct Project
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer 
+   in the documentation and/or other materials provided with the distribution.  
+3. Neither the name of the The NHIN Direct Project (nhindirect.org) nor the names of its contributors may be used to endorse or promote 
+   products derived from this software without specific prior written permission.
+   
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF 
+THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+public class RepositoryIndexPlanTest extends SpringBaseTest
+{
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	protected void assertPlanUsesIndex(String sql, String indexName)
+	{
+		final String plan = String.valueOf(entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult()).toUpperCase();
+		
+		assertTrue("Expected " + indexName + " in plan: " + plan, plan.contains(indexName));
+	}
+	
+	@Test
+	public void testCertificateOwnerLookup_usesIndex()
+	{
+		assertPlanUsesIndex("select * from certificate where normalized_owner = 'gm2552@cerner.com'", "IDX_RI_CERTIFICATE_NORMALIZEDOWNER_ID");
+	}
+	
+	@Test
+	public void testAnchorOwnerLookup_usesIndex()
+	{
+		assertPlanUsesIndex("select * from anchor where normalized_owner = 'cerner.com'", "IDX_RI_ANCHOR_NORMALIZEDOWNER_ID");
+	}
+	
+	@Test
+	public void testAddressLookups_useIndexes()
+	{
+		assertPlanUsesIndex("select * from address where normalized_email_address = 'me@test.com'", "IDX_RI_ADDRESS_NORMALIZEDEMAILADDRESS");
+	}
+	
+	@Test
+	public void testDomainNameLookup_usesIndex()
+	{
+		assertPlanUsesIndex("select * from domain where normalized_domain_name = 'test.com'", "IDX_RI_DOMAIN_NORMALIZEDDOMAINNAME");
+	}
+	
+	@Test
+	public void testDNSRecordLookups_useIndexes()
+	{
+		assertPlanUsesIndex("select * from dnsrecord where normalized_name = 'test.com.' and type = 1", "IDX_RI_DNSRECORD_NORMALIZEDNAME_TYPE");
+		assertPlanUsesIndex("select * from dnsrecord where type = 1", "IDX_RI_DNSRECORD_TYPE_ID");
+	}
+	
+	@Test
+	public void testFilteredKeysetPages_useCompositeIndexes()
+	{
+		assertPlanUsesIndex("select * from certificate where normalized_owner = 'gm2552@cerner.com' and id > 100 order by id limit 10", 
+				"IDX_RI_CERTIFICATE_NORMALIZEDOWNER_ID");
+		assertPlanUsesIndex("select * from anchor where normalized_owner = 'cerner.com' and id > 100 order by id limit 10", 
+				"IDX_RI_ANCHOR_NORMALIZEDOWNER_ID");
+		assertPlanUsesIndex("select * from address where domain_id = 1 and id > 100 order by id limit 10", "IDX_RI_ADDRESS_DOMAINID_ID");
+		assertPlanUsesIndex("select * from dnsrecord where type = 1 and id > 100 order by id limit 10", "IDX_RI_DNSRECORD_TYPE_ID");
+	}
+	
+	@Test
+	public void testTrustBundleRelationLookups_useIndexes()
+	{
+		assertPlanUsesIndex("select * from trustbundleanchor where trust_bundle_id = 1", "IDX_RI_TRUSTBUNDLEANCHOR_TRUSTBUNDLEID");
+		assertPlanUsesIndex("select * from trustbundledomainreltn where domain_id = 1", "IDX_RI_TRUSTBUNDLEDOMAINRELTN_DOMAINID");
+		assertPlanUsesIndex("select * from trustbundledomainreltn where trust_bundle_id = 1", "IDX_RI_TRUSTBUNDLEDOMAINRELTN_TRUSTBUNDLEID");
+	}
+	
+	@Test
+	public void testPolicyRelationLookups_useIndexes()
+	{
+		assertPlanUsesIndex("select * from certpolicygroupdomainreltn where domain_id = 1", "IDX_RI_CERTPOLICYGROUPDOMAINRELTN_DOMAINID");
+		assertPlanUsesIndex("select * from certpolicygroupdomainreltn where policy_group_id = 1", "IDX_RI_CERTPOLICYGROUPDOMAINRELTN_POLICYGROUPID");
+		assertPlanUsesIndex("select * from certpolicygroupreltn where cert_policy_group_id = 1", "IDX_RI_CERTPOLICYGROUPRELTN_POLICYGROUPID");
+		assertPlanUsesIndex("select * from certpolicygroupreltn where cert_policy_id = 1", "IDX_RI_CERTPOLICYGROUPRELTN_POLICYID");
+	}
+}
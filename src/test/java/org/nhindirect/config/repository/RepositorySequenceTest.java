@@ -0,0 +1,132 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Calendar;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.Setting;
+import org.nhindirect.config.store.util.PooledSequenceValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * The changed allocation size needs a database of its own.  Sharing the default in memory database with the contexts of 
+ * the other tests would hand out ids from setting_seq in blocks of both 5 and 50.
+ */
+@TestPropertySource(properties = {"spring.jpa.properties.org.nhindirect.config.store.id.setting_seq.allocation_size=5",
+		"spring.datasource.url=jdbc:h2:mem:repositorysequencetest;DB_CLOSE_DELAY=-1"})
+public class RepositorySequenceTest extends SpringBaseTest
+{
+	@Autowired
+	private SettingRepository repo;
+	
+	@Autowired
+	private EntityManagerFactory emf;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}
+	
+	protected long sequenceIncrement(String sequenceName)
+	{
+		return ((Number)entityManager.createNativeQuery("select increment from information_schema.sequences where lower(sequence_name) = :name")
+				.setParameter("name", sequenceName).getSingleResult()).longValue();
+	}
+	
+	@Test
+	public void testSequences_allocationSizes()
+	{
+		assertEquals(5, sequenceIncrement("setting_seq"));
+		assertEquals(50, sequenceIncrement("address_seq"));
+		assertEquals(50, sequenceIncrement("certificate_seq"));
+	}
+	
+	@Test
+	public void testSave_idsAssignedFromPool()
+	{
+		long lastId = 0;
+		for (int i = 0; i < 12; ++i)
+		{
+			final Setting setting = new Setting();
+			setting.setName("TestName" + i);
+			setting.setValue("TestValue" + i);
+			setting.setStatus(EntityStatus.ENABLED);
+			setting.setUpdateTime(Calendar.getInstance());
+			
+			final long id = repo.save(setting).getId();
+			if (lastId != 0)
+				assertEquals(lastId + 1, id);
+			lastId = id;
+		}
+	}
+	
+	@Test
+	public void testValidate_matchingIncrements()
+	{
+		new PooledSequenceValidator().sessionFactoryCreated(emf.unwrap(SessionFactory.class));
+	}
+	
+	@Test(expected = HibernateException.class)
+	public void testValidate_incrementDoesNotMatchAllocationSize_assertException()
+	{
+		jdbcTemplate.execute("alter sequence setting_seq increment by 50");
+		try
+		{
+			new PooledSequenceValidator().sessionFactoryCreated(emf.unwrap(SessionFactory.class));
+		}
+		finally
+		{
+			jdbcTemplate.execute("alter sequence setting_seq increment by 5");
+		}
+	}
+	
+	@Test
+	public void testValidate_sequencesInOtherSchema_assertNotRead()
+	{
+		jdbcTemplate.execute("create schema validator_other");
+		try
+		{
+			jdbcTemplate.execute("create sequence validator_other.setting_seq increment by 1");
+			jdbcTemplate.execute("create sequence validator_other.other_seq increment by 1");
+			
+			final Map<String, Long> increments = new PooledSequenceValidator()
+			{
+				private static final long serialVersionUID = 1L;
+				
+				Map<String, Long> read()
+				{
+					return getSequenceIncrements(emf.unwrap(SessionFactoryImplementor.class));
+				}
+			}.read();
+			
+			assertEquals(5L, increments.get("setting_seq").longValue());
+			assertFalse(increments.containsKey("other_seq"));
+		}
+		finally
+		{
+			jdbcTemplate.execute("drop schema validator_other cascade");
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.nhindirect.config.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -133,6 +134,45 @@ public class SettingRepositoryTest extends SpringBaseTest
 	}	
 	
 	
+	@Test 
+	public void testAddSetting_normalizedNamePopulated() throws Exception
+	{
+		addSetting("TestName1", "TestValue1");
+		
+		final Setting setting = repo.findByNameIgnoreCase("TESTNAME1");
+		
+		assertEquals("TestName1",  setting.getName());
+		assertEquals("testname1",  setting.getNormalizedName());
+	}	
+	
+	@Test 
+	public void testRenameSetting_normalizedNameUpdated() throws Exception
+	{
+		addSetting("TestName1", "TestValue1");
+		
+		Setting setting = repo.findByNameIgnoreCase("testname1");
+		setting.setName("RenamedSetting");
+		repo.save(setting);
+		
+		assertNull(repo.findByNameIgnoreCase("TestName1"));
+		
+		setting = repo.findByNameIgnoreCase("RENAMEDSETTING");
+		assertEquals("RenamedSetting",  setting.getName());
+		assertEquals("renamedsetting",  setting.getNormalizedName());
+	}	
+	
+	@Test 
+	public void testDeleteSettingByName_mixedCase() throws Exception
+	{
+		addSetting("TestName1", "TestValue1");
+		addSetting("TestName2", "TestValue2");
+		
+		repo.deleteByNameIgnoreCase("TESTname1");
+		
+		assertNull(repo.findByNameIgnoreCase("TestName1"));
+		assertEquals(1, repo.findAll().size());
+	}	
+	
 	@Test 
 	public void testUpdateSetting() throws Exception
 	{
@@ -0,0 +1,86 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.Setting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class SettingRepository_findByNameIgnoreCaseInTest extends SpringBaseTest
+{
+	@Autowired
+	private SettingRepository repo;
+	
+	@Autowired
+	private PlatformTransactionManager txManager;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}
+	
+	protected void addSettings(int count)
+	{
+		final List<Setting> settings = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+		{
+			final Setting setting = new Setting();
+			setting.setName("TestName" + i);
+			setting.setValue("TestValue" + i);
+			setting.setStatus(EntityStatus.ENABLED);
+			setting.setCreateTime(Calendar.getInstance());
+			setting.setUpdateTime(Calendar.getInstance());
+			settings.add(setting);
+		}
+		repo.saveAll(settings);
+	}
+	
+	protected List<String> getNames(int count)
+	{
+		final List<String> names = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			names.add("TESTNAME" + i);
+		
+		return names;
+	}
+	
+	@Test
+	public void testFindByNameIgnoreCaseIn_moreNamesThanChunkSize_assertAllFound()
+	{
+		addSettings(1200);
+		
+		// more names than settings, so some chunks only partly match
+		final List<Setting> settings = repo.findByNameIgnoreCaseIn(getNames(1500));
+		
+		assertEquals(1200, settings.size());
+	}
+	
+	@Test
+	public void testFindByNameIgnoreCaseIn_inTransaction_assertAllFound()
+	{
+		addSettings(1200);
+		
+		final List<Setting> settings = new TransactionTemplate(txManager).execute(status -> repo.findByNameIgnoreCaseIn(getNames(1200)));
+		
+		assertEquals(1200, settings.size());
+	}
+	
+	@Test
+	public void testFindByNameIgnoreCaseIn_emptyList_assertEmpty()
+	{
+		addSettings(1);
+		
+		assertTrue(repo.findByNameIgnoreCaseIn(new ArrayList<>()).isEmpty());
+	}
+}
@@ -0,0 +1,95 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.projection.EntityVersion;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.Setting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+public class SettingRepository_versionTest extends SpringBaseTest
+{
+	@Autowired
+	private SettingRepository repo;
+	
+	protected Setting newSetting(String name, String value)
+	{
+		final Setting retVal = new Setting();
+		retVal.setName(name);
+		retVal.setValue(value);
+		retVal.setStatus(EntityStatus.ENABLED);
+		retVal.setCreateTime(Calendar.getInstance());
+		retVal.setUpdateTime(Calendar.getInstance());
+		
+		return retVal;
+	}
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}
+	
+	@Test
+	public void testUpdate_assertVersionIncremented() throws Exception
+	{
+		Setting setting = repo.save(newSetting("TestName1", "TestValue1"));
+		assertEquals(0, setting.getVersion());
+		assertEquals(Long.valueOf(0), repo.findVersionById(setting.getId()));
+		
+		setting.setValue("TestValue2");
+		setting = repo.save(setting);
+		
+		assertEquals(1, setting.getVersion());
+		assertEquals(Long.valueOf(1), repo.findVersionById(setting.getId()));
+		
+		final EntityVersion version = repo.findVersionByNameIgnoreCase("TESTNAME1");
+		assertEquals(setting.getId(), version.getId());
+		assertEquals(1, version.getVersion());
+	}
+	
+	@Test
+	public void testFindVersionsByIdIn_assertVersionsReturned() throws Exception
+	{
+		final Setting first = repo.save(newSetting("TestName1", "TestValue1"));
+		Setting second = repo.save(newSetting("TestName2", "TestValue2"));
+		second.setValue("TestValue3");
+		second = repo.save(second);
+		
+		final List<EntityVersion> versions = repo.findVersionsByIdIn(Arrays.asList(first.getId(), second.getId()));
+		assertEquals(2, versions.size());
+		for (EntityVersion version : versions)
+			assertEquals((version.getId() == first.getId()) ? 0 : 1, version.getVersion());
+	}
+	
+	@Test
+	public void testFindVersion_unknownSetting_assertNull() throws Exception
+	{
+		assertNull(repo.findVersionById(12345L));
+		assertNull(repo.findVersionByNameIgnoreCase("TestName1"));
+	}
+	
+	@Test(expected = ObjectOptimisticLockingFailureException.class)
+	public void testUpdate_staleCopy_assertException() throws Exception
+	{
+		final Setting setting = repo.save(newSetting("TestName1", "TestValue1"));
+		
+		final Setting firstCopy = repo.findById(setting.getId()).get();
+		final Setting secondCopy = repo.findById(setting.getId()).get();
+		
+		firstCopy.setValue("TestValue2");
+		repo.save(firstCopy);
+		
+		secondCopy.setValue("TestValue3");
+		repo.save(secondCopy);
+	}
+}
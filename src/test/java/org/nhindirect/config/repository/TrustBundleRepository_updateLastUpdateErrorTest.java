@@ -16,7 +16,7 @@ public class TrustBundleRepository_updateLastUpdateErrorTest extends TrustBundle
 	{
 		final Calendar now = Calendar.getInstance(Locale.getDefault());
 		
-		final TrustBundle bundle = new TrustBundle();
+		TrustBundle bundle = new TrustBundle();
 		bundle.setBundleName("Test Bundle");
 		bundle.setBundleURL("http://testBundle/bundle.p7b");
 		bundle.setRefreshInterval(5);
@@ -28,7 +28,7 @@ public class TrustBundleRepository_updateLastUpdateErrorTest extends TrustBundle
 		bundle.setLastRefreshError(BundleRefreshError.SUCCESS);
 		bundle.setLastRefreshAttempt(now);
 		
-		tbRepo.save(bundle);
+		bundle = tbRepo.save(bundle);
 		
 		TrustBundle updatedBundle = tbRepo.findById(bundle.getId()).get();
 		
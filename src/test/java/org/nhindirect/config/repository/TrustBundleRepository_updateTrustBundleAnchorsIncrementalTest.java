@@ -0,0 +1,97 @@
+package org.nhindirect.config.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.nhindirect.config.store.ConfigurationStoreException;
+import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.TrustBundleAnchor;
+
+public class TrustBundleRepository_updateTrustBundleAnchorsIncrementalTest extends TrustBundleDaoBaseTest
+{
+	protected TrustBundleAnchor newAnchor(String certFileName) throws Exception
+	{
+		final TrustBundleAnchor anchor = new TrustBundleAnchor();
+		anchor.setData(loadCertificateData(certFileName));
+		
+		return anchor;
+	}
+	
+	protected TrustBundle addBundle(String checkSum, String... certFileNames) throws Exception
+	{
+		final TrustBundle bundle = new TrustBundle();
+		bundle.setBundleName("Test Bundle");
+		bundle.setBundleURL("http://testBundle/bundle.p7b");
+		bundle.setRefreshInterval(5);
+		bundle.setCheckSum(checkSum);
+		bundle.setCreateTime(Calendar.getInstance());
+		
+		for (String certFileName : certFileNames)
+		{
+			final TrustBundleAnchor anchor = newAnchor(certFileName);
+			anchor.setTrustBundle(bundle);
+			bundle.getTrustBundleAnchors().add(anchor);
+		}
+		
+		return tbRepo.save(bundle);
+	}
+	
+	protected Map<String, Long> anchorIds(long bundleId)
+	{
+		final Map<String, Long> retVal = new HashMap<>();
+		for (TrustBundleAnchor anchor : tbRepo.findById(bundleId).get().getTrustBundleAnchors())
+			retVal.put(anchor.getThumbprint(), anchor.getId());
+		
+		return retVal;
+	}
+	
+	@Test
+	public void testUpdateTrustBundleAnchors_diff_assertOnlyChangedRowsWritten() throws Exception
+	{
+		final TrustBundle bundle = addBundle("12345", "secureHealthEmailCACert.der", "cacert.der");
+		final Map<String, Long> originalIds = anchorIds(bundle.getId());
+		assertEquals(2, originalIds.size());
+		
+		final TrustBundleAnchor kept = newAnchor("secureHealthEmailCACert.der");
+		final TrustBundleAnchor added = newAnchor("umesh.der");
+		
+		final TrustBundleAnchorUpdate update = tbRepo.updateTrustBundleAnchors(bundle.getId(), Arrays.asList(kept, added), "6789");
+		assertFalse(update.isSkipped());
+		assertEquals(1, update.getAdded());
+		assertEquals(1, update.getRemoved());
+		assertEquals(1, update.getUnchanged());
+		
+		final Map<String, Long> updatedIds = anchorIds(bundle.getId());
+		assertEquals(2, updatedIds.size());
+		assertEquals(originalIds.get(kept.getThumbprint()), updatedIds.get(kept.getThumbprint()));
+		assertTrue(updatedIds.containsKey(added.getThumbprint()));
+		assertFalse(updatedIds.containsKey(newAnchor("cacert.der").getThumbprint()));
+		
+		assertEquals("6789", tbRepo.findById(bundle.getId()).get().getCheckSum());
+	}
+	
+	@Test
+	public void testUpdateTrustBundleAnchors_sameCheckSum_assertSkipped() throws Exception
+	{
+		final TrustBundle bundle = addBundle("12345", "secureHealthEmailCACert.der");
+		final Map<String, Long> originalIds = anchorIds(bundle.getId());
+		
+		final TrustBundleAnchorUpdate update = tbRepo.updateTrustBundleAnchors(bundle.getId(), Arrays.asList(newAnchor("umesh.der")), "12345");
+		assertTrue(update.isSkipped());
+		
+		assertEquals(originalIds, anchorIds(bundle.getId()));
+	}
+	
+	@Test(expected = ConfigurationStoreException.class)
+	public void testUpdateTrustBundleAnchors_unknownBundle_assertException() throws Exception
+	{
+		tbRepo.updateTrustBundleAnchors(12345L, Arrays.asList(newAnchor("umesh.der")), "6789");
+	}
+}
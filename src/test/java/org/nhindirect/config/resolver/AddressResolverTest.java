@@ -0,0 +1,167 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.metrics.AddressResolverMetrics;
+import org.nhindirect.config.repository.AddressRepository;
+import org.nhindirect.config.repository.ConfigChangeRepository;
+import org.nhindirect.config.repository.DomainRepository;
+import org.nhindirect.config.store.Address;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.Domain;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AddressResolverTest extends SpringBaseTest
+{
+	@Autowired
+	private AddressRepository addressRepo;
+	
+	@Autowired
+	private DomainRepository domainRepo;
+	
+	@Autowired
+	private ConfigChangeRepository changeRepo;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	private AddressResolver resolver;
+	
+	private Domain domain;
+	
+	@Before
+	public void setUpResolver()
+	{
+		addressRepo.deleteAll();
+		domainRepo.deleteAll();
+		
+		domain = domainRepo.save(new Domain("test.com"));
+		resolver = new AddressResolver(addressRepo, changeRepo);
+	}
+	
+	@After
+	public void tearDownResolver()
+	{
+		resolver.shutdown();
+	}
+	
+	protected Address addAddress(String emailAddress)
+	{
+		return addressRepo.save(new Address(domain, emailAddress));
+	}
+	
+	@Test
+	public void testFindAddress_existingAndMissing_assertMissFiltered()
+	{
+		addAddress("user1@test.com");
+		resolver.rebuild();
+		
+		assertNotNull(resolver.findAddress("USER1@test.com"));
+		assertNull(resolver.findAddress("nobody@test.com"));
+		
+		assertEquals(1, resolver.getFoundCount());
+		// a miss is either filtered or a false positive of the filter
+		assertEquals(1, resolver.getFilteredCount() + resolver.getNotFoundCount());
+	}
+	
+	@Test
+	public void testFindAddress_filterNotBuilt_assertDatabaseLookup()
+	{
+		addAddress("user1@test.com");
+		
+		assertNotNull(resolver.findAddress("user1@test.com"));
+		assertNull(resolver.findAddress("nobody@test.com"));
+		
+		assertEquals(0, resolver.getFilteredCount());
+		assertEquals(1, resolver.getNotFoundCount());
+	}
+	
+	@Test
+	public void testRefresh_addedAfterBuild_assertFound()
+	{
+		resolver.rebuild();
+		addAddress("user1@test.com");
+		
+		resolver.refresh();
+		
+		assertNotNull(resolver.findAddress("user1@test.com"));
+		assertEquals(1, resolver.getFilterSize());
+	}
+	
+	@Test
+	public void testRefresh_changeCommittedOutOfOrder_assertFound()
+	{
+		resolver.rebuild();
+		final long sequence = changeRepo.findLatestSequence();
+		addAddress("late@test.com");
+		addAddress("user1@test.com");
+		
+		// hold back the change of the first address, as if its transaction had not committed yet
+		final ConfigChange late = changeRepo.findChangesAfter(Address.class, sequence, 1).get(0);
+		final Map<String, Object> row = jdbcTemplate.queryForMap("select * from configchange where id = ?", late.getId());
+		jdbcTemplate.update("delete from configchange where id = ?", late.getId());
+		
+		resolver.refresh();
+		assertNotNull(resolver.findAddress("user1@test.com"));
+		assertEquals(1, resolver.getFilterSize());
+		
+		// the held back change becomes visible after a change with a higher sequence was read
+		jdbcTemplate.update("insert into configchange (" + String.join(", ", row.keySet()) + ") values (" 
+				+ String.join(", ", Collections.nCopies(row.size(), "?")) + ")", row.values().toArray());
+		
+		resolver.refresh();
+		assertNotNull(resolver.findAddress("late@test.com"));
+		assertEquals(2, resolver.getFilterSize());
+		
+		// changes are applied only once while they are re-read
+		resolver.refresh();
+		assertEquals(2, resolver.getFilterSize());
+	}
+	
+	@Test
+	public void testFindAddresses_assertExistingReturned()
+	{
+		addAddress("user1@test.com");
+		addAddress("user2@test.com");
+		resolver.rebuild();
+		
+		final List<Address> addresses = resolver.findAddresses(Arrays.asList("user1@test.com", "USER2@test.com", "user2@test.com", 
+				"nobody1@test.com", "nobody2@test.com"));
+		
+		assertEquals(2, addresses.size());
+		assertEquals(2, resolver.getFoundCount());
+		assertEquals(2, resolver.getFilteredCount() + resolver.getNotFoundCount());
+	}
+	
+	@Test
+	public void testBindMetrics_assertFppReported()
+	{
+		addAddress("user1@test.com");
+		resolver.rebuild();
+		resolver.findAddress("user1@test.com");
+		
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		new AddressResolverMetrics(resolver).bindTo(registry);
+		
+		final double fpp = registry.get(AddressResolverMetrics.FPP_NAME).gauge().value();
+		assertTrue(fpp >= 0 && fpp < AddressResolver.DEFAULT_FPP);
+		assertEquals(1.0, registry.get(AddressResolverMetrics.REQUESTS_NAME).tag("result", "found").functionCounter().count(), 0.0);
+		assertEquals(1.0, registry.get(AddressResolverMetrics.SIZE_NAME).gauge().value(), 0.0);
+	}
+}
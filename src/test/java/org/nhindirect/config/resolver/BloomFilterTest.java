@@ -0,0 +1,63 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BloomFilterTest
+{
+	@Test
+	public void testMightContain_addedValues_assertNoFalseNegatives()
+	{
+		final BloomFilter filter = new BloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; ++i)
+			filter.put("user" + i + "@test.com");
+		
+		for (int i = 0; i < 10000; ++i)
+			assertTrue(filter.mightContain("user" + i + "@test.com"));
+	}
+	
+	@Test
+	public void testMightContain_missingValues_assertFalsePositiveRateNearTarget()
+	{
+		final BloomFilter filter = new BloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; ++i)
+			filter.put("user" + i + "@test.com");
+		
+		int falsePositives = 0;
+		for (int i = 0; i < 100000; ++i)
+			if (filter.mightContain("other" + i + "@test.com"))
+				++falsePositives;
+		
+		// allow generous slack around the 1% target to keep the test stable
+		assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+		assertTrue(filter.getExpectedFpp() > 0.005 && filter.getExpectedFpp() < 0.02);
+	}
+	
+	@Test
+	public void testPut_sameValueTwice_assertCountedOnce()
+	{
+		final BloomFilter filter = new BloomFilter(100, 0.01);
+		
+		assertTrue(filter.put("user@test.com"));
+		assertFalse(filter.put("user@test.com"));
+		assertEquals(1, filter.getInsertionCount());
+	}
+	
+	@Test
+	public void testGetExpectedFpp_emptyFilter_assertZero()
+	{
+		final BloomFilter filter = new BloomFilter(100, 0.01);
+		
+		assertEquals(0.0, filter.getExpectedFpp(), 0.0);
+		assertFalse(filter.mightContain("user@test.com"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreate_invalidFpp_assertException()
+	{
+		new BloomFilter(100, 1.0);
+	}
+}
@@ -0,0 +1,136 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.CertificateRepository;
+import org.nhindirect.config.repository.ConfigChangeRepository;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.ConfigChange;
+import org.nhindirect.config.store.EntityStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class CachingCertificateResolverTest extends SpringBaseTest
+{
+	private static final String certBasePath = "src/test/resources/certs/"; 
+	
+	@Autowired
+	private CertificateRepository repo;
+	
+	@Autowired
+	private ConfigChangeRepository changeRepo;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}	
+	
+	@Before
+	public void cleanDataBase()
+	{
+		repo.deleteAll();
+	}   
+	
+	private static Certificate createCertificate(String certFileName, String owner) throws Exception
+	{
+		final Certificate cert = new Certificate();
+		cert.setData(FileUtils.readFileToByteArray(new File(certBasePath + certFileName)));
+		cert.setOwner(owner);
+		
+		return cert;
+	}
+	
+	@Test
+	public void testFindByOwner_caseInsensitive() throws Exception
+	{
+		final Certificate cert = repo.save(createCertificate("gm2552.der", "gm2552@securehealthemail.com"));
+		
+		final CachingCertificateResolver resolver = new CachingCertificateResolver(repo, changeRepo);
+		
+		assertEquals(1, resolver.findByOwner("GM2552@securehealthemail.com").size());
+		assertEquals(1, resolver.findByThumbprint(cert.getThumbprint()).size());
+		assertNotNull(resolver.findByOwnerAndThumbprint("gm2552@SECUREhealthemail.com", cert.getThumbprint()));
+		assertNull(resolver.findByOwnerAndThumbprint("bogus@securehealthemail.com", cert.getThumbprint()));
+		assertTrue(resolver.findByOwner("bogus@securehealthemail.com").isEmpty());
+	}
+	
+	@Test
+	public void testRefresh_addedCertificate_assertIncrementallyLoaded() throws Exception
+	{
+		repo.save(createCertificate("gm2552.der", "gm2552@securehealthemail.com"));
+		
+		final CachingCertificateResolver resolver = new CachingCertificateResolver(repo, changeRepo);
+		assertEquals(1, resolver.findByOwner("gm2552@securehealthemail.com").size());
+		
+		repo.save(createCertificate("umesh.der", "gm2552@securehealthemail.com"));
+		
+		// served from the index until it is refreshed
+		assertEquals(1, resolver.findByOwner("gm2552@securehealthemail.com").size());
+		
+		resolver.refresh();
+		assertEquals(2, resolver.findByOwner("gm2552@securehealthemail.com").size());
+	}
+	
+	@Test
+	public void testRefresh_deletedAndUpdatedCertificates_assertApplied() throws Exception
+	{
+		final Certificate deleted = repo.save(createCertificate("gm2552.der", "gm2552@securehealthemail.com"));
+		final Certificate updated = repo.save(createCertificate("umesh.der", "umesh@securehealthemail.com"));
+		
+		final CachingCertificateResolver resolver = new CachingCertificateResolver(repo, changeRepo);
+		assertEquals(1, resolver.findByOwner("gm2552@securehealthemail.com").size());
+		
+		repo.deleteById(deleted.getId());
+		updated.setStatus(EntityStatus.ENABLED);
+		repo.save(updated);
+		
+		// served from the index until it is refreshed
+		assertEquals(1, resolver.findByOwner("gm2552@securehealthemail.com").size());
+		
+		resolver.refresh();
+		assertTrue(resolver.findByOwner("gm2552@securehealthemail.com").isEmpty());
+		assertEquals(EntityStatus.ENABLED, resolver.findByOwner("umesh@securehealthemail.com").get(0).getStatus());
+	}
+	
+	@Test
+	public void testRefresh_changeCommittedOutOfOrder_assertLoaded() throws Exception
+	{
+		final CachingCertificateResolver resolver = new CachingCertificateResolver(repo, changeRepo);
+		resolver.reload();
+		
+		final long sequence = changeRepo.findLatestSequence();
+		repo.save(createCertificate("gm2552.der", "late@securehealthemail.com"));
+		repo.save(createCertificate("umesh.der", "umesh@securehealthemail.com"));
+		
+		// hold back the change of the first certificate, as if its transaction had not committed yet
+		final ConfigChange late = changeRepo.findChangesAfter(Certificate.class, sequence, 1).get(0);
+		final Map<String, Object> row = jdbcTemplate.queryForMap("select * from configchange where id = ?", late.getId());
+		jdbcTemplate.update("delete from configchange where id = ?", late.getId());
+		
+		resolver.refresh();
+		assertEquals(1, resolver.findByOwner("umesh@securehealthemail.com").size());
+		assertTrue(resolver.findByOwner("late@securehealthemail.com").isEmpty());
+		
+		// the held back change becomes visible after a change with a higher sequence was read
+		jdbcTemplate.update("insert into configchange (" + String.join(", ", row.keySet()) + ") values (" 
+				+ String.join(", ", Collections.nCopies(row.size(), "?")) + ")", row.values().toArray());
+		
+		resolver.refresh();
+		assertEquals(1, resolver.findByOwner("late@securehealthemail.com").size());
+	}
+}
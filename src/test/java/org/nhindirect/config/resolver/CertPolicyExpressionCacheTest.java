@@ -0,0 +1,116 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.nhindirect.config.metrics.CertPolicyExpressionCacheMetrics;
+import org.nhindirect.config.store.CertPolicy;
+import org.nhindirect.policy.PolicyExpression;
+import org.nhindirect.policy.PolicyLexicon;
+import org.nhindirect.policy.PolicyProcessException;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CertPolicyExpressionCacheTest
+{
+	protected static CertPolicy newPolicy(long id, String policy)
+	{
+		final CertPolicy retVal = new CertPolicy();
+		retVal.setId(id);
+		retVal.setPolicyName("Policy " + id);
+		retVal.setLexicon(PolicyLexicon.SIMPLE_TEXT_V1);
+		retVal.setPolicyData(policy.getBytes(StandardCharsets.UTF_8));
+		
+		return retVal;
+	}
+	
+	@Test
+	public void testGetExpression_samePolicy_assertCompiledOnce() throws Exception
+	{
+		final CertPolicyExpressionCache cache = new CertPolicyExpressionCache();
+		final CertPolicy policy = newPolicy(1, "X509.Algorithm = 1.2.840.113549.1.1.5");
+		
+		final PolicyExpression expression = cache.getExpression(policy);
+		assertNotNull(expression);
+		assertSame(expression, cache.getExpression(policy));
+		
+		assertEquals(1, cache.getCompileCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	public void testGetExpression_newVersion_assertRecompiled() throws Exception
+	{
+		final CertPolicyExpressionCache cache = new CertPolicyExpressionCache();
+		final CertPolicy policy = newPolicy(1, "X509.Algorithm = 1.2.840.113549.1.1.5");
+		
+		final PolicyExpression expression = cache.getExpression(policy);
+		
+		policy.setVersion(policy.getVersion() + 1);
+		
+		assertNotSame(expression, cache.getExpression(policy));
+		assertEquals(2, cache.getCompileCount());
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	public void testGetExpression_invalidate_assertRecompiled() throws Exception
+	{
+		final CertPolicyExpressionCache cache = new CertPolicyExpressionCache();
+		final CertPolicy policy = newPolicy(1, "X509.Algorithm = 1.2.840.113549.1.1.5");
+		
+		cache.getExpression(policy);
+		cache.invalidate(1);
+		cache.getExpression(policy);
+		
+		assertEquals(2, cache.getCompileCount());
+	}
+	
+	@Test
+	public void testGetExpression_invalidPolicy_assertExceptionAndErrorCounted() throws Exception
+	{
+		final CertPolicyExpressionCache cache = new CertPolicyExpressionCache();
+		final CertPolicy policy = newPolicy(1, "X509.Algorithm = ");
+		
+		boolean exceptionOccured = false;
+		try
+		{
+			cache.getExpression(policy);
+		}
+		catch (PolicyProcessException e)
+		{
+			exceptionOccured = true;
+		}
+		
+		assertTrue(exceptionOccured);
+		assertEquals(1, cache.getCompileErrorCount());
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testBindTo_compiledPolicy_assertCompileTimeReported() throws Exception
+	{
+		final CertPolicyExpressionCache cache = new CertPolicyExpressionCache();
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		new CertPolicyExpressionCacheMetrics(cache).bindTo(registry);
+		
+		cache.getExpression(newPolicy(1, "X509.Algorithm = 1.2.840.113549.1.1.5"));
+		
+		final FunctionTimer timer = registry.get(CertPolicyExpressionCacheMetrics.COMPILE_NAME).functionTimer();
+		assertEquals(1, (long)timer.count());
+		assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+		assertEquals(1, (long)registry.get(CertPolicyExpressionCacheMetrics.REQUESTS_NAME).tag("result", "miss").functionCounter().count());
+		assertEquals(1, (long)registry.get(CertPolicyExpressionCacheMetrics.SIZE_NAME).gauge().value());
+	}
+}
@@ -0,0 +1,100 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.SpringBaseTest;
+import org.nhindirect.config.repository.DNSRepository;
+import org.nhindirect.config.resolver.DNSZoneIndex.ZoneRecord;
+import org.nhindirect.config.store.DNSRecord;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Type;
+
+public class DNSZoneIndexTest extends SpringBaseTest
+{
+	@Autowired
+	private DNSRepository dnsRepo;
+	
+	@Before
+	public void cleanDataBase()
+	{
+		dnsRepo.deleteAll();
+	}
+	
+	@Test
+	public void testFind_nameAndType_assertRecords() throws Exception
+	{
+		dnsRepo.save(DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1"));
+		dnsRepo.save(DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.2"));
+		dnsRepo.save(DNSRecordUtils.createARecord("sample.domain.com", 86400L, "81.142.48.20"));
+		dnsRepo.save(DNSRecordUtils.createSRVRecord("_ldap._tcp.example.domain.com", "ldap.example.domain.com", 3600, 389, 0, 0));
+		
+		final DNSZoneIndex index = new DNSZoneIndex(dnsRepo);
+		index.reload();
+		
+		assertEquals(4, index.size());
+		
+		final List<ZoneRecord> records = index.find("EXAMPLE.domain.com", Type.A);
+		assertEquals(2, records.size());
+		for (ZoneRecord record : records)
+		{
+			assertTrue(record.getRecord() instanceof ARecord);
+			assertEquals("example.domain.com.", record.getRecord().getName().toString());
+		}
+		
+		assertEquals(1, index.find("sample.domain.com.", Type.A).size());
+		assertEquals(2, index.find("example.domain.com", Type.ANY).size());
+		assertEquals(0, index.find("example.domain.com", Type.MX).size());
+		assertEquals(0, index.find("missing.domain.com", Type.A).size());
+		assertEquals(1, index.find("_ldap._tcp.example.domain.com", Type.SRV).size());
+	}
+	
+	@Test
+	public void testGetWire_matchesStoredRecord() throws Exception
+	{
+		final DNSRecord rec = dnsRepo.save(DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1"));
+		
+		final DNSZoneIndex index = new DNSZoneIndex(dnsRepo);
+		
+		final ZoneRecord record = index.find("example.domain.com", Type.A).get(0);
+		assertEquals(rec.getId(), record.getId());
+		
+		final ByteBuffer wire = record.getWire();
+		assertTrue(wire.isReadOnly());
+		assertEquals(record.getWireLength(), wire.remaining());
+		
+		final byte[] encoded = new byte[wire.remaining()];
+		wire.get(encoded);
+		assertArrayEquals(DNSRecord.toWire(rec), encoded);
+		
+		// consuming one view must not affect the next caller
+		assertEquals(record.getWireLength(), record.getWire().remaining());
+	}
+	
+	@Test
+	public void testReload_swapsSnapshot() throws Exception
+	{
+		final DNSZoneIndex index = new DNSZoneIndex(dnsRepo);
+		assertEquals(0, index.find("example.domain.com", Type.A).size());
+		
+		dnsRepo.save(DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1"));
+		
+		// not visible until the index is reloaded
+		assertEquals(0, index.find("example.domain.com", Type.A).size());
+		
+		index.reload();
+		assertEquals(1, index.find("example.domain.com", Type.A).size());
+		
+		dnsRepo.deleteAll();
+		index.reload();
+		assertEquals(0, index.find("example.domain.com", Type.A).size());
+	}
+}
@@ -0,0 +1,234 @@
+package org.nhindirect.config.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nhindirect.config.repository.AnchorRepository;
+import org.nhindirect.config.repository.TrustBundleDaoBaseTest;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.Domain;
+import org.nhindirect.config.store.EntityStatus;
+import org.nhindirect.config.store.TrustBundle;
+import org.nhindirect.config.store.TrustBundleAnchor;
+import org.nhindirect.config.store.TrustBundleDomainReltn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class DomainTrustAnchorResolverTest extends TrustBundleDaoBaseTest
+{
+	@Autowired
+	private AnchorRepository anchorRepo;
+	
+	@Autowired
+	private EntityManagerFactory emf;
+	
+	private DomainTrustAnchorResolver resolver;
+	
+	@Before
+	public void setUpResolver()
+	{
+		anchorRepo.deleteAll();
+		resolver = new DomainTrustAnchorResolver(anchorRepo, reltnRepo);
+	}
+	
+	@After
+	public void tearDownResolver()
+	{
+		resolver.shutdown();
+		anchorRepo.deleteAll();
+	}
+	
+	protected Anchor addAnchor(String owner, String certFileName, boolean incoming, boolean outgoing) throws Exception
+	{
+		return addAnchor(owner, certFileName, incoming, outgoing, EntityStatus.ENABLED);
+	}
+	
+	protected Anchor addAnchor(String owner, String certFileName, boolean incoming, boolean outgoing, EntityStatus status) throws Exception
+	{
+		final Anchor anchor = new Anchor();
+		anchor.setData(loadCertificateData(certFileName));
+		anchor.setOwner(owner);
+		anchor.setIncoming(incoming);
+		anchor.setOutgoing(outgoing);
+		anchor.setStatus(status);
+		
+		return anchorRepo.save(anchor);
+	}
+	
+	protected TrustBundleDomainReltn addBundle(Domain domain, String bundleName, boolean incoming, boolean outgoing, String... certFileNames) throws Exception
+	{
+		final TrustBundle bundle = new TrustBundle();
+		bundle.setBundleName(bundleName);
+		bundle.setBundleURL("http://test/url/" + bundleName);
+		bundle.setCheckSum("1234");
+		for (String certFileName : certFileNames)
+		{
+			final TrustBundleAnchor anchor = new TrustBundleAnchor();
+			anchor.setData(loadCertificateData(certFileName));
+			anchor.setTrustBundle(bundle);
+			bundle.getTrustBundleAnchors().add(anchor);
+		}
+		
+		final TrustBundleDomainReltn reltn = new TrustBundleDomainReltn();
+		reltn.setDomain(domain);
+		reltn.setTrustBundle(tbRepo.save(bundle));
+		reltn.setIncoming(incoming);
+		reltn.setOutgoing(outgoing);
+		
+		return reltnRepo.save(reltn);
+	}
+	
+	@Test
+	public void testGetAnchors_ownedAndBundleAnchors_assertMergedAndDeduplicated() throws Exception
+	{
+		final Domain domain = dmRepo.save(new Domain("test.com"));
+		addAnchor("test.com", "cacert.der", true, true);
+		addBundle(domain, "Bundle 1", true, false, "cacert.der", "secureHealthEmailCACert.der");
+		addBundle(domain, "Bundle 2", true, false, "secureHealthEmailCACert.der");
+		
+		final DomainTrustAnchors anchors = resolver.getAnchors("TEST.com");
+		assertEquals("test.com", anchors.getDomainName());
+		assertEquals(2, anchors.getIncoming().size());
+		assertEquals(1, anchors.getOutgoing().size());
+	}
+	
+	@Test
+	public void testGetAnchors_ownedAndBundleAnchors_assertTwoStatements() throws Exception
+	{
+		final Domain domain = dmRepo.save(new Domain("test.com"));
+		addAnchor("test.com", "cacert.der", true, true);
+		addAnchor("test.com", "secureHealthEmailCACert.der", true, true);
+		addBundle(domain, "Bundle 1", true, true, "cacert.der", "secureHealthEmailCACert.der");
+		addBundle(domain, "Bundle 2", true, true, "secureHealthEmailCACert.der");
+		
+		final Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		
+		// one query for the owned anchors and one for the bundles and their anchors, regardless of the number of bundles
+		assertEquals(2, resolver.getAnchors("test.com").getIncoming().size());
+		assertEquals(2, stats.getPrepareStatementCount());
+		
+		resolver.getAnchors("test.com");
+		assertEquals(2, stats.getPrepareStatementCount());
+	}
+	
+	@Test
+	public void testGetAnchors_disabledAnchor_assertNotTrusted() throws Exception
+	{
+		addAnchor("test.com", "cacert.der", true, true);
+		final Anchor disabled = addAnchor("test.com", "secureHealthEmailCACert.der", true, true, EntityStatus.DISABLED);
+		
+		DomainTrustAnchors anchors = resolver.getAnchors("test.com");
+		assertEquals(1, anchors.getIncoming().size());
+		assertEquals(1, anchors.getOutgoing().size());
+		
+		// enabling the anchor invalidates the cached entry
+		disabled.setStatus(EntityStatus.ENABLED);
+		anchorRepo.save(disabled);
+		
+		anchors = resolver.getAnchors("test.com");
+		assertEquals(2, anchors.getIncoming().size());
+		assertEquals(2, anchors.getOutgoing().size());
+	}
+	
+	@Test
+	public void testGetAnchors_unknownDomain_assertEmpty() throws Exception
+	{
+		final DomainTrustAnchors anchors = resolver.getAnchors("unknown.com");
+		assertTrue(anchors.getIncoming().isEmpty());
+		assertTrue(anchors.getOutgoing().isEmpty());
+	}
+	
+	@Test
+	public void testGetAnchors_cached_assertSameInstance() throws Exception
+	{
+		addAnchor("test.com", "cacert.der", true, true);
+		
+		final DomainTrustAnchors anchors = resolver.getAnchors("test.com");
+		assertTrue(anchors == resolver.getAnchors("test.com"));
+		assertEquals(1, resolver.getStats().hitCount());
+	}
+	
+	@Test
+	public void testGetAnchors_anchorAdded_assertInvalidated() throws Exception
+	{
+		addAnchor("test.com", "cacert.der", true, true);
+		assertEquals(1, resolver.getAnchors("test.com").getIncoming().size());
+		
+		addAnchor("test.com", "secureHealthEmailCACert.der", true, false);
+		assertEquals(2, resolver.getAnchors("test.com").getIncoming().size());
+	}
+	
+	@Test
+	public void testGetAnchors_reltnRemoved_assertInvalidated() throws Exception
+	{
+		final Domain domain = dmRepo.save(new Domain("test.com"));
+		final TrustBundleDomainReltn reltn = addBundle(domain, "Bundle 1", true, true, "cacert.der");
+		assertEquals(1, resolver.getAnchors("test.com").getOutgoing().size());
+		
+		reltnRepo.deleteById(reltn.getId());
+		assertTrue(resolver.getAnchors("test.com").getOutgoing().isEmpty());
+	}
+	
+	@Test
+	public void testGetAnchors_bundleAnchorsUpdated_assertInvalidated() throws Exception
+	{
+		final Domain domain = dmRepo.save(new Domain("test.com"));
+		final TrustBundleDomainReltn reltn = addBundle(domain, "Bundle 1", true, true, "cacert.der");
+		assertEquals(1, resolver.getAnchors("test.com").getIncoming().size());
+		
+		final TrustBundleAnchor anchor = new TrustBundleAnchor();
+		anchor.setData(loadCertificateData("secureHealthEmailCACert.der"));
+		tbRepo.updateTrustBundleAnchors(reltn.getTrustBundle().getId(), Arrays.asList(anchor), "5678");
+		
+		final DomainTrustAnchors anchors = resolver.getAnchors("test.com");
+		assertEquals(1, anchors.getIncoming().size());
+		assertTrue(anchors.getIncomingByThumbprint().containsKey(anchor.getThumbprint()));
+	}
+	
+	@Test
+	public void testGetAnchors_bundleAnchorsUpdated_assertOnlyBundleDomainsInvalidated() throws Exception
+	{
+		final TrustBundleDomainReltn reltn = addBundle(dmRepo.save(new Domain("test.com")), "Bundle 1", true, true, "cacert.der");
+		addBundle(dmRepo.save(new Domain("other.com")), "Bundle 2", true, true, "cacert.der");
+		addAnchor("owned.com", "cacert.der", true, true);
+		
+		final DomainTrustAnchors other = resolver.getAnchors("other.com");
+		final DomainTrustAnchors owned = resolver.getAnchors("owned.com");
+		resolver.getAnchors("test.com");
+		
+		final TrustBundleAnchor first = new TrustBundleAnchor();
+		first.setData(loadCertificateData("cacert.der"));
+		final TrustBundleAnchor second = new TrustBundleAnchor();
+		second.setData(loadCertificateData("secureHealthEmailCACert.der"));
+		tbRepo.updateTrustBundleAnchors(reltn.getTrustBundle().getId(), Arrays.asList(first, second), "5678");
+		
+		assertEquals(2, resolver.getAnchors("test.com").getIncoming().size());
+		assertTrue(other == resolver.getAnchors("other.com"));
+		assertTrue(owned == resolver.getAnchors("owned.com"));
+	}
+	
+	@Test
+	public void testGetAnchors_anchorOwnerChanged_assertBothOwnersInvalidated() throws Exception
+	{
+		final Anchor anchor = addAnchor("test.com", "cacert.der", true, true);
+		assertEquals(1, resolver.getAnchors("test.com").getIncoming().size());
+		assertTrue(resolver.getAnchors("other.com").getIncoming().isEmpty());
+		
+		anchor.setOwner("OTHER.com");
+		anchorRepo.save(anchor);
+		
+		assertTrue(resolver.getAnchors("test.com").getIncoming().isEmpty());
+		assertEquals(1, resolver.getAnchors("other.com").getIncoming().size());
+	}
+}
@@ -0,0 +1,72 @@
+package org.nhindirect.config.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.nhindirect.config.store.util.DNSRecordUtils;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+
+public class DNSRecord_toWireBufferTest 
+{
+	private static byte[] toBytes(ByteBuffer buffer)
+	{
+		final byte[] retVal = new byte[buffer.remaining()];
+		buffer.get(retVal);
+		
+		return retVal;
+	}
+	
+	@Test
+	public void testToWireBuffer_matchesEncoding() throws Exception 
+	{
+		final DNSRecord rec = DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1");
+		
+		final ByteBuffer wire = rec.toWireBuffer();
+		assertTrue(wire.isReadOnly());
+		assertArrayEquals(DNSRecordUtils.encodeWire(rec), toBytes(wire));
+		
+		// each call returns an independent view
+		assertArrayEquals(DNSRecordUtils.encodeWire(rec), toBytes(rec.toWireBuffer()));
+	}
+	
+	@Test
+	public void testToWire_returnsCopy() throws Exception 
+	{
+		final DNSRecord rec = DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1");
+		
+		final byte[] wire = DNSRecordUtils.toWire(rec);
+		final byte[] original = wire.clone();
+		wire[0] = (byte)~wire[0];
+		
+		assertArrayEquals(original, DNSRecordUtils.toWire(rec));
+	}
+	
+	@Test
+	public void testToWireBuffer_invalidatedBySetters() throws Exception 
+	{
+		final DNSRecord rec = DNSRecordUtils.createARecord("example.domain.com", 86400L, "127.0.0.1");
+		final byte[] original = toBytes(rec.toWireBuffer());
+		
+		rec.setTtl(3600L);
+		byte[] updated = toBytes(rec.toWireBuffer());
+		assertFalse(Arrays.equals(original, updated));
+		assertEquals(3600L, Record.fromWire(updated, Section.ANSWER).getTTL());
+		
+		rec.setName("sample.domain.com.");
+		updated = toBytes(rec.toWireBuffer());
+		assertEquals("sample.domain.com.", Record.fromWire(updated, Section.ANSWER).getName().toString());
+		
+		final DNSRecord other = DNSRecordUtils.createARecord("example.domain.com", 86400L, "10.0.0.1");
+		rec.setData(other.getData());
+		updated = toBytes(rec.toWireBuffer());
+		assertEquals("10.0.0.1", ((ARecord)Record.fromWire(updated, Section.ANSWER)).getAddress().getHostAddress());
+	}
+}
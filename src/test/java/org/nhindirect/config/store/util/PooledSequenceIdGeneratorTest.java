@@ -0,0 +1,66 @@
+package org.nhindirect.config.store.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.Test;
+
+public class PooledSequenceIdGeneratorTest 
+{
+	protected Properties params(String sequenceName, String incrementSize)
+	{
+		final Properties retVal = new Properties();
+		retVal.setProperty(SequenceStyleGenerator.SEQUENCE_PARAM, sequenceName);
+		if (incrementSize != null)
+			retVal.setProperty(SequenceStyleGenerator.INCREMENT_PARAM, incrementSize);
+		
+		return retVal;
+	}
+	
+	@Test
+	public void testGetAllocationSize_noSettings_assertDefault()
+	{
+		assertEquals(PooledSequenceIdGenerator.DEFAULT_ALLOCATION_SIZE, 
+				PooledSequenceIdGenerator.getAllocationSize(new HashMap<>(), params("address_seq", null)));
+	}
+	
+	@Test
+	public void testGetAllocationSize_incrementParam_assertParam()
+	{
+		assertEquals(10, PooledSequenceIdGenerator.getAllocationSize(new HashMap<>(), params("address_seq", "10")));
+	}
+	
+	@Test
+	public void testGetAllocationSize_globalSetting_assertGlobal()
+	{
+		final Map<String, Object> settings = new HashMap<>();
+		settings.put(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING, "100");
+		
+		assertEquals(100, PooledSequenceIdGenerator.getAllocationSize(settings, params("address_seq", "10")));
+	}
+	
+	@Test
+	public void testGetAllocationSize_sequenceSetting_assertSequenceOverridesGlobal()
+	{
+		final Map<String, Object> settings = new HashMap<>();
+		settings.put(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING, "100");
+		settings.put("org.nhindirect.config.store.id.address_seq.allocation_size", 500);
+		
+		assertEquals(500, PooledSequenceIdGenerator.getAllocationSize(settings, params("address_seq", null)));
+		assertEquals(100, PooledSequenceIdGenerator.getAllocationSize(settings, params("domain_seq", null)));
+	}
+	
+	@Test(expected = MappingException.class)
+	public void testGetAllocationSize_invalidSize_assertException()
+	{
+		final Map<String, Object> settings = new HashMap<>();
+		settings.put(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING, "0");
+		
+		PooledSequenceIdGenerator.getAllocationSize(settings, params("address_seq", null));
+	}
+}
@@ -0,0 +1,136 @@
+package org.nhindirect.config.store.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.nhindirect.common.cert.Thumbprint;
+import org.nhindirect.common.crypto.CryptoExtensions;
+import org.nhindirect.config.repository.CertificateRepositoryTest;
+import org.nhindirect.config.store.Anchor;
+import org.nhindirect.config.store.Certificate;
+import org.nhindirect.config.store.Certificate.CertContainer;
+import org.nhindirect.config.store.TrustBundleAnchor;
+
+public class X509CertificateCacheTest
+{
+	private static final String certBasePath = "src/test/resources/certs/"; 
+	
+	static
+	{
+		CryptoExtensions.registerJCEProviders();
+	}
+	
+	private static byte[] loadCertificateData(String certFileName) throws Exception
+	{
+		return FileUtils.readFileToByteArray(new File(certBasePath + certFileName));
+	}
+	
+	@Test
+	public void testGetCertificate_cachedByThumbprint() throws Exception
+	{
+		final X509CertificateCache cache = new X509CertificateCache(X509CertificateCache.DEFAULT_MAX_WEIGHT);
+		final byte[] certData = loadCertificateData("gm2552.der");
+		
+		assertNull(cache.getCachedCertificate(certData));
+		
+		final X509Certificate cert = cache.getCertificate(certData);
+		assertNotNull(cert);
+		assertSame(cert, cache.getCertificate(certData.clone()));
+		assertSame(cert, cache.getCachedCertificate(certData));
+		
+		// probes with getCachedCertificate are not counted
+		assertEquals(1, cache.getStats().missCount());
+		assertEquals(1, cache.getStats().hitCount());
+		assertEquals(Thumbprint.toThumbprint(cert).toString(), cache.toThumbprint(certData));
+	}
+	
+	@Test
+	public void testGetCertificate_boundedByEncodedSize() throws Exception
+	{
+		final byte[] certData = loadCertificateData("gm2552.der");
+		final byte[] otherCertData = loadCertificateData("umesh.der");
+		
+		// only room for one of the certificates
+		final X509CertificateCache cache = new X509CertificateCache(Math.max(certData.length, otherCertData.length));
+		
+		cache.getCertificate(certData);
+		cache.getCertificate(otherCertData);
+		cache.getCertificate(certData);
+		cache.getCertificate(otherCertData);
+		
+		cache.cleanUp();
+		
+		assertEquals(1, cache.size());
+		assertTrue(cache.getStats().evictionCount() > 0);
+	}
+	
+	@Test(expected = CertificateException.class)
+	public void testGetCertificate_invalidData_assertException() throws Exception
+	{
+		final X509CertificateCache cache = new X509CertificateCache(X509CertificateCache.DEFAULT_MAX_WEIGHT);
+		
+		cache.getCertificate("bogus".getBytes());
+	}
+	
+	@Test
+	public void testToCertificate_sharedByEntities() throws Exception
+	{
+		final byte[] certData = loadCertificateData("secureHealthEmailCACert.der");
+		
+		final Anchor anchor = new Anchor();
+		anchor.setData(certData);
+		
+		final TrustBundleAnchor bundleAnchor = new TrustBundleAnchor();
+		bundleAnchor.setData(certData);
+		
+		assertSame(anchor.toCertificate(), bundleAnchor.toCertificate());
+	}
+	
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testToCredential_pkcs12_assertCredentialCached() throws Exception
+	{
+		final Certificate pkcs12 = new Certificate();
+		pkcs12.setData(CertificateRepositoryTest.loadPkcs12FromCertAndKey("gm2552.der", "gm2552Key.der"));
+		
+		final Certificate plain = new Certificate();
+		plain.setData(loadCertificateData("umesh.der"));
+		
+		final CacheStats before = X509CertificateCache.getInstance().getCredentialStats();
+		
+		final CertContainer credential = pkcs12.toCredential();
+		assertNotNull(credential.getKey());
+		assertSame(credential, pkcs12.toCredential());
+		
+		// a different password is not served the cached credential
+		try
+		{
+			pkcs12.toCredential("bogus".toCharArray(), "bogus".toCharArray());
+			fail("Expected a CertificateException");
+		}
+		catch (org.nhindirect.config.store.CertificateException e)
+		{
+			// expected
+		}
+		
+		// plain certificates are not counted as credential misses
+		plain.toCredential();
+		plain.toCredential();
+		
+		final CacheStats stats = X509CertificateCache.getInstance().getCredentialStats().minus(before);
+		assertEquals(1, stats.missCount());
+		assertEquals(1, stats.hitCount());
+	}
+}